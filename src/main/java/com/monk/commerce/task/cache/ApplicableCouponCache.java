@@ -0,0 +1,235 @@
+package com.monk.commerce.task.cache;
+
+import com.monk.commerce.task.dto.response.ApplicableCouponResponseDTO;
+import com.monk.commerce.task.dto.response.ResultCacheStatsDTO;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.util.CartIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of applicable-coupon results, so that rendering an unchanged cart again costs
+ * a key and a lookup instead of a full evaluation. Entries expire after
+ * {@code coupon.result-cache.ttl-ms}, or earlier when one of the coupons considered expires.
+ * <p>
+ * Entries are spread by key over up to {@value #MAX_SHARDS} shards, each an LRU map with its own
+ * lock and an equal share of {@code coupon.result-cache.max-entries}, so concurrent lookups
+ * rarely wait on each other. Small caches keep a single shard and thus exact LRU eviction.
+ * <p>
+ * The key is the cart in canonical form, i.e. its distinct products sorted by ID with their
+ * merged quantities and prices, together with the user, the limit, the catalog version and two
+ * usage generations. Redeeming a coupon with a global usage limit bumps the global generation;
+ * redeeming one with a per-user limit bumps the generation of the user's stripe. Entries built
+ * before either change are never looked up again and age out. Usage recorded by other instances
+ * is seen once the catalog reloads or the entry expires.
+ */
+@Component
+public class ApplicableCouponCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ApplicableCouponCache.class);
+    // Users share a generation per stripe; a redemption also invalidates the other users of its stripe
+    private static final int USER_STRIPES = 1024;
+    private static final int MAX_SHARDS = 16;
+    private static final int MIN_SHARD_ENTRIES = 64;
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Shard[] shards;
+    private final AtomicLong globalGeneration = new AtomicLong();
+    private final AtomicLongArray userGenerations = new AtomicLongArray(USER_STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ApplicableCouponCache(
+            @Value("${coupon.result-cache.max-entries:10000}") int maxEntries,
+            @Value("${coupon.result-cache.ttl-ms:5000}") long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = Duration.ofMillis(ttlMs).toNanos();
+        int shardCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_SHARDS, maxEntries / MIN_SHARD_ENTRIES)));
+        int shardCapacity = (Math.max(0, maxEntries) + shardCount - 1) / shardCount;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(shardCapacity);
+        }
+    }
+
+    public record Key(String value) {
+    }
+
+    private record Entry(List<ApplicableCouponResponseDTO> coupons, long expiresAt) {
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0 && ttlNanos > 0;
+    }
+
+    /**
+     * The cache key of the cart for the given catalog version, or null when the cache is disabled.
+     */
+    public Key keyFor(CartIndex cartIndex, String userId, Integer limit, long catalogVersion) {
+        if (!isEnabled()) {
+            return null;
+        }
+        long[] productIds = new long[cartIndex.size()];
+        for (int position = 0; position < productIds.length; position++) {
+            productIds[position] = cartIndex.getProductId(position);
+        }
+        Arrays.sort(productIds);
+        StringBuilder key = new StringBuilder(32 + productIds.length * 16)
+                .append(catalogVersion).append(':')
+                .append(globalGeneration.get()).append(':')
+                .append(userId != null ? userGenerations.get(stripeOf(userId)) : 0L).append(':')
+                .append(limit).append('|');
+        for (long productId : productIds) {
+            // BigDecimal.toString keeps the scale, which the discounts' scale depends on. The line
+            // total tells apart carts that repeat a product at different prices after the first.
+            key.append(productId).append(':')
+                    .append(cartIndex.getQuantity(productId)).append(':')
+                    .append(cartIndex.getPrice(productId)).append(':')
+                    .append(cartIndex.getLineTotal(productId)).append(';');
+        }
+        // Last, since the user ID may contain any character; the tag tells a missing user from the ID "null"
+        key.append('|');
+        if (userId != null) {
+            key.append('u').append(userId);
+        }
+        return new Key(key.toString());
+    }
+
+    /**
+     * The cached result for the key, or null on a miss. The list and its entries are shared and
+     * must not be modified.
+     */
+    public List<ApplicableCouponResponseDTO> get(Key key) {
+        if (key == null) {
+            return null;
+        }
+        Shard shard = shardOf(key);
+        Entry entry;
+        synchronized (shard) {
+            entry = shard.get(key);
+            if (entry != null && System.nanoTime() - entry.expiresAt() >= 0) {
+                shard.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.coupons();
+    }
+
+    /**
+     * Caches the result until the TTL elapses or, when earlier, {@code validUntil}.
+     */
+    public void put(Key key, List<ApplicableCouponResponseDTO> coupons, LocalDateTime validUntil) {
+        if (key == null) {
+            return;
+        }
+        long timeToLive = ttlNanos;
+        if (validUntil != null) {
+            timeToLive = Math.min(timeToLive, Duration.between(LocalDateTime.now(), validUntil).toNanos());
+            if (timeToLive <= 0) {
+                return;
+            }
+        }
+        Entry entry = new Entry(List.copyOf(coupons), System.nanoTime() + timeToLive);
+        Shard shard = shardOf(key);
+        synchronized (shard) {
+            shard.put(key, entry);
+        }
+    }
+
+    /**
+     * Makes entries that the coupon's redemption by the user can change unreachable once the
+     * redemption commits, or right away outside a transaction.
+     */
+    public void invalidateAfterCommit(Coupon coupon, String userId) {
+        boolean globallyLimited = coupon.getMaxUsageLimit() != null;
+        boolean userLimited = userId != null && coupon.getUsageLimitPerUser() != null;
+        if (!isEnabled() || (!globallyLimited && !userLimited)) {
+            return;
+        }
+        Runnable invalidation = () -> {
+            if (globallyLimited) {
+                globalGeneration.incrementAndGet();
+            }
+            if (userLimited) {
+                userGenerations.incrementAndGet(stripeOf(userId));
+            }
+            log.debug("Invalidated cached results for redemption of coupon {}", coupon.getId());
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+
+    public ResultCacheStatsDTO stats() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return ResultCacheStatsDTO.builder()
+                .enabled(isEnabled())
+                .size(size)
+                .hits(hits.sum())
+                .misses(misses.sum())
+                .evictions(evictions.sum())
+                .build();
+    }
+
+    private static int stripeOf(String userId) {
+        return (userId.hashCode() & Integer.MAX_VALUE) % USER_STRIPES;
+    }
+
+    private Shard shardOf(Key key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    // Access-ordered, so a lookup changes the map too and needs the shard's lock
+    private final class Shard extends LinkedHashMap<Key, Entry> {
+
+        private final int capacity;
+
+        private Shard(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
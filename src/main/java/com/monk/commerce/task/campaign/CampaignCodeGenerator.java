@@ -0,0 +1,110 @@
+package com.monk.commerce.task.campaign;
+
+import com.monk.commerce.task.util.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Generates single-use campaign codes for a coupon in chunks of {@code coupon.campaign.chunk-size}.
+ * Each chunk is drawn in memory with a hash set to keep it free of duplicates, checked against
+ * the codes already stored with one query, and written by {@link CampaignCodeWriter} in a
+ * transaction of its own. Earlier chunks are committed by then, so the check covers them too,
+ * and memory stays bounded by the chunk size however many codes are requested.
+ * <p>
+ * Codes come from a {@link SecureRandom} since they grant a discount to whoever knows one.
+ * The code space must be at least {@value #MIN_SPACE_PER_CODE} times the requested count,
+ * which keeps clashes with stored codes rare.
+ */
+@Component
+public class CampaignCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(CampaignCodeGenerator.class);
+    private static final long MIN_SPACE_PER_CODE = 100;
+    private static final int MAX_CLASH_ROUNDS = 10;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+    // The existence check binds one parameter per code
+    private static final int MAX_CHUNK_SIZE = 30_000;
+
+    private final CampaignCodeWriter writer;
+    private final int chunkSize;
+
+    public CampaignCodeGenerator(
+            CampaignCodeWriter writer,
+            @Value("${coupon.campaign.chunk-size:10000}") int chunkSize) {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("coupon.campaign.chunk-size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        this.writer = writer;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Stores {@code count} new codes for the coupon and returns how many were stored. Chunks
+     * written before a failure stay committed.
+     */
+    public int generate(UUID couponId, int count, String alphabet, String prefix, int length) {
+        RandomCodeGenerator codes = new RandomCodeGenerator(alphabet, prefix, length, new SecureRandom());
+        if (codes.capacity() / MIN_SPACE_PER_CODE < count) {
+            throw new IllegalArgumentException(String.format(Constants.CAMPAIGN_CODE_SPACE_TOO_SMALL, count));
+        }
+        long start = System.nanoTime();
+        int generated = 0;
+        while (generated < count) {
+            generated += writeChunk(couponId, codes, Math.min(chunkSize, count - generated));
+        }
+        log.info("Generated {} campaign codes for coupon {} in {} ms",
+                generated, couponId, (System.nanoTime() - start) / 1_000_000);
+        return generated;
+    }
+
+    private int writeChunk(UUID couponId, RandomCodeGenerator codes, int size) {
+        for (int attempt = 1; ; attempt++) {
+            Set<String> chunk = new HashSet<>(size * 4 / 3 + 1);
+            List<String> unchecked = fill(chunk, codes, size);
+            for (int round = 1; ; round++) {
+                Set<String> existing = writer.findExisting(unchecked);
+                if (existing.isEmpty()) {
+                    break;
+                }
+                if (round == MAX_CLASH_ROUNDS) {
+                    throw new IllegalStateException("Campaign code space is nearly exhausted, use a longer code or another prefix");
+                }
+                log.debug("{} campaign codes already taken, drawing replacements", existing.size());
+                chunk.removeAll(existing);
+                unchecked = fill(chunk, codes, size);
+            }
+            try {
+                writer.insert(couponId, new ArrayList<>(chunk));
+                return size;
+            } catch (DuplicateKeyException e) {
+                // Another campaign stored one of the codes between the check and the insert
+                if (attempt == MAX_CHUNK_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Campaign code chunk for coupon {} clashed on insert, retrying with new codes", couponId);
+            }
+        }
+    }
+
+    // Draws codes until the chunk is full and returns the ones added
+    private static List<String> fill(Set<String> chunk, RandomCodeGenerator codes, int size) {
+        List<String> added = new ArrayList<>(size - chunk.size());
+        while (chunk.size() < size) {
+            String code = codes.next();
+            if (chunk.add(code)) {
+                added.add(code);
+            }
+        }
+        return added;
+    }
+}
@@ -0,0 +1,84 @@
+package com.monk.commerce.task.campaign;
+
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes {@code campaign_code} rows over plain JDBC. The table has no entity: codes
+ * are only ever inserted in bulk, looked up by value and listed per coupon.
+ */
+@Component
+public class CampaignCodeWriter {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int FETCH_SIZE = 10_000;
+    private static final String INSERT_SQL = "INSERT INTO campaign_code (code, coupon_id, created_at) VALUES (?, ?, ?)";
+    private static final String EXISTING_SQL = "SELECT code FROM campaign_code WHERE code IN (:codes)";
+    private static final String COUPON_CODES_SQL = "SELECT code FROM campaign_code WHERE coupon_id = ?";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcOperations jdbcOperations;
+    private final TransactionTemplate writeTemplate;
+
+    public CampaignCodeWriter(NamedParameterJdbcTemplate namedJdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.jdbcOperations = namedJdbcTemplate.getJdbcOperations();
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Returns the given codes that are already taken by any campaign.
+     */
+    public Set<String> findExisting(Collection<String> codes) {
+        if (codes.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList(EXISTING_SQL, Map.of("codes", codes), String.class));
+    }
+
+    /**
+     * Inserts all codes for the coupon or none of them, committed on its own.
+     */
+    public void insert(UUID couponId, List<String> codes) {
+        if (codes.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        writeTemplate.executeWithoutResult(status ->
+                jdbcOperations.batchUpdate(INSERT_SQL, codes, BATCH_SIZE, (ps, code) -> {
+                    ps.setString(1, code);
+                    ps.setObject(2, couponId);
+                    ps.setTimestamp(3, createdAt);
+                }));
+    }
+
+    /**
+     * Passes every code of the coupon to the consumer while the rows are read. Only streams with
+     * a bounded fetch size when called inside a transaction.
+     */
+    public void streamCodes(UUID couponId, Consumer<String> consumer) {
+        jdbcOperations.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(COUPON_CODES_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setObject(1, couponId);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)));
+    }
+}
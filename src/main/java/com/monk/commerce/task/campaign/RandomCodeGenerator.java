@@ -0,0 +1,71 @@
+package com.monk.commerce.task.campaign;
+
+import com.monk.commerce.task.util.Constants;
+
+import java.util.Random;
+
+/**
+ * Draws codes of a fixed number of random letters from an alphabet, after a fixed prefix.
+ * Random bytes are fetched in bulk and mapped to letters by rejection sampling, so every
+ * letter is equally likely whatever the alphabet size. Not thread-safe.
+ */
+public final class RandomCodeGenerator {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final char[] alphabet;
+    private final int prefixLength;
+    private final int length;
+    private final Random random;
+    // Bytes at or above this are skipped, the rest map evenly onto the alphabet
+    private final int limit;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final char[] code;
+    private int position = BUFFER_SIZE;
+
+    public RandomCodeGenerator(String alphabet, String prefix, int length, Random random) {
+        if (alphabet == null || alphabet.length() < 2 || alphabet.length() > 64
+                || alphabet.chars().distinct().count() != alphabet.length()
+                || !alphabet.chars().allMatch(c -> c < 128 && Character.isLetterOrDigit(c))) {
+            throw new IllegalArgumentException(Constants.INVALID_CAMPAIGN_ALPHABET);
+        }
+        if (length < 1 || prefix.length() + length > Constants.MAX_CAMPAIGN_CODE_LENGTH) {
+            throw new IllegalArgumentException(String.format(Constants.INVALID_CAMPAIGN_CODE_LENGTH, Constants.MAX_CAMPAIGN_CODE_LENGTH));
+        }
+        this.alphabet = alphabet.toCharArray();
+        this.prefixLength = prefix.length();
+        this.length = length;
+        this.random = random;
+        this.limit = 256 - 256 % this.alphabet.length;
+        this.code = new char[prefixLength + length];
+        prefix.getChars(0, prefixLength, code, 0);
+    }
+
+    /**
+     * Number of distinct codes this generator can produce, capped at {@link Long#MAX_VALUE}.
+     */
+    public long capacity() {
+        long capacity = 1;
+        for (int i = 0; i < length; i++) {
+            if (capacity > Long.MAX_VALUE / alphabet.length) {
+                return Long.MAX_VALUE;
+            }
+            capacity *= alphabet.length;
+        }
+        return capacity;
+    }
+
+    public String next() {
+        for (int i = prefixLength; i < code.length; ) {
+            if (position == BUFFER_SIZE) {
+                random.nextBytes(buffer);
+                position = 0;
+            }
+            int value = buffer[position++] & 0xFF;
+            if (value < limit) {
+                code[i++] = alphabet[value % alphabet.length];
+            }
+        }
+        return new String(code);
+    }
+}
@@ -0,0 +1,171 @@
+package com.monk.commerce.task.catalog;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.factory.CouponStrategyFactory;
+import com.monk.commerce.task.repository.CouponRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Holds the in-memory coupon catalog used on the cart evaluation path. Coupon changes are
+ * patched into the snapshot as they commit, and the whole snapshot is rebuilt from the
+ * repository at most every {@code coupon.catalog.max-age-ms} so that changes and usage
+ * made by other instances are picked up too. Full loads read projections through
+ * {@link CouponCatalogLoader} rather than managed entities. Coupons are compiled into
+ * evaluators by their strategies as they enter a snapshot.
+ */
+@Component
+public class CouponCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponCatalog.class);
+
+    private final CouponRepository couponRepository;
+    private final CouponCatalogLoader catalogLoader;
+    private final CouponStrategyFactory strategyFactory;
+    private final TransactionTemplate loadTemplate;
+    private final Duration maxAge;
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final AtomicReference<CouponCatalogSnapshot> snapshot = new AtomicReference<>();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public CouponCatalog(
+            CouponRepository couponRepository,
+            CouponCatalogLoader catalogLoader,
+            CouponStrategyFactory strategyFactory,
+            PlatformTransactionManager transactionManager,
+            @Value("${coupon.catalog.max-age-ms:30000}") long maxAgeMs) {
+        this.couponRepository = couponRepository;
+        this.catalogLoader = catalogLoader;
+        this.strategyFactory = strategyFactory;
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setReadOnly(true);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // The loader's queries must agree on which coupons are active
+        this.loadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.maxAge = Duration.ofMillis(maxAgeMs);
+    }
+
+    public CouponCatalogSnapshot current() {
+        CouponCatalogSnapshot current = snapshot.get();
+        if (current != null && !current.isOlderThan(maxAge)) {
+            return current;
+        }
+        if (current != null) {
+            // Serve the stale snapshot while a single caller reloads it
+            if (!reloadLock.tryLock()) {
+                return current;
+            }
+        } else {
+            reloadLock.lock();
+        }
+        try {
+            CouponCatalogSnapshot latest = snapshot.get();
+            if (latest != current) {
+                return latest;
+            }
+            return load();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    public CouponCatalogSnapshot refresh() {
+        reloadLock.lock();
+        try {
+            return load();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Re-reads a created or updated coupon after commit and patches it into the current
+     * snapshot and its product index instead of reloading the whole catalog.
+     */
+    public void upsertAfterCommit(UUID couponId) {
+        afterCommit(() -> applyChange(couponId, () -> {
+            Optional<Coupon> coupon = loadTemplate.execute(status -> couponRepository.findActiveById(couponId)
+                    .map(activeCoupon -> {
+                        Hibernate.initialize(activeCoupon.getExcludedProducts());
+                        return activeCoupon;
+                    }));
+            CouponCatalogSnapshot current = snapshot.get();
+            long version = versionSequence.incrementAndGet();
+            return coupon != null && coupon.isPresent()
+                    ? current.withCoupon(version, coupon.get())
+                    : current.withoutCoupon(version, couponId);
+        }));
+    }
+
+    public void removeAfterCommit(UUID couponId) {
+        afterCommit(() -> applyChange(couponId,
+                () -> snapshot.get().withoutCoupon(versionSequence.incrementAndGet(), couponId)));
+    }
+
+    public void recordUsageAfterCommit(UUID couponId) {
+        afterCommit(() -> {
+            CouponCatalogSnapshot current = snapshot.get();
+            if (current != null) {
+                current.recordUsage(couponId);
+            }
+        });
+    }
+
+    private void applyChange(UUID couponId, Supplier<CouponCatalogSnapshot> change) {
+        reloadLock.lock();
+        try {
+            if (snapshot.get() == null) {
+                // Nothing loaded yet, the next read loads the full catalog
+                return;
+            }
+            CouponCatalogSnapshot updated = change.get();
+            snapshot.set(updated);
+            log.debug("Applied change to coupon {} in catalog version {}", couponId, updated.getVersion());
+        } catch (RuntimeException e) {
+            log.error("Failed to update coupon {} in catalog, forcing reload on next read: {}", couponId, e.getMessage());
+            snapshot.set(null);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private CouponCatalogSnapshot load() {
+        log.debug("Loading coupon catalog");
+        List<Coupon> coupons = loadTemplate.execute(status -> catalogLoader.loadActiveCoupons());
+        CouponCatalogSnapshot loaded = new CouponCatalogSnapshot(versionSequence.incrementAndGet(), Instant.now(), coupons, strategyFactory);
+        snapshot.set(loaded);
+        log.info("Loaded coupon catalog version {} with {} coupons", loaded.getVersion(), loaded.size());
+        return loaded;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
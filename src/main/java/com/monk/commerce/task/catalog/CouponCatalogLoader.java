@@ -0,0 +1,119 @@
+package com.monk.commerce.task.catalog;
+
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
+import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.entity.ProductWiseCoupon;
+import com.monk.commerce.task.repository.CouponViewRepository;
+import com.monk.commerce.task.repository.projection.BxGyCouponView;
+import com.monk.commerce.task.repository.projection.CartWiseCouponView;
+import com.monk.commerce.task.repository.projection.CouponView;
+import com.monk.commerce.task.repository.projection.ExcludedProductView;
+import com.monk.commerce.task.repository.projection.ProductWiseCouponView;
+import com.monk.commerce.task.repository.projection.TierProductView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loads the active coupons for the catalog from {@link CouponViewRepository} projections: one
+ * query per coupon type and one per product association, whatever the catalog size. The
+ * coupons are assembled as plain objects that no persistence context tracks; they are only
+ * read by the evaluation path, while admin CRUD keeps working on managed entities.
+ * <p>
+ * Expected to run in a single read-only transaction so that the queries see the same data.
+ */
+@Component
+public class CouponCatalogLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponCatalogLoader.class);
+
+    private final CouponViewRepository couponViewRepository;
+
+    public CouponCatalogLoader(CouponViewRepository couponViewRepository) {
+        this.couponViewRepository = couponViewRepository;
+    }
+
+    public List<Coupon> loadActiveCoupons() {
+        Map<UUID, Coupon> coupons = new HashMap<>();
+        for (CartWiseCouponView view : couponViewRepository.findActiveCartWiseCoupons()) {
+            CartWiseCoupon coupon = withCouponFields(new CartWiseCoupon(), view);
+            coupon.setThresholdAmount(view.thresholdAmount());
+            coupon.setDiscountPercentage(view.discountPercentage());
+            coupon.setMaxDiscountAmount(view.maxDiscountAmount());
+            coupons.put(coupon.getId(), coupon);
+        }
+        for (ProductWiseCouponView view : couponViewRepository.findActiveProductWiseCoupons()) {
+            ProductWiseCoupon coupon = withCouponFields(new ProductWiseCoupon(), view);
+            coupon.setProductId(view.productId());
+            coupon.setDiscountPercentage(view.discountPercentage());
+            coupon.setMaxDiscountPerProduct(view.maxDiscountPerProduct());
+            coupons.put(coupon.getId(), coupon);
+        }
+        for (BxGyCouponView view : couponViewRepository.findActiveBxGyCoupons()) {
+            BxGyCoupon coupon = withCouponFields(new BxGyCoupon(), view);
+            coupon.setRepetitionLimit(view.repetitionLimit());
+            coupon.setIsTiered(view.isTiered());
+            coupon.setTierSelection(view.tierSelection());
+            coupons.put(coupon.getId(), coupon);
+        }
+        // Rows of a coupon missing above are skipped
+        for (ExcludedProductView view : couponViewRepository.findActiveExcludedProducts()) {
+            Coupon coupon = coupons.get(view.couponId());
+            if (coupon != null) {
+                coupon.getExcludedProducts().add(ExcludedProduct.builder()
+                        .coupon(coupon)
+                        .productId(view.productId())
+                        .build());
+            }
+        }
+        for (TierProductView view : couponViewRepository.findActiveBuyProducts()) {
+            if (coupons.get(view.couponId()) instanceof BxGyCoupon coupon) {
+                coupon.getBuyProducts().add(BuyProduct.builder()
+                        .bxgyCoupon(coupon)
+                        .productId(view.productId())
+                        .quantity(view.quantity())
+                        .tierLevel(view.tierLevel())
+                        .build());
+            }
+        }
+        for (TierProductView view : couponViewRepository.findActiveGetProducts()) {
+            if (coupons.get(view.couponId()) instanceof BxGyCoupon coupon) {
+                coupon.getGetProducts().add(GetProduct.builder()
+                        .bxgyCoupon(coupon)
+                        .productId(view.productId())
+                        .quantity(view.quantity())
+                        .tierLevel(view.tierLevel())
+                        .build());
+            }
+        }
+        log.debug("Loaded {} active coupons from projections", coupons.size());
+        return new ArrayList<>(coupons.values());
+    }
+
+    private static <T extends Coupon> T withCouponFields(T coupon, CouponView view) {
+        coupon.setId(view.id());
+        coupon.setCouponCode(view.couponCode());
+        coupon.setType(view.type());
+        coupon.setDescription(view.description());
+        coupon.setIsActive(true);
+        coupon.setExpirationDate(view.expirationDate());
+        coupon.setUsageCount(view.usageCount());
+        coupon.setMaxUsageLimit(view.maxUsageLimit());
+        coupon.setUsageLimitPerUser(view.usageLimitPerUser());
+        coupon.setAllowStacking(view.allowStacking());
+        coupon.setPriority(view.priority());
+        coupon.setCreatedAt(view.createdAt());
+        coupon.setUpdatedAt(view.updatedAt());
+        return coupon;
+    }
+}
@@ -0,0 +1,200 @@
+package com.monk.commerce.task.catalog;
+
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.factory.CouponStrategyFactory;
+import com.monk.commerce.task.strategy.CouponEvaluator;
+import com.monk.commerce.task.util.CartIndex;
+import com.monk.commerce.task.util.CouponUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, versioned view of the active coupon catalog. Only the per-coupon usage
+ * counters are mutable so that redemptions made by this instance are visible before
+ * the next reload.
+ * <p>
+ * When built with a strategy factory, every coupon is compiled into a {@link CouponEvaluator}
+ * as it enters the snapshot, so carts are evaluated without touching the entities.
+ */
+public final class CouponCatalogSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponCatalogSnapshot.class);
+
+    private static final Comparator<Coupon> CATALOG_ORDER = Comparator
+            .comparing((Coupon coupon) -> Optional.ofNullable(coupon.getPriority()).orElse(0)).reversed()
+            .thenComparing(Coupon::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final long version;
+    private final Instant loadedAt;
+    private final Map<UUID, Coupon> couponsById;
+    private final Map<UUID, AtomicLong> usageCounts;
+    private final CouponIndex index;
+    // Null when coupons are not compiled and are evaluated through their strategies
+    private final CouponStrategyFactory strategyFactory;
+    private final Map<UUID, CouponEvaluator> evaluators;
+
+    public CouponCatalogSnapshot(long version, Instant loadedAt, Collection<Coupon> coupons) {
+        this(version, loadedAt, coupons, null);
+    }
+
+    public CouponCatalogSnapshot(long version, Instant loadedAt, Collection<Coupon> coupons,
+                                 CouponStrategyFactory strategyFactory) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.strategyFactory = strategyFactory;
+        Map<UUID, Coupon> byId = new HashMap<>();
+        Map<UUID, AtomicLong> counts = new HashMap<>();
+        Map<UUID, CouponEvaluator> compiled = new HashMap<>();
+        for (Coupon coupon : coupons) {
+            compile(coupon, compiled);
+            byId.put(coupon.getId(), coupon);
+            counts.put(coupon.getId(), new AtomicLong(usageCountOf(coupon)));
+        }
+        this.couponsById = Collections.unmodifiableMap(byId);
+        this.usageCounts = Collections.unmodifiableMap(counts);
+        this.evaluators = Collections.unmodifiableMap(compiled);
+        this.index = CouponIndex.of(byId.values());
+    }
+
+    private CouponCatalogSnapshot(long version, Instant loadedAt, Map<UUID, Coupon> couponsById,
+                                  Map<UUID, AtomicLong> usageCounts, CouponIndex index,
+                                  CouponStrategyFactory strategyFactory, Map<UUID, CouponEvaluator> evaluators) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.couponsById = Collections.unmodifiableMap(couponsById);
+        this.usageCounts = Collections.unmodifiableMap(usageCounts);
+        this.index = index;
+        this.strategyFactory = strategyFactory;
+        this.evaluators = Collections.unmodifiableMap(evaluators);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int size() {
+        return couponsById.size();
+    }
+
+    /**
+     * Same predicate and order as {@code CouponRepository.findAllValidCoupons}, evaluated in memory.
+     */
+    public List<Coupon> getValidCoupons(LocalDateTime now) {
+        return couponsById.values().stream()
+                .filter(coupon -> isValidAt(coupon, now))
+                .sorted(CATALOG_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Valid coupons that can possibly apply to the cart according to the product index and
+     * the cart-wise thresholds.
+     */
+    public List<Coupon> getCandidateCoupons(CartIndex cartIndex, LocalDateTime now) {
+        return index.candidates(cartIndex).stream()
+                .filter(coupon -> isValidAt(coupon, now))
+                .sorted(CATALOG_ORDER)
+                .collect(Collectors.toList());
+    }
+
+    public long getUsageCount(UUID couponId) {
+        AtomicLong usageCount = usageCounts.get(couponId);
+        return usageCount != null ? usageCount.get() : 0L;
+    }
+
+    /**
+     * The coupon's compiled evaluator, or null when the coupon was not compiled.
+     */
+    public CouponEvaluator getEvaluator(UUID couponId) {
+        return evaluators.get(couponId);
+    }
+
+    public Long getGlobalUsageRemaining(Coupon coupon) {
+        return CouponUtil.getGlobalUsageRemaining(coupon, getUsageCount(coupon.getId()));
+    }
+
+    CouponCatalogSnapshot withCoupon(long newVersion, Coupon coupon) {
+        Map<UUID, CouponEvaluator> compiled = new HashMap<>(evaluators);
+        compiled.remove(coupon.getId());
+        compile(coupon, compiled);
+        Map<UUID, Coupon> byId = new HashMap<>(couponsById);
+        Coupon previous = byId.put(coupon.getId(), coupon);
+        Map<UUID, AtomicLong> counts = new HashMap<>(usageCounts);
+        counts.put(coupon.getId(), new AtomicLong(usageCountOf(coupon)));
+        CouponIndex updatedIndex = (previous != null ? index.minus(previous) : index).plus(coupon);
+        return new CouponCatalogSnapshot(newVersion, loadedAt, byId, counts, updatedIndex, strategyFactory, compiled);
+    }
+
+    CouponCatalogSnapshot withoutCoupon(long newVersion, UUID couponId) {
+        Coupon previous = couponsById.get(couponId);
+        if (previous == null) {
+            return this;
+        }
+        Map<UUID, Coupon> byId = new HashMap<>(couponsById);
+        byId.remove(couponId);
+        Map<UUID, AtomicLong> counts = new HashMap<>(usageCounts);
+        counts.remove(couponId);
+        Map<UUID, CouponEvaluator> compiled = new HashMap<>(evaluators);
+        compiled.remove(couponId);
+        return new CouponCatalogSnapshot(newVersion, loadedAt, byId, counts, index.minus(previous), strategyFactory, compiled);
+    }
+
+    boolean isOlderThan(Duration maxAge) {
+        return Instant.now().isAfter(loadedAt.plus(maxAge));
+    }
+
+    void recordUsage(UUID couponId) {
+        AtomicLong usageCount = usageCounts.get(couponId);
+        if (usageCount != null) {
+            usageCount.incrementAndGet();
+        }
+    }
+
+    private boolean isValidAt(Coupon coupon, LocalDateTime now) {
+        if (!Boolean.TRUE.equals(coupon.getIsActive())) {
+            return false;
+        }
+        if (coupon.getExpirationDate() != null && !coupon.getExpirationDate().isAfter(now)) {
+            return false;
+        }
+        return coupon.getMaxUsageLimit() == null || getUsageCount(coupon.getId()) < coupon.getMaxUsageLimit();
+    }
+
+    // Builds derived evaluation state while the coupon enters the catalog instead of on the first cart
+    private void compile(Coupon coupon, Map<UUID, CouponEvaluator> compiled) {
+        if (coupon instanceof BxGyCoupon bxGyCoupon) {
+            bxGyCoupon.compileTierTable();
+        }
+        if (strategyFactory == null) {
+            return;
+        }
+        try {
+            compiled.put(coupon.getId(), strategyFactory.getStrategy(coupon.getType()).compile(coupon));
+        } catch (RuntimeException e) {
+            log.warn("Could not compile coupon {}, evaluating it through its strategy: {}", coupon.getId(), e.getMessage());
+        }
+    }
+
+    private static long usageCountOf(Coupon coupon) {
+        return Optional.ofNullable(coupon.getUsageCount()).orElse(0L);
+    }
+}
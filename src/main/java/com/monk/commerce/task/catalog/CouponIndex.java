@@ -0,0 +1,262 @@
+package com.monk.commerce.task.catalog;
+
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
+import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.entity.ProductWiseCoupon;
+import com.monk.commerce.task.util.CartIndex;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Inverted index from product ID to the coupons that product can trigger or disqualify.
+ * Instances are never mutated once published; {@link #plus(Coupon)} and {@link #minus(Coupon)}
+ * copy only the posting lists of the products the coupon touches.
+ * <p>
+ * Cart-wise coupons without exclusions apply exactly when the cart total reaches their
+ * threshold, so they are kept sorted by threshold and the ones a cart meets are found with one
+ * binary search. Other cart-wise coupons are candidates for every cart they do not exclude.
+ */
+final class CouponIndex {
+
+    private static final Comparator<CartWiseCoupon> BY_THRESHOLD = Comparator.comparing(CartWiseCoupon::getThresholdAmount);
+
+    // Cart-wise coupons with exclusions or without a threshold
+    private final Map<UUID, Coupon> cartWiseCoupons;
+    // Cart-wise coupons without exclusions, by ascending threshold
+    private final List<CartWiseCoupon> cartWiseByThreshold;
+    private final Map<Long, List<Coupon>> productWiseByProduct;
+    private final Map<Long, List<Coupon>> bxGyByGetProduct;
+    private final Map<Long, Set<UUID>> bxGyByBuyProduct;
+    private final Set<UUID> bxGyWithoutBuyRequirement;
+    private final Map<Long, Set<UUID>> excludedByProduct;
+
+    private CouponIndex(
+            Map<UUID, Coupon> cartWiseCoupons,
+            List<CartWiseCoupon> cartWiseByThreshold,
+            Map<Long, List<Coupon>> productWiseByProduct,
+            Map<Long, List<Coupon>> bxGyByGetProduct,
+            Map<Long, Set<UUID>> bxGyByBuyProduct,
+            Set<UUID> bxGyWithoutBuyRequirement,
+            Map<Long, Set<UUID>> excludedByProduct) {
+        this.cartWiseCoupons = cartWiseCoupons;
+        this.cartWiseByThreshold = cartWiseByThreshold;
+        this.productWiseByProduct = productWiseByProduct;
+        this.bxGyByGetProduct = bxGyByGetProduct;
+        this.bxGyByBuyProduct = bxGyByBuyProduct;
+        this.bxGyWithoutBuyRequirement = bxGyWithoutBuyRequirement;
+        this.excludedByProduct = excludedByProduct;
+    }
+
+    static CouponIndex of(Collection<Coupon> coupons) {
+        CouponIndex index = new CouponIndex(new LinkedHashMap<>(), new ArrayList<>(), new HashMap<>(), new HashMap<>(),
+                new HashMap<>(), new HashSet<>(), new HashMap<>());
+        coupons.forEach(coupon -> index.add(coupon, false));
+        index.cartWiseByThreshold.sort(BY_THRESHOLD);
+        return index;
+    }
+
+    CouponIndex plus(Coupon coupon) {
+        CouponIndex copy = copy();
+        copy.add(coupon, true);
+        return copy;
+    }
+
+    CouponIndex minus(Coupon coupon) {
+        CouponIndex copy = copy();
+        copy.remove(coupon);
+        return copy;
+    }
+
+    /**
+     * Coupons that may apply to the cart: cart-wise coupons without exclusions whose threshold
+     * the cart total meets, other cart-wise coupons, product-wise coupons on a cart product and
+     * BxGy coupons with both a buy and a get product in the cart, minus cart-wise and BxGy
+     * coupons that exclude one of the cart products.
+     */
+    List<Coupon> candidates(CartIndex cartIndex) {
+        Set<Long> productIds = new HashSet<>();
+        for (int position = 0; position < cartIndex.size(); position++) {
+            productIds.add(cartIndex.getProductId(position));
+        }
+        Set<UUID> excluded = new HashSet<>();
+        Set<UUID> bxGyWithBuyProduct = new HashSet<>(bxGyWithoutBuyRequirement);
+        for (Long productId : productIds) {
+            excluded.addAll(excludedByProduct.getOrDefault(productId, Collections.emptySet()));
+            bxGyWithBuyProduct.addAll(bxGyByBuyProduct.getOrDefault(productId, Collections.emptySet()));
+        }
+        Map<UUID, Coupon> candidates = new HashMap<>();
+        int thresholdsMet = countThresholdsMet(cartIndex.getTotal());
+        for (int position = 0; position < thresholdsMet; position++) {
+            CartWiseCoupon coupon = cartWiseByThreshold.get(position);
+            candidates.put(coupon.getId(), coupon);
+        }
+        for (Coupon coupon : cartWiseCoupons.values()) {
+            if (!excluded.contains(coupon.getId())) {
+                candidates.put(coupon.getId(), coupon);
+            }
+        }
+        for (Long productId : productIds) {
+            for (Coupon coupon : productWiseByProduct.getOrDefault(productId, Collections.emptyList())) {
+                candidates.put(coupon.getId(), coupon);
+            }
+            for (Coupon coupon : bxGyByGetProduct.getOrDefault(productId, Collections.emptyList())) {
+                if (bxGyWithBuyProduct.contains(coupon.getId()) && !excluded.contains(coupon.getId())) {
+                    candidates.put(coupon.getId(), coupon);
+                }
+            }
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    // Length of the prefix of cartWiseByThreshold with a threshold of at most the total
+    private int countThresholdsMet(BigDecimal total) {
+        int low = 0;
+        int high = cartWiseByThreshold.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cartWiseByThreshold.get(middle).getThresholdAmount().compareTo(total) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private CouponIndex copy() {
+        return new CouponIndex(new LinkedHashMap<>(cartWiseCoupons), new ArrayList<>(cartWiseByThreshold),
+                new HashMap<>(productWiseByProduct),
+                new HashMap<>(bxGyByGetProduct), new HashMap<>(bxGyByBuyProduct),
+                new HashSet<>(bxGyWithoutBuyRequirement), new HashMap<>(excludedByProduct));
+    }
+
+    // copyOnWrite is set when the postings are still shared with the index this one was copied from;
+    // otherwise the index is being built and of() sorts the thresholds once at the end
+    private void add(Coupon coupon, boolean copyOnWrite) {
+        if (coupon instanceof CartWiseCoupon cartWiseCoupon) {
+            if (!isSortedByThreshold(cartWiseCoupon)) {
+                cartWiseCoupons.put(coupon.getId(), coupon);
+            } else if (copyOnWrite) {
+                int position = Collections.binarySearch(cartWiseByThreshold, cartWiseCoupon, BY_THRESHOLD);
+                cartWiseByThreshold.add(position < 0 ? -position - 1 : position, cartWiseCoupon);
+            } else {
+                cartWiseByThreshold.add(cartWiseCoupon);
+            }
+        } else if (coupon instanceof ProductWiseCoupon productWiseCoupon) {
+            // A coupon excluding its own target product can never apply
+            boolean targetExcluded = excludedProducts(coupon).stream()
+                    .anyMatch(ep -> ep.getProductId().equals(productWiseCoupon.getProductId()));
+            if (!targetExcluded) {
+                addPosting(productWiseByProduct, productWiseCoupon.getProductId(), coupon, copyOnWrite);
+            }
+        } else if (coupon instanceof BxGyCoupon bxGyCoupon) {
+            for (GetProduct getProduct : bxGyCoupon.getGetProducts()) {
+                addPosting(bxGyByGetProduct, getProduct.getProductId(), coupon, copyOnWrite);
+            }
+            if (requiresBuyProduct(bxGyCoupon)) {
+                for (BuyProduct buyProduct : bxGyCoupon.getBuyProducts()) {
+                    addIdPosting(bxGyByBuyProduct, buyProduct.getProductId(), coupon.getId(), copyOnWrite);
+                }
+            } else {
+                bxGyWithoutBuyRequirement.add(coupon.getId());
+            }
+        }
+        for (ExcludedProduct excludedProduct : excludedProducts(coupon)) {
+            addIdPosting(excludedByProduct, excludedProduct.getProductId(), coupon.getId(), copyOnWrite);
+        }
+    }
+
+    private void remove(Coupon coupon) {
+        UUID couponId = coupon.getId();
+        if (coupon instanceof CartWiseCoupon) {
+            cartWiseCoupons.remove(couponId);
+            cartWiseByThreshold.removeIf(cartWiseCoupon -> cartWiseCoupon.getId().equals(couponId));
+        } else if (coupon instanceof ProductWiseCoupon productWiseCoupon) {
+            removePosting(productWiseByProduct, productWiseCoupon.getProductId(), couponId);
+        } else if (coupon instanceof BxGyCoupon bxGyCoupon) {
+            for (GetProduct getProduct : bxGyCoupon.getGetProducts()) {
+                removePosting(bxGyByGetProduct, getProduct.getProductId(), couponId);
+            }
+            for (BuyProduct buyProduct : bxGyCoupon.getBuyProducts()) {
+                removeIdPosting(bxGyByBuyProduct, buyProduct.getProductId(), couponId);
+            }
+            bxGyWithoutBuyRequirement.remove(couponId);
+        }
+        for (ExcludedProduct excludedProduct : excludedProducts(coupon)) {
+            removeIdPosting(excludedByProduct, excludedProduct.getProductId(), couponId);
+        }
+    }
+
+    private static boolean isSortedByThreshold(CartWiseCoupon coupon) {
+        return coupon.getThresholdAmount() != null && excludedProducts(coupon).isEmpty();
+    }
+
+    private static boolean requiresBuyProduct(BxGyCoupon coupon) {
+        return !coupon.getBuyProducts().isEmpty() && coupon.getBuyProducts().stream()
+                .allMatch(bp -> bp.getQuantity() != null && bp.getQuantity() > 0);
+    }
+
+    private static List<ExcludedProduct> excludedProducts(Coupon coupon) {
+        return coupon.getExcludedProducts() != null ? coupon.getExcludedProducts() : Collections.emptyList();
+    }
+
+    private static void addPosting(Map<Long, List<Coupon>> postings, Long productId, Coupon coupon, boolean copyOnWrite) {
+        List<Coupon> existing = postings.get(productId);
+        List<Coupon> updated = existing == null ? new ArrayList<>() : copyOnWrite ? new ArrayList<>(existing) : existing;
+        if (copyOnWrite) {
+            updated.removeIf(posted -> posted.getId().equals(coupon.getId()));
+        }
+        updated.add(coupon);
+        postings.put(productId, updated);
+    }
+
+    private static void removePosting(Map<Long, List<Coupon>> postings, Long productId, UUID couponId) {
+        List<Coupon> existing = postings.get(productId);
+        if (existing == null) {
+            return;
+        }
+        List<Coupon> updated = new ArrayList<>(existing);
+        updated.removeIf(coupon -> coupon.getId().equals(couponId));
+        if (updated.isEmpty()) {
+            postings.remove(productId);
+        } else {
+            postings.put(productId, updated);
+        }
+    }
+
+    private static void addIdPosting(Map<Long, Set<UUID>> postings, Long productId, UUID couponId, boolean copyOnWrite) {
+        Set<UUID> existing = postings.get(productId);
+        Set<UUID> updated = existing == null ? new HashSet<>() : copyOnWrite ? new HashSet<>(existing) : existing;
+        updated.add(couponId);
+        postings.put(productId, updated);
+    }
+
+    private static void removeIdPosting(Map<Long, Set<UUID>> postings, Long productId, UUID couponId) {
+        Set<UUID> existing = postings.get(productId);
+        if (existing == null || !existing.contains(couponId)) {
+            return;
+        }
+        Set<UUID> updated = new HashSet<>(existing);
+        updated.remove(couponId);
+        if (updated.isEmpty()) {
+            postings.remove(productId);
+        } else {
+            postings.put(productId, updated);
+        }
+    }
+}
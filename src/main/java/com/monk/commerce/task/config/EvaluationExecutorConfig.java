@@ -0,0 +1,21 @@
+package com.monk.commerce.task.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+public class EvaluationExecutorConfig {
+
+    /**
+     * Bounded pool for CPU-bound coupon evaluation, kept apart from the common pool so that
+     * large batches cannot starve other parallel streams in the JVM.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool couponEvaluationPool(
+            @Value("${coupon.evaluation.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
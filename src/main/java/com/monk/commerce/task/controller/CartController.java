@@ -1,20 +1,31 @@
 package com.monk.commerce.task.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monk.commerce.task.dto.request.BatchApplyRequestDTO;
 import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.dto.request.MultiCartRequestDTO;
 import com.monk.commerce.task.dto.response.ApplicableCouponResponseDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
+import com.monk.commerce.task.dto.response.BatchApplyResultDTO;
+import com.monk.commerce.task.dto.response.CartApplicableCouponsDTO;
+import com.monk.commerce.task.dto.response.CouponStackResponseDTO;
+import com.monk.commerce.task.dto.response.ResultCacheStatsDTO;
 import com.monk.commerce.task.service.CartService;
 import com.monk.commerce.task.util.Constants;
+import com.monk.commerce.task.util.NdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping(Constants.API_BASE_PATH + Constants.CART_PATH)
@@ -22,15 +33,52 @@ import java.util.UUID;
 public class CartController {
 
     private final CartService cartService;
+    private final ObjectMapper objectMapper;
 
-    public CartController(CartService cartService) {
+    public CartController(CartService cartService, ObjectMapper objectMapper) {
         this.cartService = cartService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/applicable-coupons")
-    @Operation(summary = "Get applicable coupons", description = "Fetch all applicable coupons for a given cart")
-    public ResponseEntity<Map<String, List<ApplicableCouponResponseDTO>>> getApplicableCoupons(@Valid @RequestBody Map<String, CartRequestDTO> request) {
-        return ResponseEntity.ok(cartService.getApplicableCoupons(request));
+    @Operation(summary = "Get applicable coupons", description = "Fetch all applicable coupons for a given cart, best discount first")
+    public ResponseEntity<Map<String, List<ApplicableCouponResponseDTO>>> getApplicableCoupons(
+            @Parameter(description = "Return only this many of the best coupons") @RequestParam(required = false) Integer limit,
+            @Valid @RequestBody Map<String, CartRequestDTO> request) {
+        return ResponseEntity.ok(cartService.getApplicableCoupons(request, limit));
+    }
+
+    @PostMapping(value = "/applicable-coupons", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream applicable coupons",
+            description = "Stream applicable coupons as newline-delimited JSON in catalog priority order while they are evaluated")
+    public ResponseEntity<StreamingResponseBody> streamApplicableCoupons(@Valid @RequestBody Map<String, CartRequestDTO> request) {
+        Stream<ApplicableCouponResponseDTO> coupons = cartService.streamApplicableCoupons(request);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    try (coupons) {
+                        coupons.forEach(new NdjsonWriter<>(objectMapper, out));
+                    }
+                });
+    }
+
+    @GetMapping("/applicable-coupons/cache-stats")
+    @Operation(summary = "Get applicable coupons cache statistics", description = "Size, hits, misses and evictions of the applicable coupons result cache")
+    public ResponseEntity<ResultCacheStatsDTO> getApplicableCouponsCacheStats() {
+        return ResponseEntity.ok(cartService.getApplicableCouponsCacheStats());
+    }
+
+    @PostMapping("/best-coupon-stack")
+    @Operation(summary = "Get best coupon stack",
+            description = "Find the combination of applicable coupons with the largest total discount within a time budget")
+    public ResponseEntity<CouponStackResponseDTO> getBestCouponStack(@Valid @RequestBody Map<String, CartRequestDTO> request) {
+        return ResponseEntity.ok(cartService.getBestCouponStack(request));
+    }
+
+    @PostMapping("/applicable-coupons/batch")
+    @Operation(summary = "Get applicable coupons for many carts", description = "Fetch the applicable coupons of each cart in the request")
+    public ResponseEntity<Map<String, List<CartApplicableCouponsDTO>>> getApplicableCouponsForCarts(@Valid @RequestBody MultiCartRequestDTO request) {
+        return ResponseEntity.ok(cartService.getApplicableCouponsForCarts(request));
     }
 
     @PostMapping("/apply-coupon/{id}")
@@ -39,4 +87,10 @@ public class CartController {
             @Parameter(description = "Coupon ID", required = true) @PathVariable UUID id, @Valid @RequestBody Map<String, CartRequestDTO> request) {
         return ResponseEntity.ok(cartService.applyCoupon(id, request));
     }
+
+    @PostMapping("/apply-coupons/batch")
+    @Operation(summary = "Apply coupons to many carts", description = "Apply a coupon to each cart in the batch and report the result per item")
+    public ResponseEntity<Map<String, List<BatchApplyResultDTO>>> applyCouponBatch(@Valid @RequestBody BatchApplyRequestDTO request) {
+        return ResponseEntity.ok(cartService.applyCouponBatch(request));
+    }
 }
@@ -1,17 +1,28 @@
 package com.monk.commerce.task.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monk.commerce.task.dto.request.CampaignCodeRequestDTO;
 import com.monk.commerce.task.dto.request.CouponRequestDTO;
+import com.monk.commerce.task.dto.response.CampaignCodeResponseDTO;
+import com.monk.commerce.task.dto.response.CouponImportResponseDTO;
+import com.monk.commerce.task.dto.response.CouponPageResponseDTO;
 import com.monk.commerce.task.dto.response.CouponResponseDTO;
 import com.monk.commerce.task.service.CouponService;
 import com.monk.commerce.task.util.Constants;
+import com.monk.commerce.task.util.NdjsonWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,9 +32,11 @@ import java.util.UUID;
 public class CouponController {
 
     private final CouponService couponService;
+    private final ObjectMapper objectMapper;
 
-    public CouponController(CouponService couponService) {
+    public CouponController(CouponService couponService, ObjectMapper objectMapper) {
         this.couponService = couponService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/create")
@@ -32,12 +45,41 @@ public class CouponController {
         return ResponseEntity.status(HttpStatus.CREATED).body(couponService.createCoupon(request));
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @Operation(summary = "Import coupons", description = "Create coupons in bulk from a JSON array or newline-delimited JSON, reporting the rows that failed")
+    public ResponseEntity<CouponImportResponseDTO> importCoupons(InputStream body) {
+        return ResponseEntity.ok(couponService.importCoupons(body));
+    }
+
     @GetMapping("/available")
     @Operation(summary = "Get all coupons")
     public ResponseEntity<List<CouponResponseDTO>> getAllCoupons() {
         return ResponseEntity.ok(couponService.getAllCoupons());
     }
 
+    @GetMapping(value = "/available", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all coupons", description = "Stream all coupons as newline-delimited JSON while they are read")
+    public ResponseEntity<StreamingResponseBody> streamAllCoupons() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> couponService.streamAllCoupons(new NdjsonWriter<>(objectMapper, out)));
+    }
+
+    @GetMapping("/available/page")
+    @Operation(summary = "Get a page of coupons", description = "Newest coupons first, filtered, continuing after the cursor of the previous page")
+    public ResponseEntity<CouponPageResponseDTO> getCouponPage(
+            @Parameter(description = "Coupon type") @RequestParam(required = false) String type,
+            @Parameter(description = "Only coupons expiring at or after this time")
+            @RequestParam(name = "expires_from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime expiresFrom,
+            @Parameter(description = "Only coupons expiring before this time")
+            @RequestParam(name = "expires_to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime expiresTo,
+            @Parameter(description = "Only coupons discounting, buying or giving this product")
+            @RequestParam(name = "product_id", required = false) Long productId,
+            @Parameter(description = "next_cursor of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, at most " + Constants.MAX_PAGE_SIZE) @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(couponService.getCouponPage(type, expiresFrom, expiresTo, productId, cursor, size));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get coupon by ID")
     public ResponseEntity<CouponResponseDTO> getCouponById(@Parameter(description = "Coupon ID") @PathVariable UUID id) {
@@ -57,4 +99,19 @@ public class CouponController {
         couponService.deleteCoupon(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/{id}/campaign-codes")
+    @Operation(summary = "Generate campaign codes", description = "Generate unique single-use codes for the coupon")
+    public ResponseEntity<CampaignCodeResponseDTO> generateCampaignCodes(
+            @Parameter(description = "Coupon ID") @PathVariable UUID id, @Valid @RequestBody CampaignCodeRequestDTO request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(couponService.generateCampaignCodes(id, request));
+    }
+
+    @GetMapping(value = "/{id}/campaign-codes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream campaign codes", description = "Stream the coupon's campaign codes as newline-delimited JSON while they are read")
+    public ResponseEntity<StreamingResponseBody> streamCampaignCodes(@Parameter(description = "Coupon ID") @PathVariable UUID id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> couponService.streamCampaignCodes(id, new NdjsonWriter<>(objectMapper, out)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.monk.commerce.task.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchApplyItemDTO {
+
+    @NotNull(message = "Coupon ID is required")
+    @JsonProperty("coupon_id")
+    private UUID couponId;
+
+    @Valid
+    @NotNull(message = "Cart is required")
+    private CartRequestDTO cart;
+}
@@ -0,0 +1,23 @@
+package com.monk.commerce.task.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchApplyRequestDTO {
+
+    @Valid
+    @NotEmpty(message = "Batch items cannot be empty")
+    @Size(max = 1000, message = "Batch cannot contain more than 1000 items")
+    private List<BatchApplyItemDTO> items;
+}
@@ -32,4 +32,8 @@ public class BxGyDetailsDTO {
     @Min(value = 1, message = "Repetition limit must be at least 1")
     @JsonProperty("repition_limit")
     private Integer repetitionLimit;
+
+    // "highest-met" (default) or "best-value", only relevant for tiered coupons
+    @JsonProperty("tier_selection")
+    private String tierSelection;
 }
@@ -0,0 +1,33 @@
+package com.monk.commerce.task.dto.request;
+
+import com.monk.commerce.task.util.Constants;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignCodeRequestDTO {
+
+    @NotNull(message = "Code count is required")
+    @Min(value = 1, message = "Code count must be at least 1")
+    @Max(value = Constants.MAX_CAMPAIGN_CODES, message = "Code count cannot exceed " + Constants.MAX_CAMPAIGN_CODES)
+    private Integer count;
+
+    // Random part only, the prefix is added in front
+    @Min(value = 4, message = "Code length must be at least 4")
+    @Max(value = Constants.MAX_CAMPAIGN_CODE_LENGTH, message = "Code length cannot exceed " + Constants.MAX_CAMPAIGN_CODE_LENGTH)
+    private Integer length;
+
+    private String alphabet;
+
+    @Pattern(regexp = "[A-Za-z0-9-]*", message = "Prefix may only contain letters, digits and hyphens")
+    private String prefix;
+}
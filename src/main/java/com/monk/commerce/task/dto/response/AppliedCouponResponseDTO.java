@@ -1,5 +1,6 @@
 package com.monk.commerce.task.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,4 +15,9 @@ public class AppliedCouponResponseDTO {
     
     @JsonProperty("updated_cart")
     private UpdatedCartDTO updatedCart;
+
+    // Tier of a BxGy coupon that was applied, absent for other coupon types
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("applied_tier")
+    private Integer appliedTier;
 }
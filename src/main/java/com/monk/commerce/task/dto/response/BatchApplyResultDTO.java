@@ -0,0 +1,30 @@
+package com.monk.commerce.task.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchApplyResultDTO {
+
+    private int index;
+
+    @JsonProperty("coupon_id")
+    private UUID couponId;
+
+    private boolean success;
+
+    @JsonProperty("updated_cart")
+    private UpdatedCartDTO updatedCart;
+
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.monk.commerce.task.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CampaignCodeResponseDTO {
+
+    @JsonProperty("coupon_id")
+    private UUID couponId;
+
+    private int generated;
+}
@@ -0,0 +1,25 @@
+package com.monk.commerce.task.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CartApplicableCouponsDTO {
+
+    private int index;
+
+    @JsonProperty("applicable_coupons")
+    private List<ApplicableCouponResponseDTO> applicableCoupons;
+
+    private String error;
+}
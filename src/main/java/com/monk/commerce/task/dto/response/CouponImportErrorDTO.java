@@ -0,0 +1,24 @@
+package com.monk.commerce.task.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CouponImportErrorDTO {
+
+    // Zero-based position of the row in the input
+    private int index;
+
+    @JsonProperty("coupon_code")
+    private String couponCode;
+
+    private String error;
+}
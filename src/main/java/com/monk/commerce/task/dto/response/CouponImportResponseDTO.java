@@ -0,0 +1,22 @@
+package com.monk.commerce.task.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponImportResponseDTO {
+
+    private int imported;
+
+    private int failed;
+
+    // One entry per row that was not imported, in input order
+    private List<CouponImportErrorDTO> errors;
+}
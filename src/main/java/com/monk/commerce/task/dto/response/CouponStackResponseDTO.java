@@ -0,0 +1,25 @@
+package com.monk.commerce.task.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CouponStackResponseDTO {
+
+    // Chosen coupons in application order, each with its share of the combined discount
+    private List<ApplicableCouponResponseDTO> coupons;
+
+    @JsonProperty("updated_cart")
+    private UpdatedCartDTO updatedCart;
+
+    // False when the search stopped at its time budget before proving the set is the best
+    private boolean optimal;
+}
@@ -0,0 +1,25 @@
+package com.monk.commerce.task.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultCacheStatsDTO {
+
+    private boolean enabled;
+
+    // Entries currently held, including expired ones not looked up since
+    private int size;
+
+    private long hits;
+
+    private long misses;
+
+    // Entries dropped to stay within the size limit
+    private long evictions;
+}
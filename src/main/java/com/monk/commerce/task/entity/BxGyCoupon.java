@@ -1,17 +1,28 @@
 package com.monk.commerce.task.entity;
 
+import com.monk.commerce.task.enums.TierSelection;
+import com.monk.commerce.task.util.BxGyTierTable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrimaryKeyJoinColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,10 +37,13 @@ import java.util.List;
 @PrimaryKeyJoinColumn(name = "id")
 public class BxGyCoupon extends Coupon {
 
+    // Both bags load with one query each for all BxGy coupons of the same query
     @OneToMany(mappedBy = "bxgyCoupon", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     private List<BuyProduct> buyProducts = new ArrayList<>();
 
     @OneToMany(mappedBy = "bxgyCoupon", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     private List<GetProduct> getProducts = new ArrayList<>();
 
     @Column(name = "repetition_limit", nullable = false)
@@ -38,8 +52,35 @@ public class BxGyCoupon extends Coupon {
     @Column(name = "is_tiered", nullable = false)
     private Boolean isTiered = false;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tier_selection", nullable = false)
+    private TierSelection tierSelection = TierSelection.HIGHEST_MET;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient volatile BxGyTierTable tierTable;
+
+    /**
+     * Tier table compiled from the current buy and get products; the catalog recompiles it
+     * whenever the coupon is loaded or patched, other instances compile it on first use.
+     */
+    public BxGyTierTable getTierTable() {
+        BxGyTierTable table = tierTable;
+        return table != null ? table : compileTierTable();
+    }
+
+    public BxGyTierTable compileTierTable() {
+        BxGyTierTable table = BxGyTierTable.of(this);
+        tierTable = table;
+        return table;
+    }
+
     protected void onCreate() {
         super.onCreate();
         if (isTiered == null) isTiered = false;
+        if (tierSelection == null) tierSelection = TierSelection.HIGHEST_MET;
     }
 }
@@ -18,6 +18,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -55,7 +58,8 @@ public class Coupon {
     @Column(name = "expiration_date")
     private LocalDateTime expirationDate;
 
-    @Column(name = "usage_count", nullable = false)
+    // Sum of the coupon_usage_counter slots, written through CouponUsageCounter
+    @Formula("(SELECT COALESCE(SUM(ucc.usage_count), 0) FROM coupon_usage_counter ucc WHERE ucc.coupon_id = id)")
     private Long usageCount = 0L;
 
     @Column(name = "max_usage_limit")
@@ -70,7 +74,9 @@ public class Coupon {
     @Column(name = "priority", nullable = false)
     private Integer priority = 0;
 
+    // Initialized for every coupon of the same query at once, by coupon_id IN (that query)
     @OneToMany(mappedBy = "coupon", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Fetch(FetchMode.SUBSELECT)
     private List<ExcludedProduct> excludedProducts = new ArrayList<>();
 
     @OneToMany(mappedBy = "coupon", cascade = CascadeType.ALL, orphanRemoval = true)
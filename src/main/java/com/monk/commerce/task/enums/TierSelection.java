@@ -0,0 +1,29 @@
+package com.monk.commerce.task.enums;
+
+import lombok.Getter;
+
+/**
+ * How a tiered BxGy coupon picks the tier it applies.
+ */
+@Getter
+public enum TierSelection {
+    // The highest tier whose buy requirement is met and whose get products are in the cart
+    HIGHEST_MET("highest-met"),
+    // The tier with the largest discount, the higher tier on a tie
+    BEST_VALUE("best-value");
+
+    private final String value;
+
+    TierSelection(String value) {
+        this.value = value;
+    }
+
+    public static TierSelection fromValue(String value) {
+        for (TierSelection selection : TierSelection.values()) {
+            if (selection.value.equalsIgnoreCase(value)) {
+                return selection;
+            }
+        }
+        throw new IllegalArgumentException("Invalid tier selection: " + value);
+    }
+}
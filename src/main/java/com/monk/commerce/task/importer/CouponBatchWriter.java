@@ -0,0 +1,175 @@
+package com.monk.commerce.task.importer;
+
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
+import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.entity.ProductWiseCoupon;
+import com.monk.commerce.task.enums.TierSelection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Inserts new coupons with their subtype rows, BxGy products and exclusions as JDBC batches,
+ * one batch per table, in a transaction of their own. IDs, timestamps and the defaults the
+ * entity callbacks would set are assigned here, since the entities are never persisted
+ * through Hibernate.
+ */
+@Component
+public class CouponBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponBatchWriter.class);
+    private static final int BATCH_SIZE = 500;
+    private static final String COUPON_SQL = "INSERT INTO coupon (id, coupon_code, type, description, is_active, " +
+            "expiration_date, max_usage_limit, usage_limit_per_user, allow_stacking, priority, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String CART_WISE_SQL = "INSERT INTO cart_wise_coupon " +
+            "(id, threshold_amount, discount_percentage, max_discount_amount) VALUES (?, ?, ?, ?)";
+    private static final String PRODUCT_WISE_SQL = "INSERT INTO product_wise_coupon " +
+            "(id, product_id, discount_percentage, max_discount_per_product) VALUES (?, ?, ?, ?)";
+    private static final String BXGY_SQL = "INSERT INTO bxgy_coupon " +
+            "(id, repetition_limit, is_tiered, tier_selection) VALUES (?, ?, ?, ?)";
+    private static final String BUY_PRODUCT_SQL = "INSERT INTO buy_product " +
+            "(id, bxgy_coupon_id, product_id, quantity, tier_level) VALUES (?, ?, ?, ?, ?)";
+    private static final String GET_PRODUCT_SQL = "INSERT INTO get_product " +
+            "(id, bxgy_coupon_id, product_id, quantity, tier_level) VALUES (?, ?, ?, ?, ?)";
+    private static final String EXCLUDED_PRODUCT_SQL = "INSERT INTO excluded_product " +
+            "(id, coupon_id, product_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTemplate;
+
+    public CouponBatchWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Inserts all coupons or none of them. Each coupon is given its new ID.
+     */
+    public void insert(List<Coupon> coupons) {
+        if (coupons.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<CartWiseCoupon> cartWise = new ArrayList<>();
+        List<ProductWiseCoupon> productWise = new ArrayList<>();
+        List<BxGyCoupon> bxGy = new ArrayList<>();
+        List<BuyProduct> buyProducts = new ArrayList<>();
+        List<GetProduct> getProducts = new ArrayList<>();
+        List<ExcludedProduct> excludedProducts = new ArrayList<>();
+        for (Coupon coupon : coupons) {
+            prepare(coupon, now);
+            if (coupon instanceof CartWiseCoupon cartWiseCoupon) {
+                cartWise.add(cartWiseCoupon);
+            } else if (coupon instanceof ProductWiseCoupon productWiseCoupon) {
+                productWise.add(productWiseCoupon);
+            } else if (coupon instanceof BxGyCoupon bxGyCoupon) {
+                bxGy.add(bxGyCoupon);
+                buyProducts.addAll(bxGyCoupon.getBuyProducts());
+                getProducts.addAll(bxGyCoupon.getGetProducts());
+            }
+            if (coupon.getExcludedProducts() != null) {
+                excludedProducts.addAll(coupon.getExcludedProducts());
+            }
+        }
+        writeTemplate.executeWithoutResult(status -> {
+            Timestamp timestamp = Timestamp.valueOf(now);
+            jdbcTemplate.batchUpdate(COUPON_SQL, coupons, BATCH_SIZE, (ps, coupon) -> {
+                ps.setObject(1, coupon.getId());
+                ps.setString(2, coupon.getCouponCode());
+                ps.setString(3, coupon.getType().name());
+                ps.setObject(4, coupon.getDescription(), Types.VARCHAR);
+                ps.setBoolean(5, coupon.getIsActive());
+                ps.setObject(6, coupon.getExpirationDate() != null ? Timestamp.valueOf(coupon.getExpirationDate()) : null, Types.TIMESTAMP);
+                ps.setObject(7, coupon.getMaxUsageLimit(), Types.BIGINT);
+                ps.setObject(8, coupon.getUsageLimitPerUser(), Types.INTEGER);
+                ps.setBoolean(9, coupon.getAllowStacking());
+                ps.setInt(10, coupon.getPriority());
+                ps.setTimestamp(11, timestamp);
+                ps.setTimestamp(12, timestamp);
+            });
+            jdbcTemplate.batchUpdate(CART_WISE_SQL, cartWise, BATCH_SIZE, (ps, coupon) -> {
+                ps.setObject(1, coupon.getId());
+                ps.setBigDecimal(2, coupon.getThresholdAmount());
+                ps.setBigDecimal(3, coupon.getDiscountPercentage());
+                ps.setObject(4, coupon.getMaxDiscountAmount(), Types.NUMERIC);
+            });
+            jdbcTemplate.batchUpdate(PRODUCT_WISE_SQL, productWise, BATCH_SIZE, (ps, coupon) -> {
+                ps.setObject(1, coupon.getId());
+                ps.setLong(2, coupon.getProductId());
+                ps.setBigDecimal(3, coupon.getDiscountPercentage());
+                ps.setObject(4, coupon.getMaxDiscountPerProduct(), Types.NUMERIC);
+            });
+            jdbcTemplate.batchUpdate(BXGY_SQL, bxGy, BATCH_SIZE, (ps, coupon) -> {
+                ps.setObject(1, coupon.getId());
+                ps.setInt(2, coupon.getRepetitionLimit());
+                ps.setBoolean(3, coupon.getIsTiered());
+                ps.setString(4, coupon.getTierSelection().name());
+            });
+            jdbcTemplate.batchUpdate(BUY_PRODUCT_SQL, buyProducts, BATCH_SIZE, (ps, product) -> {
+                ps.setObject(1, product.getId());
+                ps.setObject(2, product.getBxgyCoupon().getId());
+                ps.setLong(3, product.getProductId());
+                ps.setInt(4, product.getQuantity());
+                ps.setInt(5, product.getTierLevel());
+            });
+            jdbcTemplate.batchUpdate(GET_PRODUCT_SQL, getProducts, BATCH_SIZE, (ps, product) -> {
+                ps.setObject(1, product.getId());
+                ps.setObject(2, product.getBxgyCoupon().getId());
+                ps.setLong(3, product.getProductId());
+                ps.setInt(4, product.getQuantity());
+                ps.setInt(5, product.getTierLevel());
+            });
+            jdbcTemplate.batchUpdate(EXCLUDED_PRODUCT_SQL, excludedProducts, BATCH_SIZE, (ps, product) -> {
+                ps.setObject(1, product.getId());
+                ps.setObject(2, product.getCoupon().getId());
+                ps.setLong(3, product.getProductId());
+            });
+        });
+        log.debug("Inserted {} coupons with {} buy, {} get and {} excluded products",
+                coupons.size(), buyProducts.size(), getProducts.size(), excludedProducts.size());
+    }
+
+    // Same defaults as the @PrePersist callbacks
+    private static void prepare(Coupon coupon, LocalDateTime now) {
+        coupon.setId(UUID.randomUUID());
+        coupon.setIsActive(Optional.ofNullable(coupon.getIsActive()).orElse(true));
+        coupon.setAllowStacking(Optional.ofNullable(coupon.getAllowStacking()).orElse(false));
+        coupon.setPriority(Optional.ofNullable(coupon.getPriority()).orElse(0));
+        coupon.setUsageCount(0L);
+        coupon.setCreatedAt(now);
+        coupon.setUpdatedAt(now);
+        if (coupon.getExcludedProducts() != null) {
+            coupon.getExcludedProducts().forEach(product -> product.setId(UUID.randomUUID()));
+        }
+        if (coupon instanceof BxGyCoupon bxGyCoupon) {
+            bxGyCoupon.setIsTiered(Optional.ofNullable(bxGyCoupon.getIsTiered()).orElse(false));
+            bxGyCoupon.setTierSelection(Optional.ofNullable(bxGyCoupon.getTierSelection()).orElse(TierSelection.HIGHEST_MET));
+            for (BuyProduct product : bxGyCoupon.getBuyProducts()) {
+                product.setId(UUID.randomUUID());
+                product.setTierLevel(Optional.ofNullable(product.getTierLevel()).orElse(1));
+            }
+            for (GetProduct product : bxGyCoupon.getGetProducts()) {
+                product.setId(UUID.randomUUID());
+                product.setTierLevel(Optional.ofNullable(product.getTierLevel()).orElse(1));
+            }
+        }
+    }
+}
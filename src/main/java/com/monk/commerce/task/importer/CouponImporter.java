@@ -0,0 +1,176 @@
+package com.monk.commerce.task.importer;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monk.commerce.task.dto.request.CouponRequestDTO;
+import com.monk.commerce.task.dto.response.CouponImportErrorDTO;
+import com.monk.commerce.task.dto.response.CouponImportResponseDTO;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.mapper.CouponMapper;
+import com.monk.commerce.task.repository.CouponRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates coupons in bulk from a JSON array or newline-delimited JSON of coupon requests,
+ * read one row at a time. Rows are validated and mapped in memory, then written in chunks of
+ * {@code coupon.import.chunk-size}: one query checks the chunk's codes against the database
+ * and {@link CouponBatchWriter} inserts the rest, committing each chunk on its own.
+ * <p>
+ * A failed row is reported with its index and does not stop the import. Only input that can
+ * no longer be parsed does; the chunks written before it stay committed.
+ */
+@Component
+public class CouponImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponImporter.class);
+
+    private final CouponRepository couponRepository;
+    private final CouponMapper couponMapper;
+    private final CouponBatchWriter batchWriter;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public CouponImporter(
+            CouponRepository couponRepository,
+            CouponMapper couponMapper,
+            CouponBatchWriter batchWriter,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${coupon.import.chunk-size:1000}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Import chunk size must be positive");
+        }
+        this.couponRepository = couponRepository;
+        this.couponMapper = couponMapper;
+        this.batchWriter = batchWriter;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public CouponImportResponseDTO importCoupons(InputStream input) {
+        Import state = new Import();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (MappingIterator<CouponRequestDTO> rows = objectMapper.readerFor(CouponRequestDTO.class).readValues(input)) {
+            while (rows.hasNextValue()) {
+                CouponRequestDTO request;
+                try {
+                    request = rows.nextValue();
+                } catch (JsonMappingException e) {
+                    // The row is well-formed JSON, so reading resumes with the next one
+                    state.fail(index++, null, "Invalid coupon: " + e.getOriginalMessage());
+                    continue;
+                }
+                Row row = toRow(index++, request, state);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, state);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Coupon import stopped at row {}: {}", index, e.getMessage());
+            state.fail(index, null, "Malformed input, import stopped: " + e.getMessage());
+        }
+        writeChunk(chunk, state);
+        // Code clashes and rolled back chunks are reported when their chunk is written, after later rows
+        state.errors.sort(Comparator.comparingInt(CouponImportErrorDTO::getIndex));
+        log.info("Imported {} coupons, {} rows failed", state.imported, state.errors.size());
+        return CouponImportResponseDTO.builder()
+                .imported(state.imported)
+                .failed(state.errors.size())
+                .errors(state.errors)
+                .build();
+    }
+
+    private Row toRow(int index, CouponRequestDTO request, Import state) {
+        if (request == null) {
+            state.fail(index, null, "Coupon cannot be null");
+            return null;
+        }
+        Set<ConstraintViolation<CouponRequestDTO>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            state.fail(index, request.getCouponCode(), violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+            return null;
+        }
+        Coupon coupon;
+        try {
+            coupon = couponMapper.toEntity(request);
+        } catch (RuntimeException e) {
+            // The mapper rejects missing or invalid details the same way for single creation
+            state.fail(index, request.getCouponCode(), e.getMessage());
+            return null;
+        }
+        if (!state.codes.add(coupon.getCouponCode())) {
+            state.fail(index, coupon.getCouponCode(), "Duplicate coupon code in import: " + coupon.getCouponCode());
+            return null;
+        }
+        return new Row(index, coupon);
+    }
+
+    private void writeChunk(List<Row> chunk, Import state) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> existingCodes = new HashSet<>(couponRepository.findExistingCouponCodes(
+                chunk.stream().map(row -> row.coupon().getCouponCode()).toList()));
+        List<Row> accepted = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            String couponCode = row.coupon().getCouponCode();
+            if (existingCodes.contains(couponCode)) {
+                state.fail(row.index(), couponCode, "Coupon code already exists: " + couponCode);
+            } else {
+                accepted.add(row);
+            }
+        }
+        try {
+            batchWriter.insert(accepted.stream().map(Row::coupon).toList());
+            state.imported += accepted.size();
+        } catch (DataAccessException e) {
+            log.error("Failed to write chunk of {} coupons: {}", accepted.size(), e.getMostSpecificCause().getMessage());
+            String error = "Chunk rolled back: " + e.getMostSpecificCause().getMessage();
+            accepted.forEach(row -> state.fail(row.index(), row.coupon().getCouponCode(), error));
+        }
+    }
+
+    private record Row(int index, Coupon coupon) {
+    }
+
+    private static final class Import {
+        private final List<CouponImportErrorDTO> errors = new ArrayList<>();
+        // Codes of the rows accepted so far, to catch duplicates within the input
+        private final Set<String> codes = new HashSet<>();
+        private int imported;
+
+        void fail(int index, String couponCode, String error) {
+            errors.add(CouponImportErrorDTO.builder()
+                    .index(index)
+                    .couponCode(couponCode)
+                    .error(error)
+                    .build());
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.monk.commerce.task.entity.ExcludedProduct;
 import com.monk.commerce.task.entity.GetProduct;
 import com.monk.commerce.task.entity.ProductWiseCoupon;
 import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.enums.TierSelection;
 import com.monk.commerce.task.exception.InvalidCouponException;
 import com.monk.commerce.task.util.CouponUtil;
 import org.springframework.stereotype.Component;
@@ -125,6 +126,8 @@ public class CouponMapper {
                 .isActive(Optional.ofNullable(dto.getIsActive()).orElse(true))
                 .expirationDate(dto.getExpirationDate())
                 .repetitionLimit(details.getRepetitionLimit())
+                .tierSelection(details.getTierSelection() != null ?
+                        TierSelection.fromValue(details.getTierSelection()) : TierSelection.HIGHEST_MET)
                 .buyProducts(new ArrayList<>())
                 .getProducts(new ArrayList<>())
                 .build();
@@ -223,6 +226,7 @@ public class CouponMapper {
                     .buyProducts(buyProducts)
                     .getProducts(getProducts)
                     .repetitionLimit(bxGyCoupon.getRepetitionLimit())
+                    .tierSelection(bxGyCoupon.getTierSelection() != null ? bxGyCoupon.getTierSelection().getValue() : null)
                     .build();
         }
 
@@ -314,6 +318,10 @@ public class CouponMapper {
             coupon.setRepetitionLimit(details.getRepetitionLimit());
         }
 
+        if (details.getTierSelection() != null) {
+            coupon.setTierSelection(TierSelection.fromValue(details.getTierSelection()));
+        }
+
         if (details.getBuyProducts() != null && !details.getBuyProducts().isEmpty()) {
             coupon.getBuyProducts().clear();
             details.getBuyProducts().forEach(buyProductDTO -> {
@@ -1,16 +1,25 @@
 package com.monk.commerce.task.repository;
 
 import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.repository.projection.CouponKeyView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface CouponRepository extends JpaRepository<Coupon, UUID> {
@@ -18,12 +27,56 @@ public interface CouponRepository extends JpaRepository<Coupon, UUID> {
     @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM Coupon c WHERE c.couponCode = :couponCode AND c.isActive = true")
     boolean existsActiveByCouponCode(@Param("couponCode") String couponCode);
 
+    @Query("SELECT CASE WHEN COUNT(c) > 0 THEN true ELSE false END FROM Coupon c WHERE c.id = :id AND c.isActive = true")
+    boolean existsActiveById(@Param("id") UUID id);
+
+    // Active or not, since the unique constraint on coupon_code covers both
+    @Query("SELECT c.couponCode FROM Coupon c WHERE c.couponCode IN :couponCodes")
+    List<String> findExistingCouponCodes(@Param("couponCodes") Collection<String> couponCodes);
+
     @Query("SELECT c FROM Coupon c WHERE c.id = :id AND c.isActive = true")
     Optional<Coupon> findActiveById(@Param("id") UUID id);
 
+    @EntityGraph(attributePaths = "excludedProducts")
+    @Query("SELECT c FROM Coupon c WHERE c.id IN :ids AND c.isActive = true")
+    List<Coupon> findAllActiveByIdIn(@Param("ids") Collection<UUID> ids);
+
     @Query("SELECT c FROM Coupon c WHERE c.isActive = true ORDER BY c.createdAt DESC")
     List<Coupon> findAllActiveCoupons();
 
+    /**
+     * IDs of all active coupons, newest first. Collections are not fetched for a streamed query,
+     * so callers load the coupons in windows with {@link #findAllActiveByIdIn}.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("SELECT c.id FROM Coupon c WHERE c.isActive = true ORDER BY c.createdAt DESC")
+    Stream<UUID> streamAllActiveCouponIds();
+
+    /**
+     * Keys of one page of active coupons, newest first, starting after the given (createdAt, id)
+     * position. A null filter or position matches every coupon; the product filter matches
+     * product-wise coupons on the product and BxGy coupons buying or giving it.
+     */
+    @Query("SELECT new com.monk.commerce.task.repository.projection.CouponKeyView(c.id, c.createdAt) " +
+            "FROM Coupon c WHERE c.isActive = true " +
+            "AND (:type IS NULL OR c.type = :type) " +
+            "AND (:expiresFrom IS NULL OR c.expirationDate >= :expiresFrom) " +
+            "AND (:expiresTo IS NULL OR c.expirationDate < :expiresTo) " +
+            "AND (:productId IS NULL " +
+            "OR c.id IN (SELECT p.id FROM ProductWiseCoupon p WHERE p.productId = :productId) " +
+            "OR c.id IN (SELECT b.bxgyCoupon.id FROM BuyProduct b WHERE b.productId = :productId) " +
+            "OR c.id IN (SELECT g.bxgyCoupon.id FROM GetProduct g WHERE g.productId = :productId)) " +
+            "AND (:afterCreatedAt IS NULL OR c.createdAt < :afterCreatedAt " +
+            "OR (c.createdAt = :afterCreatedAt AND c.id < :afterId)) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CouponKeyView> findActivePageKeys(@Param("type") CouponType type,
+                                           @Param("expiresFrom") LocalDateTime expiresFrom,
+                                           @Param("expiresTo") LocalDateTime expiresTo,
+                                           @Param("productId") Long productId,
+                                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                           @Param("afterId") UUID afterId,
+                                           Pageable pageable);
+
     @Query("SELECT c FROM Coupon c WHERE c.isActive = true " +
             "AND (c.expirationDate IS NULL OR c.expirationDate > :currentDate) " +
             "AND (c.maxUsageLimit IS NULL OR c.usageCount < c.maxUsageLimit) " +
@@ -35,6 +88,41 @@ public interface CouponRepository extends JpaRepository<Coupon, UUID> {
     int softDeleteById(@Param("id") UUID id, @Param("updatedAt") LocalDateTime updatedAt);
 
     @Modifying
-    @Query("UPDATE Coupon c SET c.usageCount = c.usageCount + 1, c.updatedAt = :updatedAt WHERE c.id = :id")
-    void incrementUsageCount(@Param("id") UUID id, @Param("updatedAt") LocalDateTime updatedAt);
+    @Query(value = "INSERT INTO coupon_usage_counter (coupon_id, slot, usage_count) VALUES (:couponId, :slot, 1) " +
+            "ON CONFLICT (coupon_id, slot) DO UPDATE SET usage_count = coupon_usage_counter.usage_count + 1",
+            nativeQuery = true)
+    int incrementUsageSlot(@Param("couponId") UUID couponId, @Param("slot") int slot);
+
+    /**
+     * Increments one usage counter slot only while it is below its share of {@code max_usage_limit}.
+     * Returns 0 when the slot is full.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO coupon_usage_counter (coupon_id, slot, usage_count) " +
+            "SELECT :couponId, :slot, 1 WHERE :quota > 0 " +
+            "ON CONFLICT (coupon_id, slot) DO UPDATE SET usage_count = coupon_usage_counter.usage_count + 1 " +
+            "WHERE coupon_usage_counter.usage_count < :quota",
+            nativeQuery = true)
+    int incrementUsageSlotWithinQuota(@Param("couponId") UUID couponId, @Param("slot") int slot, @Param("quota") long quota);
+
+    @Modifying
+    @Query(value = "INSERT INTO coupon_usage_counter (coupon_id, slot, usage_count) " +
+            "SELECT :couponId, s.slot, 0 FROM generate_series(0, :slots - 1) AS s(slot) " +
+            "ON CONFLICT (coupon_id, slot) DO NOTHING",
+            nativeQuery = true)
+    int createUsageSlots(@Param("couponId") UUID couponId, @Param("slots") int slots);
+
+    @Query(value = "SELECT usage_count FROM coupon_usage_counter WHERE coupon_id = :couponId FOR UPDATE", nativeQuery = true)
+    List<Long> lockUsageSlots(@Param("couponId") UUID couponId);
+
+    /**
+     * Rewrites the coupon's slots with {@code total} spread evenly over the first {@code slots} slots.
+     */
+    @Modifying
+    @Query(value = "UPDATE coupon_usage_counter SET usage_count = CASE WHEN slot < CAST(:slots AS INTEGER) " +
+            "THEN CAST(:total AS BIGINT) / CAST(:slots AS INTEGER) " +
+            "+ CASE WHEN slot < MOD(CAST(:total AS BIGINT), CAST(:slots AS INTEGER)) THEN 1 ELSE 0 END ELSE 0 END " +
+            "WHERE coupon_id = :couponId",
+            nativeQuery = true)
+    int spreadUsageSlots(@Param("couponId") UUID couponId, @Param("slots") int slots, @Param("total") long total);
 }
\ No newline at end of file
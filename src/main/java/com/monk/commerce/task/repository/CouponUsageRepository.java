@@ -8,6 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,8 +32,30 @@ public interface CouponUsageRepository extends JpaRepository<CouponUsage, UUID>
                      @Param("userId") String userId,
                      @Param("lastUsedAt") LocalDateTime lastUsedAt);
 
+    /**
+     * Records one use for the user only while their count is below {@code usageLimit}.
+     * Returns 0 when the user has already reached the limit.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO coupon_usage (id, coupon_id, user_id, usage_count, last_used_at) " +
+            "SELECT :id, :couponId, :userId, 1, :lastUsedAt WHERE :usageLimit > 0 " +
+            "ON CONFLICT (coupon_id, user_id) " +
+            "DO UPDATE SET usage_count = coupon_usage.usage_count + 1, last_used_at = :lastUsedAt " +
+            "WHERE coupon_usage.usage_count < :usageLimit",
+            nativeQuery = true)
+    int upsertUsageWithinLimit(@Param("id") UUID id,
+                               @Param("couponId") UUID couponId,
+                               @Param("userId") String userId,
+                               @Param("usageLimit") int usageLimit,
+                               @Param("lastUsedAt") LocalDateTime lastUsedAt);
+
     @Query(value = "SELECT COALESCE(SUM(usage_count), 0) FROM coupon_usage WHERE coupon_id = :couponId AND user_id = :userId",
             nativeQuery = true)
     Integer getTotalUsageByUserAndCoupon(@Param("couponId") UUID couponId,
                                          @Param("userId") String userId);
+
+    @Query("SELECT u.coupon.id, u.usageCount FROM CouponUsage u " +
+            "WHERE u.userId = :userId AND u.coupon.id IN :couponIds")
+    List<Object[]> findUsageCountsByUserAndCouponIds(@Param("userId") String userId,
+                                                     @Param("couponIds") Collection<UUID> couponIds);
 }
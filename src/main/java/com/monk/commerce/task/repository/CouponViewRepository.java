@@ -0,0 +1,51 @@
+package com.monk.commerce.task.repository;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.repository.projection.BxGyCouponView;
+import com.monk.commerce.task.repository.projection.CartWiseCouponView;
+import com.monk.commerce.task.repository.projection.ExcludedProductView;
+import com.monk.commerce.task.repository.projection.ProductWiseCouponView;
+import com.monk.commerce.task.repository.projection.TierProductView;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only projections of the active coupons for the evaluation path. Every query selects
+ * straight into records, so no entity is hydrated or tracked by the persistence context.
+ */
+public interface CouponViewRepository extends Repository<Coupon, UUID> {
+
+    String PROJECTION_PACKAGE = "com.monk.commerce.task.repository.projection.";
+    String COUPON_COLUMNS = "c.id, c.couponCode, c.type, c.description, c.expirationDate, c.usageCount, " +
+            "c.maxUsageLimit, c.usageLimitPerUser, c.allowStacking, c.priority, c.createdAt, c.updatedAt";
+
+    @Query("SELECT new " + PROJECTION_PACKAGE + "CartWiseCouponView(" + COUPON_COLUMNS + ", " +
+            "c.thresholdAmount, c.discountPercentage, c.maxDiscountAmount) " +
+            "FROM CartWiseCoupon c WHERE c.isActive = true")
+    List<CartWiseCouponView> findActiveCartWiseCoupons();
+
+    @Query("SELECT new " + PROJECTION_PACKAGE + "ProductWiseCouponView(" + COUPON_COLUMNS + ", " +
+            "c.productId, c.discountPercentage, c.maxDiscountPerProduct) " +
+            "FROM ProductWiseCoupon c WHERE c.isActive = true")
+    List<ProductWiseCouponView> findActiveProductWiseCoupons();
+
+    @Query("SELECT new " + PROJECTION_PACKAGE + "BxGyCouponView(" + COUPON_COLUMNS + ", " +
+            "c.repetitionLimit, c.isTiered, c.tierSelection) " +
+            "FROM BxGyCoupon c WHERE c.isActive = true")
+    List<BxGyCouponView> findActiveBxGyCoupons();
+
+    @Query("SELECT new " + PROJECTION_PACKAGE + "ExcludedProductView(e.coupon.id, e.productId) " +
+            "FROM ExcludedProduct e WHERE e.coupon.isActive = true")
+    List<ExcludedProductView> findActiveExcludedProducts();
+
+    @Query("SELECT new " + PROJECTION_PACKAGE + "TierProductView(b.bxgyCoupon.id, b.productId, b.quantity, b.tierLevel) " +
+            "FROM BuyProduct b WHERE b.bxgyCoupon.isActive = true")
+    List<TierProductView> findActiveBuyProducts();
+
+    @Query("SELECT new " + PROJECTION_PACKAGE + "TierProductView(g.bxgyCoupon.id, g.productId, g.quantity, g.tierLevel) " +
+            "FROM GetProduct g WHERE g.bxgyCoupon.isActive = true")
+    List<TierProductView> findActiveGetProducts();
+}
@@ -0,0 +1,15 @@
+package com.monk.commerce.task.repository.projection;
+
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.enums.TierSelection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record BxGyCouponView(UUID id, String couponCode, CouponType type, String description,
+                             LocalDateTime expirationDate, Long usageCount, Long maxUsageLimit,
+                             Integer usageLimitPerUser, Boolean allowStacking, Integer priority,
+                             LocalDateTime createdAt, LocalDateTime updatedAt,
+                             Integer repetitionLimit, Boolean isTiered,
+                             TierSelection tierSelection) implements CouponView {
+}
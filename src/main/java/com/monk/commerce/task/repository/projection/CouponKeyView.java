@@ -0,0 +1,10 @@
+package com.monk.commerce.task.repository.projection;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Position of a coupon in the (createdAt, id) listing order.
+ */
+public record CouponKeyView(UUID id, LocalDateTime createdAt) {
+}
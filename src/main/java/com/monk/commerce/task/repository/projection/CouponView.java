@@ -0,0 +1,37 @@
+package com.monk.commerce.task.repository.projection;
+
+import com.monk.commerce.task.enums.CouponType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Columns shared by every coupon type, read straight into immutable records without
+ * loading managed entities.
+ */
+public interface CouponView {
+
+    UUID id();
+
+    String couponCode();
+
+    CouponType type();
+
+    String description();
+
+    LocalDateTime expirationDate();
+
+    Long usageCount();
+
+    Long maxUsageLimit();
+
+    Integer usageLimitPerUser();
+
+    Boolean allowStacking();
+
+    Integer priority();
+
+    LocalDateTime createdAt();
+
+    LocalDateTime updatedAt();
+}
@@ -0,0 +1,6 @@
+package com.monk.commerce.task.repository.projection;
+
+import java.util.UUID;
+
+public record ExcludedProductView(UUID couponId, Long productId) {
+}
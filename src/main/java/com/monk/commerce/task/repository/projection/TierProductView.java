@@ -0,0 +1,9 @@
+package com.monk.commerce.task.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Buy or get product of a BxGy coupon.
+ */
+public record TierProductView(UUID couponId, Long productId, Integer quantity, Integer tierLevel) {
+}
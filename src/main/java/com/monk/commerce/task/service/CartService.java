@@ -1,16 +1,45 @@
 package com.monk.commerce.task.service;
 
+import com.monk.commerce.task.dto.request.BatchApplyRequestDTO;
 import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.dto.request.MultiCartRequestDTO;
 import com.monk.commerce.task.dto.response.ApplicableCouponResponseDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
+import com.monk.commerce.task.dto.response.BatchApplyResultDTO;
+import com.monk.commerce.task.dto.response.CartApplicableCouponsDTO;
+import com.monk.commerce.task.dto.response.CouponStackResponseDTO;
+import com.monk.commerce.task.dto.response.ResultCacheStatsDTO;
 
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface CartService {
 
     Map<String, List<ApplicableCouponResponseDTO>> getApplicableCoupons(Map<String, CartRequestDTO> request);
 
+    /**
+     * The first {@code limit} entries of {@link #getApplicableCoupons(Map)}, or all of them when
+     * the limit is {@code null}.
+     */
+    Map<String, List<ApplicableCouponResponseDTO>> getApplicableCoupons(Map<String, CartRequestDTO> request, Integer limit);
+
+    /**
+     * Size and hit and miss counts of the cache behind {@link #getApplicableCoupons(Map, Integer)}.
+     */
+    ResultCacheStatsDTO getApplicableCouponsCacheStats();
+
+    Stream<ApplicableCouponResponseDTO> streamApplicableCoupons(Map<String, CartRequestDTO> request);
+
+    /**
+     * The combination of applicable coupons with the largest total discount on the cart.
+     */
+    CouponStackResponseDTO getBestCouponStack(Map<String, CartRequestDTO> request);
+
+    Map<String, List<CartApplicableCouponsDTO>> getApplicableCouponsForCarts(MultiCartRequestDTO request);
+
     AppliedCouponResponseDTO applyCoupon(UUID couponId, Map<String, CartRequestDTO> request);
+
+    Map<String, List<BatchApplyResultDTO>> applyCouponBatch(BatchApplyRequestDTO request);
 }
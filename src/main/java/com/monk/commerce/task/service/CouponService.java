@@ -1,20 +1,38 @@
 package com.monk.commerce.task.service;
 
+import com.monk.commerce.task.dto.request.CampaignCodeRequestDTO;
 import com.monk.commerce.task.dto.request.CouponRequestDTO;
+import com.monk.commerce.task.dto.response.CampaignCodeResponseDTO;
+import com.monk.commerce.task.dto.response.CouponImportResponseDTO;
+import com.monk.commerce.task.dto.response.CouponPageResponseDTO;
 import com.monk.commerce.task.dto.response.CouponResponseDTO;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface CouponService {
 
     CouponResponseDTO createCoupon(CouponRequestDTO request);
 
+    CouponImportResponseDTO importCoupons(InputStream input);
+
     List<CouponResponseDTO> getAllCoupons();
 
+    void streamAllCoupons(Consumer<CouponResponseDTO> consumer);
+
+    CouponPageResponseDTO getCouponPage(String type, LocalDateTime expiresFrom, LocalDateTime expiresTo,
+                                        Long productId, String cursor, Integer size);
+
     CouponResponseDTO getCouponById(UUID id);
 
     CouponResponseDTO updateCoupon(UUID id, CouponRequestDTO request);
 
     void deleteCoupon(UUID id);
+
+    CampaignCodeResponseDTO generateCampaignCodes(UUID couponId, CampaignCodeRequestDTO request);
+
+    void streamCampaignCodes(UUID couponId, Consumer<String> consumer);
 }
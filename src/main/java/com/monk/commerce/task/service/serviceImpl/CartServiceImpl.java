@@ -1,8 +1,18 @@
 package com.monk.commerce.task.service.serviceImpl;
 
+import com.monk.commerce.task.cache.ApplicableCouponCache;
+import com.monk.commerce.task.catalog.CouponCatalog;
+import com.monk.commerce.task.catalog.CouponCatalogSnapshot;
+import com.monk.commerce.task.dto.request.BatchApplyItemDTO;
+import com.monk.commerce.task.dto.request.BatchApplyRequestDTO;
 import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.dto.request.MultiCartRequestDTO;
 import com.monk.commerce.task.dto.response.ApplicableCouponResponseDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
+import com.monk.commerce.task.dto.response.BatchApplyResultDTO;
+import com.monk.commerce.task.dto.response.CartApplicableCouponsDTO;
+import com.monk.commerce.task.dto.response.CouponStackResponseDTO;
+import com.monk.commerce.task.dto.response.ResultCacheStatsDTO;
 import com.monk.commerce.task.entity.Coupon;
 import com.monk.commerce.task.exception.CouponNotApplicableException;
 import com.monk.commerce.task.exception.CouponNotFoundException;
@@ -11,83 +21,345 @@ import com.monk.commerce.task.factory.CouponStrategyFactory;
 import com.monk.commerce.task.repository.CouponRepository;
 import com.monk.commerce.task.repository.CouponUsageRepository;
 import com.monk.commerce.task.service.CartService;
+import com.monk.commerce.task.stacking.CouponStackOptimizer;
+import com.monk.commerce.task.strategy.CouponEvaluation;
+import com.monk.commerce.task.strategy.CouponEvaluator;
 import com.monk.commerce.task.strategy.CouponStrategy;
+import com.monk.commerce.task.usage.CouponUsageCounter;
+import com.monk.commerce.task.usage.UsageBatchWriter;
+import com.monk.commerce.task.usage.UserUsageBuffer;
+import com.monk.commerce.task.util.CartIndex;
 import com.monk.commerce.task.util.Constants;
 import com.monk.commerce.task.util.CouponUtil;
 import com.monk.commerce.task.validator.CartValidator;
 import com.monk.commerce.task.validator.CouponValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
 public class CartServiceImpl implements CartService {
 
     private static final Logger log = LoggerFactory.getLogger(CartServiceImpl.class);
+    private static final int USER_USAGE_BATCH_SIZE = 1000;
 
     private final CouponRepository couponRepository;
     private final CouponStrategyFactory strategyFactory;
     private final CartValidator cartValidator;
     private final CouponValidator couponValidator;
     private final CouponUsageRepository couponUsageRepository;
+    private final CouponCatalog couponCatalog;
+    private final CouponUsageCounter couponUsageCounter;
+    private final UserUsageBuffer userUsageBuffer;
+    private final UsageBatchWriter usageBatchWriter;
+    private final CouponStackOptimizer couponStackOptimizer;
+    private final ApplicableCouponCache applicableCouponCache;
+    private final ForkJoinPool couponEvaluationPool;
+    private final int parallelEvaluationThreshold;
 
     public CartServiceImpl(
             CouponRepository couponRepository,
             CouponStrategyFactory strategyFactory,
             CartValidator cartValidator,
             CouponValidator couponValidator,
-            CouponUsageRepository couponUsageRepository) {
+            CouponUsageRepository couponUsageRepository,
+            CouponCatalog couponCatalog,
+            CouponUsageCounter couponUsageCounter,
+            UserUsageBuffer userUsageBuffer,
+            UsageBatchWriter usageBatchWriter,
+            CouponStackOptimizer couponStackOptimizer,
+            ApplicableCouponCache applicableCouponCache,
+            ForkJoinPool couponEvaluationPool,
+            @Value("${coupon.evaluation.parallel-threshold:512}") int parallelEvaluationThreshold) {
         this.couponRepository = couponRepository;
         this.strategyFactory = strategyFactory;
         this.cartValidator = cartValidator;
         this.couponValidator = couponValidator;
         this.couponUsageRepository = couponUsageRepository;
+        this.couponCatalog = couponCatalog;
+        this.couponUsageCounter = couponUsageCounter;
+        this.userUsageBuffer = userUsageBuffer;
+        this.usageBatchWriter = usageBatchWriter;
+        this.couponStackOptimizer = couponStackOptimizer;
+        this.applicableCouponCache = applicableCouponCache;
+        this.couponEvaluationPool = couponEvaluationPool;
+        this.parallelEvaluationThreshold = parallelEvaluationThreshold;
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Map<String, List<ApplicableCouponResponseDTO>> getApplicableCoupons(Map<String, CartRequestDTO> request) {
+        return getApplicableCoupons(request, null);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<String, List<ApplicableCouponResponseDTO>> getApplicableCoupons(Map<String, CartRequestDTO> request, Integer limit) {
         log.debug("Fetching applicable coupons for cart");
         Objects.requireNonNull(request, "Request cannot be null");
+        if (limit != null && limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
         CartRequestDTO cart = request.get("cart");
         if (cart == null) {
             log.error("Cart data not found in request");
             throw new InvalidCartException("Cart data not found in request");
         }
-        cartValidator.validateCartRequest(cart);
+        CartIndex cartIndex = cartValidator.validateCartRequest(cart);
         log.debug("Cart validated with {} items", cart.getItems().size());
-        List<Coupon> validCoupons = couponRepository.findAllValidCoupons(LocalDateTime.now());
+        CouponCatalogSnapshot catalog = couponCatalog.current();
+        ApplicableCouponCache.Key cacheKey = applicableCouponCache.keyFor(cartIndex, cart.getUserId(), limit, catalog.getVersion());
+        List<ApplicableCouponResponseDTO> cached = applicableCouponCache.get(cacheKey);
+        if (cached != null) {
+            log.debug("Serving {} applicable coupons from cache for catalog version {}", cached.size(), catalog.getVersion());
+            Map<String, List<ApplicableCouponResponseDTO>> cachedResponse = new HashMap<>();
+            cachedResponse.put("applicable_coupons", new ArrayList<>(cached));
+            return cachedResponse;
+        }
+        List<Coupon> validCoupons = catalog.getCandidateCoupons(cartIndex, LocalDateTime.now());
         if (validCoupons == null || validCoupons.isEmpty()) {
             log.info("No valid coupons found");
             Map<String, List<ApplicableCouponResponseDTO>> emptyResponse = new HashMap<>();
             emptyResponse.put("applicable_coupons", new ArrayList<>());
             return emptyResponse;
         }
-        log.debug("Found {} valid coupons to evaluate", validCoupons.size());
-        List<ApplicableCouponResponseDTO> applicableCoupons = validCoupons.stream()
-                .filter(coupon -> isApplicableToCoupon(coupon, cart))
-                .map(coupon -> buildApplicableCouponResponse(coupon, cart))
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparing(ApplicableCouponResponseDTO::getDiscount).reversed())
-                .collect(Collectors.toList());
+        log.debug("Found {} candidate coupons out of {} in catalog version {}", validCoupons.size(), catalog.size(), catalog.getVersion());
+        Map<UUID, Integer> userUsage = loadUserUsage(validCoupons, cart.getUserId());
+        List<ApplicableCouponResponseDTO> applicableCoupons;
+        if (limit != null && limit < validCoupons.size()) {
+            applicableCoupons = evaluateTopCoupons(validCoupons, cartIndex, catalog, userUsage, limit);
+        } else if (validCoupons.size() >= parallelEvaluationThreshold) {
+            log.debug("Evaluating {} candidate coupons in parallel", validCoupons.size());
+            applicableCoupons = couponEvaluationPool.submit(() ->
+                    evaluateApplicableCoupons(validCoupons.parallelStream(), cartIndex, catalog, userUsage)).join();
+        } else {
+            applicableCoupons = evaluateApplicableCoupons(validCoupons.stream(), cartIndex, catalog, userUsage);
+        }
         log.info("Found {} applicable coupons with discounts", applicableCoupons.size());
+        applicableCouponCache.put(cacheKey, applicableCoupons, earliestExpiration(validCoupons));
         Map<String, List<ApplicableCouponResponseDTO>> response = new HashMap<>();
         response.put("applicable_coupons", applicableCoupons);
         return response;
     }
 
+    /**
+     * Validates the cart and reads the user's usage up front, then evaluates the candidate
+     * coupons lazily in catalog priority order as the returned stream is consumed.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Stream<ApplicableCouponResponseDTO> streamApplicableCoupons(Map<String, CartRequestDTO> request) {
+        log.debug("Streaming applicable coupons for cart");
+        Objects.requireNonNull(request, "Request cannot be null");
+        CartRequestDTO cart = request.get("cart");
+        if (cart == null) {
+            log.error("Cart data not found in request");
+            throw new InvalidCartException("Cart data not found in request");
+        }
+        CartIndex cartIndex = cartValidator.validateCartRequest(cart);
+        CouponCatalogSnapshot catalog = couponCatalog.current();
+        List<Coupon> candidates = catalog.getCandidateCoupons(cartIndex, LocalDateTime.now());
+        log.debug("Streaming {} candidate coupons from catalog version {}", candidates.size(), catalog.getVersion());
+        Map<UUID, Integer> userUsage = loadUserUsage(candidates, cart.getUserId());
+        return candidates.stream()
+                .map(coupon -> evaluateCoupon(coupon, cartIndex, catalog, userUsage))
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public CouponStackResponseDTO getBestCouponStack(Map<String, CartRequestDTO> request) {
+        log.debug("Finding best coupon stack for cart");
+        Objects.requireNonNull(request, "Request cannot be null");
+        CartRequestDTO cart = request.get("cart");
+        if (cart == null) {
+            log.error("Cart data not found in request");
+            throw new InvalidCartException("Cart data not found in request");
+        }
+        CartIndex cartIndex = cartValidator.validateCartRequest(cart);
+        CouponCatalogSnapshot catalog = couponCatalog.current();
+        List<Coupon> candidates = catalog.getCandidateCoupons(cartIndex, LocalDateTime.now());
+        Map<UUID, Integer> userUsage = loadUserUsage(candidates, cart.getUserId());
+        List<CouponStackOptimizer.Candidate> applicable = new ArrayList<>();
+        for (Coupon coupon : candidates) {
+            CouponEvaluation evaluation = evaluateWithinLimits(coupon, cartIndex, catalog, userUsage);
+            if (evaluation.applicable()) {
+                applicable.add(new CouponStackOptimizer.Candidate(coupon, evaluation));
+            }
+        }
+        CouponStackOptimizer.Stack stack = couponStackOptimizer.optimize(applicable, cartIndex);
+        List<ApplicableCouponResponseDTO> coupons = new ArrayList<>(stack.coupons().size());
+        for (int i = 0; i < stack.coupons().size(); i++) {
+            coupons.add(toApplicableResponse(stack.coupons().get(i).coupon(), stack.discounts().get(i), cart, catalog, userUsage));
+        }
+        log.info("Best stack of {} coupons out of {} applicable, discount: {}, optimal: {}",
+                coupons.size(), applicable.size(), stack.evaluation().discount(), stack.optimal());
+        return CouponStackResponseDTO.builder()
+                .coupons(coupons)
+                .updatedCart(stack.evaluation().toAppliedResponse(cartIndex).getUpdatedCart())
+                .optimal(stack.optimal())
+                .build();
+    }
+
+    @Override
+    public ResultCacheStatsDTO getApplicableCouponsCacheStats() {
+        return applicableCouponCache.stats();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<String, List<CartApplicableCouponsDTO>> getApplicableCouponsForCarts(MultiCartRequestDTO request) {
+        Objects.requireNonNull(request, "Request cannot be null");
+        List<CartRequestDTO> carts = request.getCarts();
+        if (carts == null || carts.isEmpty()) {
+            log.error("Carts not found in request");
+            throw new InvalidCartException("Carts cannot be empty");
+        }
+        log.debug("Fetching applicable coupons for {} carts", carts.size());
+        CouponCatalogSnapshot catalog = couponCatalog.current();
+        LocalDateTime now = LocalDateTime.now();
+        List<CartApplicableCouponsDTO> results = new ArrayList<>(carts.size());
+        List<List<Coupon>> candidates = new ArrayList<>(carts.size());
+        List<CartIndex> cartIndexes = new ArrayList<>(carts.size());
+        Map<String, Map<UUID, Coupon>> candidatesByUser = new HashMap<>();
+        for (int index = 0; index < carts.size(); index++) {
+            CartRequestDTO cart = carts.get(index);
+            results.add(CartApplicableCouponsDTO.builder().index(index).build());
+            try {
+                if (cart == null) {
+                    throw new InvalidCartException("Cart data not found in request");
+                }
+                CartIndex cartIndex = cartValidator.validateCartRequest(cart);
+                List<Coupon> cartCandidates = catalog.getCandidateCoupons(cartIndex, now);
+                candidates.add(cartCandidates);
+                cartIndexes.add(cartIndex);
+                if (cart.getUserId() != null) {
+                    Map<UUID, Coupon> userCandidates = candidatesByUser.computeIfAbsent(cart.getUserId(), userId -> new HashMap<>());
+                    cartCandidates.forEach(coupon -> userCandidates.put(coupon.getId(), coupon));
+                }
+            } catch (RuntimeException e) {
+                log.debug("Cart {} failed validation: {}", index, e.getMessage());
+                candidates.add(null);
+                cartIndexes.add(null);
+                results.get(index).setError(e.getMessage());
+            }
+        }
+        // One usage read per distinct user, shared by all of that user's carts
+        Map<String, Map<UUID, Integer>> usageByUser = new HashMap<>();
+        candidatesByUser.forEach((userId, userCandidates) ->
+                usageByUser.put(userId, loadUserUsage(new ArrayList<>(userCandidates.values()), userId)));
+        couponEvaluationPool.submit(() -> IntStream.range(0, carts.size())
+                .parallel()
+                .filter(index -> candidates.get(index) != null)
+                .forEach(index -> {
+                    CartRequestDTO cart = carts.get(index);
+                    Map<UUID, Integer> userUsage = cart.getUserId() != null ?
+                            usageByUser.getOrDefault(cart.getUserId(), Collections.emptyMap()) : Collections.emptyMap();
+                    results.get(index).setApplicableCoupons(
+                            evaluateApplicableCoupons(candidates.get(index).stream(), cartIndexes.get(index), catalog, userUsage));
+                })).join();
+        log.info("Evaluated {} carts against catalog version {}", carts.size(), catalog.getVersion());
+        Map<String, List<CartApplicableCouponsDTO>> response = new HashMap<>();
+        response.put("results", results);
+        return response;
+    }
+
+    /**
+     * Evaluates the coupons of a sequential or parallel stream; the sort is stable for both, so
+     * coupons with equal discounts keep their catalog order either way.
+     */
+    private List<ApplicableCouponResponseDTO> evaluateApplicableCoupons(Stream<Coupon> coupons, CartIndex cartIndex,
+                                                                        CouponCatalogSnapshot catalog, Map<UUID, Integer> userUsage) {
+        return coupons
+                .map(coupon -> evaluateCoupon(coupon, cartIndex, catalog, userUsage))
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparing(ApplicableCouponResponseDTO::getDiscount).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Keeps the best {@code limit} coupons in a heap whose head is the current worst, ranked
+     * like {@link #evaluateApplicableCoupons}: by discount, then catalog order. Once the heap
+     * is full, a coupon whose upper bound cannot beat the head is skipped without evaluating
+     * it; since candidates come in catalog order, an equal discount never beats the head.
+     */
+    private List<ApplicableCouponResponseDTO> evaluateTopCoupons(List<Coupon> coupons, CartIndex cartIndex,
+                                                                 CouponCatalogSnapshot catalog, Map<UUID, Integer> userUsage,
+                                                                 int limit) {
+        Comparator<RankedCoupon> worstFirst = Comparator
+                .comparing((RankedCoupon ranked) -> ranked.coupon().getDiscount())
+                .thenComparing(RankedCoupon::position, Comparator.reverseOrder());
+        PriorityQueue<RankedCoupon> best = new PriorityQueue<>(limit + 1, worstFirst);
+        int skipped = 0;
+        for (int position = 0; position < coupons.size(); position++) {
+            Coupon coupon = coupons.get(position);
+            if (best.size() == limit) {
+                BigDecimal upperBound = upperBound(coupon, cartIndex, catalog);
+                if (upperBound != null && upperBound.compareTo(best.peek().coupon().getDiscount()) <= 0) {
+                    skipped++;
+                    continue;
+                }
+            }
+            ApplicableCouponResponseDTO response = evaluateCoupon(coupon, cartIndex, catalog, userUsage);
+            if (response == null) {
+                continue;
+            }
+            best.add(new RankedCoupon(position, response));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        log.debug("Kept top {} coupons, skipped {} of {} by upper bound", best.size(), skipped, coupons.size());
+        List<RankedCoupon> ranked = new ArrayList<>(best);
+        ranked.sort(worstFirst.reversed());
+        return ranked.stream().map(RankedCoupon::coupon).collect(Collectors.toList());
+    }
+
+    private BigDecimal upperBound(Coupon coupon, CartIndex cartIndex, CouponCatalogSnapshot catalog) {
+        try {
+            CouponEvaluator evaluator = catalog.getEvaluator(coupon.getId());
+            return evaluator != null ? evaluator.upperBound(cartIndex) :
+                    strategyFactory.getStrategy(coupon.getType()).upperBound(coupon, cartIndex);
+        } catch (Exception e) {
+            log.debug("No upper bound for coupon {}: {}", coupon.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private record RankedCoupon(int position, ApplicableCouponResponseDTO coupon) {
+    }
+
+    // The first moment a candidate expires, after which a cached result may no longer hold
+    private static LocalDateTime earliestExpiration(List<Coupon> coupons) {
+        return coupons.stream()
+                .map(Coupon::getExpirationDate)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
     @Override
     @Transactional
     public AppliedCouponResponseDTO applyCoupon(UUID couponId, Map<String, CartRequestDTO> request) {
@@ -99,75 +371,222 @@ public class CartServiceImpl implements CartService {
             log.error("Cart data not found in request");
             throw new InvalidCartException("Cart data not found in request");
         }
-        cartValidator.validateCartRequest(cart);
+        CartIndex cartIndex = cartValidator.validateCartRequest(cart);
         log.debug("Validating cart with {} items for coupon: {}", cart.getItems().size(), couponId);
         Coupon coupon = couponRepository.findActiveById(couponId)
                 .orElseThrow(() -> {log.error("Coupon not found: {}", couponId);
                     return new CouponNotFoundException(String.format(Constants.COUPON_NOT_FOUND, couponId));});
         log.debug("Found coupon: {} with type: {}", couponId, coupon.getType());
         couponValidator.validateCouponValid(coupon);
-        if (cart.getUserId() != null && CouponUtil.hasUserReachedLimit(coupon, cart.getUserId())) {
-            log.error("User {} has reached usage limit for coupon: {}", cart.getUserId(), couponId);
-            throw new CouponNotApplicableException("User has reached usage limit for this coupon");
-        }
         CouponStrategy strategy = strategyFactory.getStrategy(coupon.getType());
         log.debug("Using strategy: {} for coupon: {}", strategy.getClass().getSimpleName(), couponId);
-        if (!strategy.isApplicable(coupon, cart)) {
+        CouponEvaluation evaluation = strategy.evaluate(coupon, cartIndex);
+        if (!evaluation.applicable()) {
             log.error("Coupon {} is not applicable to cart", couponId);
             throw new CouponNotApplicableException(Constants.COUPON_NOT_APPLICABLE);
         }
-        AppliedCouponResponseDTO response = strategy.applyCoupon(coupon, cart);
+        AppliedCouponResponseDTO response = evaluation.toAppliedResponse(cartIndex);
         log.debug("Calculated discount: {} for coupon: {}", response.getUpdatedCart().getTotalDiscount(), couponId);
         updateCouponUsage(coupon, cart.getUserId());
+        couponCatalog.recordUsageAfterCommit(couponId);
+        applicableCouponCache.invalidateAfterCommit(coupon, cart.getUserId());
         log.info("Successfully applied coupon: {} with discount: {}", couponId, response.getUpdatedCart().getTotalDiscount());
         return response;
     }
 
-    private boolean isApplicableToCoupon(Coupon coupon, CartRequestDTO cart) {
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, List<BatchApplyResultDTO>> applyCouponBatch(BatchApplyRequestDTO request) {
+        Objects.requireNonNull(request, "Request cannot be null");
+        List<BatchApplyItemDTO> items = request.getItems();
+        if (items == null || items.isEmpty()) {
+            log.error("Batch items not found in request");
+            throw new InvalidCartException("Batch items cannot be empty");
+        }
+        log.info("Applying coupons to batch of {} carts", items.size());
+        Set<UUID> couponIds = items.stream()
+                .map(BatchApplyItemDTO::getCouponId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<UUID, Coupon> coupons = couponIds.isEmpty() ? Collections.emptyMap() :
+                couponRepository.findAllActiveByIdIn(couponIds).stream()
+                        .collect(Collectors.toMap(Coupon::getId, Function.identity(), (first, second) -> first));
+        log.debug("Loaded {} of {} distinct coupons for batch", coupons.size(), couponIds.size());
+        List<BatchApplyResultDTO> results = couponEvaluationPool.submit(() -> IntStream.range(0, items.size())
+                .parallel()
+                .mapToObj(index -> evaluateBatchItem(index, items.get(index), coupons))
+                .collect(Collectors.toList())).join();
+        redeemBatch(results, items, coupons);
+        long applied = results.stream().filter(BatchApplyResultDTO::isSuccess).count();
+        log.info("Applied coupons to {} of {} carts in batch", applied, items.size());
+        Map<String, List<BatchApplyResultDTO>> response = new HashMap<>();
+        response.put("results", results);
+        return response;
+    }
+
+    private BatchApplyResultDTO evaluateBatchItem(int index, BatchApplyItemDTO item, Map<UUID, Coupon> coupons) {
+        BatchApplyResultDTO.BatchApplyResultDTOBuilder result = BatchApplyResultDTO.builder()
+                .index(index)
+                .couponId(item.getCouponId());
         try {
-            log.debug("Checking applicability for coupon: {}", coupon.getId());
-            if (cart.getUserId() != null && CouponUtil.hasUserReachedLimit(coupon, cart.getUserId())) {
-                log.debug("User {} reached limit for coupon: {}", cart.getUserId(), coupon.getId());
-                return false;
+            couponValidator.validateCouponId(item.getCouponId());
+            if (item.getCart() == null) {
+                throw new InvalidCartException("Cart data not found in request");
+            }
+            CartIndex cartIndex = cartValidator.validateCartRequest(item.getCart());
+            Coupon coupon = coupons.get(item.getCouponId());
+            if (coupon == null) {
+                throw new CouponNotFoundException(String.format(Constants.COUPON_NOT_FOUND, item.getCouponId()));
             }
+            couponValidator.validateCouponValid(coupon);
             CouponStrategy strategy = strategyFactory.getStrategy(coupon.getType());
-            boolean applicable = strategy.isApplicable(coupon, cart);
-            log.debug("Coupon {} applicability: {}", coupon.getId(), applicable);
-            return applicable;
-        } catch (Exception e) {
-            log.error("Error checking applicability for coupon {}: {}", coupon.getId(), e.getMessage());
-            return false;
+            CouponEvaluation evaluation = strategy.evaluate(coupon, cartIndex);
+            if (!evaluation.applicable()) {
+                throw new CouponNotApplicableException(Constants.COUPON_NOT_APPLICABLE);
+            }
+            return result.success(true)
+                    .updatedCart(evaluation.toAppliedResponse(cartIndex).getUpdatedCart())
+                    .build();
+        } catch (RuntimeException e) {
+            log.debug("Batch item {} with coupon {} failed: {}", index, item.getCouponId(), e.getMessage());
+            return result.success(false).error(e.getMessage()).build();
         }
     }
 
-    private ApplicableCouponResponseDTO buildApplicableCouponResponse(Coupon coupon, CartRequestDTO cart) {
+    private void redeemBatch(List<BatchApplyResultDTO> results, List<BatchApplyItemDTO> items, Map<UUID, Coupon> coupons) {
+        List<BatchApplyResultDTO> applicable = results.stream()
+                .filter(BatchApplyResultDTO::isSuccess)
+                .collect(Collectors.toList());
+        List<UsageBatchWriter.Redemption> redemptions = applicable.stream()
+                .map(result -> new UsageBatchWriter.Redemption(coupons.get(result.getCouponId()),
+                        items.get(result.getIndex()).getCart().getUserId()))
+                .collect(Collectors.toList());
+        boolean[] granted;
+        String rejection = Constants.USAGE_LIMIT_REACHED;
         try {
-            log.debug("Building response for coupon: {}", coupon.getId());
-            CouponStrategy strategy = strategyFactory.getStrategy(coupon.getType());
-            BigDecimal discount = strategy.calculateDiscount(coupon, cart);
-            log.debug("Calculated discount: {} for coupon: {}", discount, coupon.getId());
-            return ApplicableCouponResponseDTO.builder()
-                    .couponId(coupon.getId())
-                    .type(coupon.getType().getValue())
-                    .discount(discount)
-                    .isStackable(coupon.getAllowStacking())
-                    .priority(coupon.getPriority())
-                    .userUsageRemaining(cart.getUserId() != null ?
-                            CouponUtil.getUserUsageRemaining(coupon, cart.getUserId()) : null)
-                    .globalUsageRemaining(CouponUtil.getGlobalUsageRemaining(coupon))
-                    .build();
-        } catch (Exception e) {
-            log.error("Error calculating discount for coupon {}: {}", coupon.getId(), e.getMessage());
+            granted = usageBatchWriter.redeem(redemptions);
+        } catch (CouponNotApplicableException e) {
+            log.error("Batch redemption failed: {}", e.getMessage());
+            granted = new boolean[redemptions.size()];
+            rejection = e.getMessage();
+        }
+        for (int i = 0; i < applicable.size(); i++) {
+            BatchApplyResultDTO result = applicable.get(i);
+            if (granted[i]) {
+                couponCatalog.recordUsageAfterCommit(result.getCouponId());
+                applicableCouponCache.invalidateAfterCommit(redemptions.get(i).coupon(), redemptions.get(i).userId());
+            } else {
+                result.setSuccess(false);
+                result.setUpdatedCart(null);
+                result.setError(rejection);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the coupon once through its compiled evaluator; returns null when the user has used up
+     * the coupon or it does not apply to the cart.
+     */
+    private ApplicableCouponResponseDTO evaluateCoupon(Coupon coupon, CartIndex cartIndex, CouponCatalogSnapshot catalog,
+                                                       Map<UUID, Integer> userUsage) {
+        CouponEvaluation evaluation = evaluateWithinLimits(coupon, cartIndex, catalog, userUsage);
+        if (!evaluation.applicable()) {
             return null;
         }
+        return toApplicableResponse(coupon, evaluation.discount(), cartIndex.getCart(), catalog, userUsage);
+    }
+
+    /**
+     * Runs the evaluator the catalog compiled for the coupon, or the coupon's strategy when the
+     * catalog holds none.
+     */
+    private CouponEvaluation evaluateWithinLimits(Coupon coupon, CartIndex cartIndex, CouponCatalogSnapshot catalog,
+                                                  Map<UUID, Integer> userUsage) {
+        CartRequestDTO cart = cartIndex.getCart();
+        try {
+            log.debug("Evaluating coupon: {}", coupon.getId());
+            if (cart.getUserId() != null && CouponUtil.hasUserReachedLimit(coupon, userUsage.getOrDefault(coupon.getId(), 0))) {
+                log.debug("User {} reached limit for coupon: {}", cart.getUserId(), coupon.getId());
+                return CouponEvaluation.notApplicable();
+            }
+            CouponEvaluator evaluator = catalog.getEvaluator(coupon.getId());
+            CouponEvaluation evaluation = evaluator != null ? evaluator.evaluate(cartIndex) :
+                    strategyFactory.getStrategy(coupon.getType()).evaluate(coupon, cartIndex);
+            log.debug("Coupon {} applicability: {}, discount: {}", coupon.getId(), evaluation.applicable(), evaluation.discount());
+            return evaluation;
+        } catch (Exception e) {
+            log.error("Error evaluating coupon {}: {}", coupon.getId(), e.getMessage());
+            return CouponEvaluation.notApplicable();
+        }
     }
 
+    private ApplicableCouponResponseDTO toApplicableResponse(Coupon coupon, BigDecimal discount, CartRequestDTO cart,
+                                                             CouponCatalogSnapshot catalog, Map<UUID, Integer> userUsage) {
+        return ApplicableCouponResponseDTO.builder()
+                .couponId(coupon.getId())
+                .type(coupon.getType().getValue())
+                .discount(discount)
+                .isStackable(coupon.getAllowStacking())
+                .priority(coupon.getPriority())
+                .userUsageRemaining(cart.getUserId() != null ?
+                        CouponUtil.getUserUsageRemaining(coupon, userUsage.getOrDefault(coupon.getId(), 0)) : null)
+                .globalUsageRemaining(catalog.getGlobalUsageRemaining(coupon))
+                .build();
+    }
+
+    /**
+     * Reads the user's usage of every per-user limited coupon in batched {@code IN} queries
+     * instead of walking each coupon's full usage history.
+     */
+    private Map<UUID, Integer> loadUserUsage(List<Coupon> coupons, String userId) {
+        if (userId == null) {
+            return Collections.emptyMap();
+        }
+        List<UUID> limitedCouponIds = coupons.stream()
+                .filter(coupon -> coupon.getUsageLimitPerUser() != null)
+                .map(Coupon::getId)
+                .collect(Collectors.toList());
+        Map<UUID, Integer> userUsage = new HashMap<>();
+        if (userUsageBuffer.isEnabled()) {
+            // Read the buffer before the table so that a concurrent flush is counted at least once
+            limitedCouponIds.forEach(couponId -> userUsage.put(couponId, userUsageBuffer.getUnflushedUsage(couponId, userId)));
+        }
+        for (int from = 0; from < limitedCouponIds.size(); from += USER_USAGE_BATCH_SIZE) {
+            List<UUID> batch = limitedCouponIds.subList(from, Math.min(from + USER_USAGE_BATCH_SIZE, limitedCouponIds.size()));
+            for (Object[] row : couponUsageRepository.findUsageCountsByUserAndCouponIds(userId, batch)) {
+                userUsage.merge((UUID) row[0], ((Number) row[1]).intValue(), Integer::sum);
+            }
+        }
+        log.debug("Loaded usage of {} limited coupons for user: {}", limitedCouponIds.size(), userId);
+        return userUsage;
+    }
+
+    /**
+     * Redeems the coupon with conditional writes that only succeed while the per-user and
+     * global limits still have room; a failed write throws and rolls back the other one.
+     * The per-user row goes first so that rejected users never touch the shared counter slots.
+     */
     private void updateCouponUsage(Coupon coupon, String userId) {
-        log.debug("Updating usage count for coupon: {}", coupon.getId());
-        couponRepository.incrementUsageCount(coupon.getId(), LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
         if (userId != null) {
             log.debug("Recording usage for user: {} on coupon: {}", userId, coupon.getId());
-            couponUsageRepository.upsertUsage(UUID.randomUUID(), coupon.getId(), userId, LocalDateTime.now());
+            if (userUsageBuffer.isEnabled()) {
+                if (!userUsageBuffer.tryRecord(coupon, userId)) {
+                    log.error("User {} has reached usage limit for coupon: {}", userId, coupon.getId());
+                    throw new CouponNotApplicableException(Constants.USER_USAGE_LIMIT_REACHED);
+                }
+            } else if (coupon.getUsageLimitPerUser() == null) {
+                couponUsageRepository.upsertUsage(UUID.randomUUID(), coupon.getId(), userId, now);
+            } else if (couponUsageRepository.upsertUsageWithinLimit(UUID.randomUUID(), coupon.getId(), userId,
+                    coupon.getUsageLimitPerUser(), now) == 0) {
+                log.error("User {} has reached usage limit for coupon: {}", userId, coupon.getId());
+                throw new CouponNotApplicableException(Constants.USER_USAGE_LIMIT_REACHED);
+            }
+        }
+        log.debug("Updating usage count for coupon: {}", coupon.getId());
+        if (!couponUsageCounter.tryIncrement(coupon)) {
+            log.error("Coupon {} has reached its maximum usage limit", coupon.getId());
+            throw new CouponNotApplicableException(Constants.COUPON_USAGE_LIMIT_REACHED);
         }
     }
 }
@@ -1,44 +1,85 @@
 package com.monk.commerce.task.service.serviceImpl;
 
+import com.monk.commerce.task.campaign.CampaignCodeGenerator;
+import com.monk.commerce.task.campaign.CampaignCodeWriter;
+import com.monk.commerce.task.catalog.CouponCatalog;
+import com.monk.commerce.task.dto.request.CampaignCodeRequestDTO;
 import com.monk.commerce.task.dto.request.CouponRequestDTO;
+import com.monk.commerce.task.dto.response.CampaignCodeResponseDTO;
+import com.monk.commerce.task.dto.response.CouponImportResponseDTO;
+import com.monk.commerce.task.dto.response.CouponPageResponseDTO;
 import com.monk.commerce.task.dto.response.CouponResponseDTO;
 import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.enums.CouponType;
 import com.monk.commerce.task.exception.CouponNotFoundException;
 import com.monk.commerce.task.exception.InvalidCouponException;
+import com.monk.commerce.task.importer.CouponImporter;
 import com.monk.commerce.task.mapper.CouponMapper;
 import com.monk.commerce.task.repository.CouponRepository;
+import com.monk.commerce.task.repository.projection.CouponKeyView;
 import com.monk.commerce.task.service.CouponService;
+import com.monk.commerce.task.usage.CouponUsageCounter;
 import com.monk.commerce.task.util.Constants;
+import com.monk.commerce.task.util.CouponCursor;
 import com.monk.commerce.task.util.CouponUtil;
 import com.monk.commerce.task.validator.CouponValidator;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class CouponServiceImpl implements CouponService {
 
     private static final Logger log = LoggerFactory.getLogger(CouponServiceImpl.class);
+    private static final int STREAM_WINDOW_SIZE = 256;
 
     private final CouponRepository couponRepository;
     private final CouponMapper couponMapper;
     private final CouponValidator couponValidator;
+    private final CouponCatalog couponCatalog;
+    private final CouponUsageCounter couponUsageCounter;
+    private final CouponImporter couponImporter;
+    private final CampaignCodeGenerator campaignCodeGenerator;
+    private final CampaignCodeWriter campaignCodeWriter;
+    private final EntityManager entityManager;
 
     public CouponServiceImpl(
             CouponRepository couponRepository,
             CouponMapper couponMapper,
-            CouponValidator couponValidator) {
+            CouponValidator couponValidator,
+            CouponCatalog couponCatalog,
+            CouponUsageCounter couponUsageCounter,
+            CouponImporter couponImporter,
+            CampaignCodeGenerator campaignCodeGenerator,
+            CampaignCodeWriter campaignCodeWriter,
+            EntityManager entityManager) {
         this.couponRepository = couponRepository;
         this.couponMapper = couponMapper;
         this.couponValidator = couponValidator;
+        this.couponCatalog = couponCatalog;
+        this.couponUsageCounter = couponUsageCounter;
+        this.couponImporter = couponImporter;
+        this.campaignCodeGenerator = campaignCodeGenerator;
+        this.campaignCodeWriter = campaignCodeWriter;
+        this.entityManager = entityManager;
     }
 
     @Override
@@ -53,10 +94,28 @@ public class CouponServiceImpl implements CouponService {
         }
         Coupon coupon = couponMapper.toEntity(request);
         Coupon savedCoupon = couponRepository.save(coupon);
+        couponCatalog.upsertAfterCommit(savedCoupon.getId());
         log.info("Created coupon: {} with code: {}", savedCoupon.getId(), savedCoupon.getCouponCode());
         return couponMapper.toResponseDTO(savedCoupon);
     }
 
+    /**
+     * Runs outside a transaction: the importer commits each chunk on its own. The catalog is
+     * reloaded once at the end instead of patching in every imported coupon.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CouponImportResponseDTO importCoupons(InputStream input) {
+        Objects.requireNonNull(input, "Import input cannot be null");
+        log.debug("Importing coupons");
+        CouponImportResponseDTO response = couponImporter.importCoupons(input);
+        if (response.getImported() > 0) {
+            couponCatalog.refresh();
+        }
+        log.info("Imported {} coupons, {} rows failed", response.getImported(), response.getFailed());
+        return response;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<CouponResponseDTO> getAllCoupons() {
@@ -72,6 +131,87 @@ public class CouponServiceImpl implements CouponService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Streams the IDs of the active coupons and loads them a window at a time with their
+     * exclusions, so the number of queries grows with the windows rather than the coupons.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCoupons(Consumer<CouponResponseDTO> consumer) {
+        log.debug("Streaming all active coupons");
+        long streamed = 0;
+        List<UUID> window = new ArrayList<>(STREAM_WINDOW_SIZE);
+        try (Stream<UUID> ids = couponRepository.streamAllActiveCouponIds()) {
+            Iterator<UUID> iterator = ids.iterator();
+            while (iterator.hasNext()) {
+                window.add(iterator.next());
+                if (window.size() == STREAM_WINDOW_SIZE || !iterator.hasNext()) {
+                    streamed += streamWindow(window, consumer);
+                    window.clear();
+                }
+            }
+        }
+        log.info("Streamed {} active coupons", streamed);
+    }
+
+    private int streamWindow(List<UUID> ids, Consumer<CouponResponseDTO> consumer) {
+        Map<UUID, Coupon> coupons = couponRepository.findAllActiveByIdIn(ids).stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity(), (first, second) -> first));
+        int streamed = 0;
+        // Keeps the ID order; a coupon deactivated since its ID was read is left out
+        for (UUID id : ids) {
+            Coupon coupon = coupons.get(id);
+            if (coupon != null) {
+                consumer.accept(couponMapper.toResponseDTO(coupon));
+                streamed++;
+            }
+        }
+        // Mapped coupons are not needed again, keep the persistence context from growing
+        entityManager.clear();
+        return streamed;
+    }
+
+    /**
+     * Fetches one more key than the page size to tell whether another page follows, then loads
+     * the page's coupons with their exclusions in one query; BxGy products follow by subselect.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CouponPageResponseDTO getCouponPage(String type, LocalDateTime expiresFrom, LocalDateTime expiresTo,
+                                               Long productId, String cursor, Integer size) {
+        int pageSize = size != null ? size : Constants.DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > Constants.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format(Constants.INVALID_PAGE_SIZE, Constants.MAX_PAGE_SIZE));
+        }
+        if (expiresFrom != null && expiresTo != null && !expiresFrom.isBefore(expiresTo)) {
+            throw new IllegalArgumentException(Constants.INVALID_EXPIRY_WINDOW);
+        }
+        CouponType couponType = type != null ? CouponType.fromValue(type) : null;
+        CouponCursor after = CouponCursor.decode(cursor);
+        log.debug("Fetching coupon page of {} after cursor: {}", pageSize, after);
+        List<CouponKeyView> keys = couponRepository.findActivePageKeys(couponType, expiresFrom, expiresTo, productId,
+                after != null ? after.createdAt() : null, after != null ? after.id() : null,
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = keys.size() > pageSize;
+        List<CouponKeyView> pageKeys = hasMore ? keys.subList(0, pageSize) : keys;
+        Map<UUID, Coupon> coupons = pageKeys.isEmpty() ? Map.of() :
+                couponRepository.findAllActiveByIdIn(pageKeys.stream().map(CouponKeyView::id).toList()).stream()
+                        .collect(Collectors.toMap(Coupon::getId, Function.identity(), (first, second) -> first));
+        // Keeps the key order; a coupon deactivated since the keys were read is left out
+        List<CouponResponseDTO> page = pageKeys.stream()
+                .map(key -> coupons.get(key.id()))
+                .filter(Objects::nonNull)
+                .map(couponMapper::toResponseDTO)
+                .collect(Collectors.toList());
+        CouponKeyView last = pageKeys.isEmpty() ? null : pageKeys.get(pageKeys.size() - 1);
+        log.info("Fetched page of {} coupons, more: {}", page.size(), hasMore);
+        return CouponPageResponseDTO.builder()
+                .coupons(page)
+                .nextCursor(hasMore ? new CouponCursor(last.createdAt(), last.id()).encode() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Override
     @Transactional(readOnly = true)
     public CouponResponseDTO getCouponById(UUID id) {
@@ -103,8 +243,14 @@ public class CouponServiceImpl implements CouponService {
             throw new InvalidCouponException("Coupon code already exists: " + request.getCouponCode());
         }
         log.debug("Applying updates to coupon: {}", id);
+        Long previousMaxUsageLimit = existingCoupon.getMaxUsageLimit();
         couponMapper.updateEntity(existingCoupon, request);
         Coupon updatedCoupon = couponRepository.save(existingCoupon);
+        if (updatedCoupon.getMaxUsageLimit() != null && !updatedCoupon.getMaxUsageLimit().equals(previousMaxUsageLimit)) {
+            // Uses counted under the previous limit may sit in slots the new quotas do not cover
+            couponUsageCounter.rebalance(id);
+        }
+        couponCatalog.upsertAfterCommit(id);
         log.info("Updated coupon: {} with code: {}", id, updatedCoupon.getCouponCode());
         return couponMapper.toResponseDTO(updatedCoupon);
     }
@@ -118,6 +264,44 @@ public class CouponServiceImpl implements CouponService {
             log.warn("Coupon not found for deletion: {}", id);
             throw new CouponNotFoundException(String.format(Constants.COUPON_NOT_FOUND, id));
         }
+        couponCatalog.removeAfterCommit(id);
         log.info("Soft deleted coupon: {}", id);
     }
+
+    /**
+     * Runs outside a transaction: the generator commits each chunk of codes on its own.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CampaignCodeResponseDTO generateCampaignCodes(UUID couponId, CampaignCodeRequestDTO request) {
+        Objects.requireNonNull(request, "Campaign code request cannot be null");
+        log.debug("Generating {} campaign codes for coupon: {}", request.getCount(), couponId);
+        requireActiveCoupon(couponId);
+        int generated = campaignCodeGenerator.generate(
+                couponId,
+                request.getCount(),
+                request.getAlphabet() != null ? request.getAlphabet() : Constants.CAMPAIGN_CODE_ALPHABET,
+                request.getPrefix() != null ? request.getPrefix() : "",
+                request.getLength() != null ? request.getLength() : Constants.DEFAULT_CAMPAIGN_CODE_LENGTH);
+        return CampaignCodeResponseDTO.builder()
+                .couponId(couponId)
+                .generated(generated)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamCampaignCodes(UUID couponId, Consumer<String> consumer) {
+        log.debug("Streaming campaign codes of coupon: {}", couponId);
+        requireActiveCoupon(couponId);
+        campaignCodeWriter.streamCodes(couponId, consumer);
+    }
+
+    private void requireActiveCoupon(UUID couponId) {
+        couponValidator.validateCouponId(couponId);
+        if (!couponRepository.existsActiveById(couponId)) {
+            log.warn("Coupon not found with ID: {}", couponId);
+            throw new CouponNotFoundException(String.format(Constants.COUPON_NOT_FOUND, couponId));
+        }
+    }
 }
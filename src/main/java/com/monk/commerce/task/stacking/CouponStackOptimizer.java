@@ -0,0 +1,244 @@
+package com.monk.commerce.task.stacking;
+
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.strategy.CouponEvaluation;
+import com.monk.commerce.task.util.CartIndex;
+import com.monk.commerce.task.util.DiscountCalculator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Finds the set of coupons with the largest combined discount on a cart. A coupon that does
+ * not allow stacking can only be used alone; stackable coupons combine as follows:
+ * <ul>
+ *     <li>product-wise and BxGy discounts add up per product line, a line never going below zero</li>
+ *     <li>cart-wise coupons then apply in catalog order to what is left of the cart total, each
+ *     checking its threshold against that remainder</li>
+ * </ul>
+ * Since item discounts can push the remainder below a cart-wise threshold, taking every
+ * stackable coupon is not always best. The search is a depth-first branch and bound over
+ * include/exclude decisions, seeded with the best single coupon and pruned with the sum of the
+ * single discounts still undecided. It stops at the time budget and returns the best set found.
+ * Only the {@value #MAX_STACKABLE_CANDIDATES} stackable coupons with the largest single discounts
+ * are searched.
+ */
+@Component
+public class CouponStackOptimizer {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponStackOptimizer.class);
+    // Nodes between two reads of the clock
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+    // Bounds the search depth; beyond it only the stackable coupons with the largest single discounts are searched
+    private static final int MAX_STACKABLE_CANDIDATES = 64;
+
+    private final long timeBudgetNanos;
+
+    public CouponStackOptimizer(@Value("${coupon.stacking.time-budget-ms:50}") long timeBudgetMs) {
+        this.timeBudgetNanos = timeBudgetMs * 1_000_000L;
+    }
+
+    /**
+     * Coupon applicable to the cart on its own, with its single-coupon evaluation.
+     */
+    public record Candidate(Coupon coupon, CouponEvaluation evaluation) {
+    }
+
+    /**
+     * Chosen coupons with what each contributes to the combined discount, in application order,
+     * and the combined evaluation. {@code optimal} is false when the time budget ran out first or
+     * not every stackable coupon was searched.
+     */
+    public record Stack(List<Candidate> coupons, List<BigDecimal> discounts, CouponEvaluation evaluation, boolean optimal) {
+    }
+
+    /**
+     * Candidates are expected in catalog order, which is also the order cart-wise coupons apply in.
+     */
+    public Stack optimize(List<Candidate> candidates, CartIndex cartIndex) {
+        Objects.requireNonNull(candidates, "Candidates cannot be null");
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
+        Search search = new Search(candidates, cartIndex, System.nanoTime() + timeBudgetNanos);
+        search.run();
+        log.debug("Stacking search over {} candidates visited {} nodes, best discount: {}, optimal: {}",
+                candidates.size(), search.nodes, search.bestDiscount, !search.timedOut && !search.truncated);
+        return search.toStack();
+    }
+
+    private static final class Search {
+
+        private final CartIndex cartIndex;
+        private final long deadline;
+        // Stackable candidates, product-level ones by discount first, then cart-wise ones in catalog order
+        private final List<Candidate> order = new ArrayList<>();
+        // Sum of the single discounts from each position to the end
+        private final BigDecimal[] remainingBound;
+        private final Map<Long, BigDecimal> lineDiscounts = new HashMap<>();
+        private final List<Candidate> chosen = new ArrayList<>();
+        private final List<BigDecimal> contributions = new ArrayList<>();
+
+        private BigDecimal bestDiscount = BigDecimal.ZERO;
+        private List<Candidate> bestCoupons = List.of();
+        private List<BigDecimal> bestContributions = List.of();
+        private Map<Long, BigDecimal> bestLineDiscounts = Map.of();
+        private long nodes;
+        private boolean timedOut;
+        private boolean truncated;
+
+        Search(List<Candidate> candidates, CartIndex cartIndex, long deadline) {
+            this.cartIndex = cartIndex;
+            this.deadline = deadline;
+            List<Candidate> stackable = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                if (!candidate.evaluation().applicable() || candidate.evaluation().discount().signum() <= 0) {
+                    continue;
+                }
+                if (candidate.evaluation().discount().compareTo(bestDiscount) > 0) {
+                    bestDiscount = candidate.evaluation().discount();
+                    bestCoupons = List.of(candidate);
+                    bestContributions = List.of(bestDiscount);
+                    bestLineDiscounts = candidate.evaluation().lineDiscounts();
+                }
+                if (Boolean.TRUE.equals(candidate.coupon().getAllowStacking())) {
+                    stackable.add(candidate);
+                }
+            }
+            if (stackable.size() > MAX_STACKABLE_CANDIDATES) {
+                List<Candidate> largest = new ArrayList<>(stackable);
+                largest.sort(Comparator.comparing((Candidate candidate) -> candidate.evaluation().discount()).reversed());
+                BigDecimal smallestKept = largest.get(MAX_STACKABLE_CANDIDATES - 1).evaluation().discount();
+                int equalSlots = MAX_STACKABLE_CANDIDATES;
+                for (Candidate candidate : largest) {
+                    if (candidate.evaluation().discount().compareTo(smallestKept) <= 0) {
+                        break;
+                    }
+                    equalSlots--;
+                }
+                // Keeps catalog order; among equal discounts at the cut the earlier coupons stay
+                List<Candidate> kept = new ArrayList<>(MAX_STACKABLE_CANDIDATES);
+                for (Candidate candidate : stackable) {
+                    int comparison = candidate.evaluation().discount().compareTo(smallestKept);
+                    if (comparison > 0 || (comparison == 0 && equalSlots-- > 0)) {
+                        kept.add(candidate);
+                    }
+                }
+                stackable = kept;
+                truncated = true;
+            }
+            List<Candidate> cartWise = new ArrayList<>();
+            for (Candidate candidate : stackable) {
+                if (candidate.coupon() instanceof CartWiseCoupon) {
+                    cartWise.add(candidate);
+                } else {
+                    order.add(candidate);
+                }
+            }
+            order.sort(Comparator.comparing((Candidate candidate) -> candidate.evaluation().discount()).reversed());
+            order.addAll(cartWise);
+            remainingBound = new BigDecimal[order.size() + 1];
+            remainingBound[order.size()] = BigDecimal.ZERO;
+            for (int position = order.size() - 1; position >= 0; position--) {
+                remainingBound[position] = remainingBound[position + 1].add(order.get(position).evaluation().discount());
+            }
+        }
+
+        void run() {
+            search(0, BigDecimal.ZERO, cartIndex.getTotal());
+        }
+
+        private void search(int position, BigDecimal discount, BigDecimal remainingTotal) {
+            if (timedOut || (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline)) {
+                timedOut = true;
+                return;
+            }
+            if (discount.compareTo(bestDiscount) > 0) {
+                bestDiscount = discount;
+                bestCoupons = List.copyOf(chosen);
+                bestContributions = List.copyOf(contributions);
+                bestLineDiscounts = Map.copyOf(lineDiscounts);
+            }
+            if (position == order.size() || discount.add(remainingBound[position]).compareTo(bestDiscount) <= 0) {
+                return;
+            }
+            Candidate candidate = order.get(position);
+            if (candidate.coupon() instanceof CartWiseCoupon cartWiseCoupon) {
+                BigDecimal contribution = cartWiseDiscount(cartWiseCoupon, remainingTotal);
+                if (contribution.signum() > 0) {
+                    include(candidate, contribution);
+                    search(position + 1, discount.add(contribution), remainingTotal.subtract(contribution));
+                    exclude();
+                }
+            } else {
+                Map<Long, BigDecimal> previous = new HashMap<>();
+                BigDecimal contribution = addLineDiscounts(candidate.evaluation(), previous);
+                if (contribution.signum() > 0) {
+                    include(candidate, contribution);
+                    search(position + 1, discount.add(contribution), remainingTotal.subtract(contribution));
+                    exclude();
+                }
+                restoreLineDiscounts(previous);
+            }
+            search(position + 1, discount, remainingTotal);
+        }
+
+        private BigDecimal cartWiseDiscount(CartWiseCoupon coupon, BigDecimal remainingTotal) {
+            if (remainingTotal.compareTo(coupon.getThresholdAmount()) < 0) {
+                return BigDecimal.ZERO;
+            }
+            BigDecimal discount = DiscountCalculator.calculatePercentageDiscount(remainingTotal, coupon.getDiscountPercentage());
+            return DiscountCalculator.calculateDiscountWithCap(discount, coupon.getMaxDiscountAmount()).min(remainingTotal);
+        }
+
+        // Adds the evaluation's line discounts without taking a line below zero; previous receives the values to restore
+        private BigDecimal addLineDiscounts(CouponEvaluation evaluation, Map<Long, BigDecimal> previous) {
+            BigDecimal contribution = BigDecimal.ZERO;
+            for (Map.Entry<Long, BigDecimal> line : evaluation.lineDiscounts().entrySet()) {
+                long productId = line.getKey();
+                BigDecimal current = lineDiscounts.getOrDefault(productId, BigDecimal.ZERO);
+                BigDecimal added = line.getValue().min(cartIndex.getLineTotal(productId).subtract(current));
+                if (added.signum() > 0) {
+                    previous.put(productId, current);
+                    lineDiscounts.put(productId, current.add(added));
+                    contribution = contribution.add(added);
+                }
+            }
+            return contribution;
+        }
+
+        private void restoreLineDiscounts(Map<Long, BigDecimal> previous) {
+            previous.forEach((productId, value) -> {
+                if (value.signum() == 0) {
+                    lineDiscounts.remove(productId);
+                } else {
+                    lineDiscounts.put(productId, value);
+                }
+            });
+        }
+
+        private void include(Candidate candidate, BigDecimal contribution) {
+            chosen.add(candidate);
+            contributions.add(contribution);
+        }
+
+        private void exclude() {
+            chosen.remove(chosen.size() - 1);
+            contributions.remove(contributions.size() - 1);
+        }
+
+        Stack toStack() {
+            CouponEvaluation evaluation = bestCoupons.isEmpty() ? CouponEvaluation.notApplicable() :
+                    CouponEvaluation.applicable(bestDiscount, bestLineDiscounts);
+            return new Stack(bestCoupons, bestContributions, evaluation, !timedOut && !truncated);
+        }
+    }
+}
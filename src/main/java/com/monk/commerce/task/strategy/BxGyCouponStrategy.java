@@ -1,28 +1,24 @@
 package com.monk.commerce.task.strategy;
 
-import com.monk.commerce.task.dto.request.CartItemDTO;
-import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
-import com.monk.commerce.task.dto.response.CartItemResponseDTO;
-import com.monk.commerce.task.dto.response.UpdatedCartDTO;
 import com.monk.commerce.task.entity.BxGyCoupon;
 import com.monk.commerce.task.entity.Coupon;
-import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.enums.TierSelection;
 import com.monk.commerce.task.exception.CouponNotApplicableException;
-import com.monk.commerce.task.util.CartUtil;
+import com.monk.commerce.task.util.BxGyTierTable;
+import com.monk.commerce.task.util.CartIndex;
 import com.monk.commerce.task.util.Constants;
 import com.monk.commerce.task.util.CouponUtil;
-import com.monk.commerce.task.util.DiscountCalculator;
+import com.monk.commerce.task.util.FixedPointMoney;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 
 @Component
 public class BxGyCouponStrategy implements CouponStrategy {
@@ -30,205 +26,188 @@ public class BxGyCouponStrategy implements CouponStrategy {
     private static final Logger log = LoggerFactory.getLogger(BxGyCouponStrategy.class);
 
     @Override
-    public boolean isApplicable(Coupon coupon, CartRequestDTO cart) {
+    public CouponEvaluation evaluate(Coupon coupon, CartIndex cartIndex) {
         Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
         if (!(coupon instanceof BxGyCoupon)) {
-            return false;
+            return CouponEvaluation.notApplicable();
         }
-        if (CouponUtil.hasExcludedProducts(coupon, cart)) {
-            log.debug("Cart contains excluded products for BxGy coupon: {}", coupon.getId());
-            return false;
+        return compile(coupon).evaluate(cartIndex);
+    }
+
+    @Override
+    public CouponEvaluator compile(Coupon coupon) {
+        Objects.requireNonNull(coupon, "Coupon cannot be null");
+        if (!(coupon instanceof BxGyCoupon)) {
+            throw new IllegalArgumentException("Invalid coupon type for BxGyCouponStrategy");
         }
-        BxGyCoupon bxGyCoupon = (BxGyCoupon) coupon;
-        Map<Long, Integer> cartProductQuantities = CartUtil.getCartProductQuantities(cart);
-        boolean isTiered = Boolean.TRUE.equals(bxGyCoupon.getIsTiered());
-        log.debug("Checking BxGy applicability for coupon: {} (tiered: {})", coupon.getId(), isTiered);
-        return isTiered ? isApplicableForTiered(bxGyCoupon, cartProductQuantities) : isApplicableForSimple(bxGyCoupon, cartProductQuantities);
+        return new CompiledBxGyCoupon((BxGyCoupon) coupon);
     }
 
     @Override
-    public BigDecimal calculateDiscount(Coupon coupon, CartRequestDTO cart) {
+    public BigDecimal calculateDiscount(Coupon coupon, CartIndex cartIndex) {
         Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
         if (!(coupon instanceof BxGyCoupon)) {
             throw new IllegalArgumentException("Invalid coupon type for BxGyCouponStrategy");
         }
-        BxGyCoupon bxGyCoupon = (BxGyCoupon) coupon;
-        if (!isApplicable(coupon, cart)) {
+        CouponEvaluation evaluation = evaluate(coupon, cartIndex);
+        if (!evaluation.applicable()) {
             log.warn("BxGy coupon {} not applicable to cart", coupon.getId());
             throw new CouponNotApplicableException(Constants.BXGY_CONDITION_NOT_MET);
         }
-        log.debug("Calculating discount for BxGy coupon: {}", coupon.getId());
-        return Boolean.TRUE.equals(bxGyCoupon.getIsTiered()) ? calculateDiscountForTiered(bxGyCoupon, cart) : calculateDiscountForSimple(bxGyCoupon, cart);
+        log.info("BxGy discount calculated: {}", evaluation.discount());
+        return evaluation.discount();
     }
 
     @Override
-    public AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartRequestDTO cart) {
+    public AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartIndex cartIndex) {
         Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
-        BxGyCoupon bxGyCoupon = (BxGyCoupon) coupon;
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
         log.debug("Applying BxGy coupon: {} to cart", coupon.getId());
-        return Boolean.TRUE.equals(bxGyCoupon.getIsTiered()) ? applyCouponForTiered(bxGyCoupon, cart) : applyCouponForSimple(bxGyCoupon, cart);
+        CouponEvaluation evaluation = evaluate(coupon, cartIndex);
+        log.info("Applied BxGy coupon with {} free items", evaluation.lineDiscounts().size());
+        return evaluation.toAppliedResponse(cartIndex);
     }
 
-    private boolean isApplicableForSimple(BxGyCoupon coupon, Map<Long, Integer> cartQuantities) {
-        int buyQuantityInCart = CartUtil.calculateBuyQuantityInCart(coupon, cartQuantities, 1);
-        int totalBuyQuantity = CartUtil.getTotalBuyQuantity(coupon, 1);
-        log.debug("BxGy simple check - Buy quantity in cart: {}, Required: {}", buyQuantityInCart, totalBuyQuantity);
-        if (buyQuantityInCart < totalBuyQuantity) {
-            return false;
+    /**
+     * The largest sum over a tier of its get products' line totals, since no get product is
+     * given away more often than it is in the cart.
+     */
+    @Override
+    public BigDecimal upperBound(Coupon coupon, CartIndex cartIndex) {
+        if (!(coupon instanceof BxGyCoupon)) {
+            return null;
         }
-        return coupon.getGetProducts().stream()
-                .filter(gp -> gp.getTierLevel() == 1)
-                .anyMatch(gp -> cartQuantities.containsKey(gp.getProductId()));
+        return compile(coupon).upperBound(cartIndex);
     }
 
-    private boolean isApplicableForTiered(BxGyCoupon coupon, Map<Long, Integer> cartQuantities) {
-        int maxTier = CouponUtil.getMaxTierLevel(coupon);
-        log.debug("BxGy tiered check - Max tier: {}", maxTier);
-        for (int tier = maxTier; tier >= 1; tier--) {
-            int buyQuantityInCart = CartUtil.calculateBuyQuantityInCart(coupon, cartQuantities, tier);
-            int totalBuyQuantity = CartUtil.getTotalBuyQuantity(coupon, tier);
-            log.debug("Checking tier {} - Buy quantity: {}, Required: {}", tier, buyQuantityInCart, totalBuyQuantity);
-            if (buyQuantityInCart >= totalBuyQuantity) {
-                int finalTier = tier;
-                boolean hasGetProducts = coupon.getGetProducts().stream()
-                        .filter(gp -> gp.getTierLevel() == finalTier)
-                        .anyMatch(gp -> cartQuantities.containsKey(gp.getProductId()));
-                if (hasGetProducts) {
-                    log.debug("Tier {} is applicable", tier);
-                    return true;
-                }
-            }
+    /**
+     * BxGy coupon with its tier table, excluded products in an array, and the tier range and
+     * selection mode resolved up front.
+     */
+    private static final class CompiledBxGyCoupon implements CouponEvaluator {
+
+        private final UUID couponId;
+        private final long[] excludedProductIds;
+        private final BxGyTierTable tierTable;
+        private final boolean tiered;
+        // Highest tier to scan: the table's maximum for tiered coupons, otherwise tier 1
+        private final int maxTier;
+        private final boolean bestValue;
+        private final int repetitionLimit;
+
+        CompiledBxGyCoupon(BxGyCoupon coupon) {
+            this.couponId = coupon.getId();
+            this.excludedProductIds = CouponUtil.getExcludedProductIds(coupon);
+            this.tierTable = coupon.getTierTable();
+            this.tiered = Boolean.TRUE.equals(coupon.getIsTiered());
+            this.maxTier = tiered ? tierTable.getMaxTier() : 1;
+            this.bestValue = tiered && coupon.getTierSelection() == TierSelection.BEST_VALUE;
+            this.repetitionLimit = coupon.getRepetitionLimit();
         }
-        return false;
-    }
 
-    private BigDecimal calculateDiscountForSimple(BxGyCoupon coupon, CartRequestDTO cart) {
-        Map<Long, Integer> cartProductQuantities = CartUtil.getCartProductQuantities(cart);
-        Map<Long, BigDecimal> productPrices = CartUtil.getProductPrices(cart);
-        int buyQuantityInCart = CartUtil.calculateBuyQuantityInCart(coupon, cartProductQuantities, 1);
-        int totalBuyQuantity = CartUtil.getTotalBuyQuantity(coupon, 1);
-        int possibleApplications = Math.min(buyQuantityInCart / totalBuyQuantity, coupon.getRepetitionLimit());
-        log.debug("BxGy simple - Possible applications: {}", possibleApplications);
-        BigDecimal totalDiscount = BigDecimal.ZERO;
-        for (GetProduct getProduct : coupon.getGetProducts()) {
-            if (getProduct.getTierLevel() != 1) continue;
-            Long productId = getProduct.getProductId();
-            Integer quantityInCart = cartProductQuantities.getOrDefault(productId, 0);
-            if (quantityInCart > 0) {
-                int freeQuantity = Math.min(getProduct.getQuantity() * possibleApplications, quantityInCart);
-                BigDecimal productPrice = productPrices.getOrDefault(productId, BigDecimal.ZERO);
-                BigDecimal discount = productPrice.multiply(BigDecimal.valueOf(freeQuantity));
-                totalDiscount = totalDiscount.add(discount);
-                log.debug("Free quantity for product {}: {}, Discount: {}", productId, freeQuantity, discount);
+        /**
+         * Scans the tiers once, from the highest down for tiered coupons and only tier 1 otherwise.
+         * A tier applies when its buy requirement is met and its get products are in the cart; the
+         * first such tier is applied, or with {@link TierSelection#BEST_VALUE} the one with the
+         * largest discount. Its free quantities give both the line discounts and the total.
+         */
+        @Override
+        public CouponEvaluation evaluate(CartIndex cartIndex) {
+            if (cartIndex.containsAny(excludedProductIds)) {
+                log.debug("Cart contains excluded products for BxGy coupon: {}", couponId);
+                return CouponEvaluation.notApplicable();
+            }
+            log.debug("Evaluating BxGy coupon: {} (tiered: {})", couponId, tiered);
+            if (cartIndex.isFixedPoint()) {
+                try {
+                    return evaluateTiers(cartIndex, true);
+                } catch (ArithmeticException e) {
+                    log.debug("BxGy coupon {} exceeds fixed-point range, using BigDecimal", couponId);
+                }
             }
+            return evaluateTiers(cartIndex, false);
         }
-        log.info("BxGy simple discount calculated: {}", totalDiscount);
-        return totalDiscount;
-    }
 
-    private BigDecimal calculateDiscountForTiered(BxGyCoupon coupon, CartRequestDTO cart) {
-        Map<Long, Integer> cartProductQuantities = CartUtil.getCartProductQuantities(cart);
-        Map<Long, BigDecimal> productPrices = CartUtil.getProductPrices(cart);
-        int maxTier = CouponUtil.getMaxTierLevel(coupon);
-        for (int tier = maxTier; tier >= 1; tier--) {
-            int buyQuantityInCart = CartUtil.calculateBuyQuantityInCart(coupon, cartProductQuantities, tier);
-            int totalBuyQuantity = CartUtil.getTotalBuyQuantity(coupon, tier);
-            if (buyQuantityInCart >= totalBuyQuantity) {
-                int possibleApplications = Math.min(buyQuantityInCart / totalBuyQuantity, coupon.getRepetitionLimit());
-                log.debug("BxGy tiered - Tier {}, Possible applications: {}", tier, possibleApplications);
-                BigDecimal tierDiscount = BigDecimal.ZERO;
-                for (GetProduct getProduct : coupon.getGetProducts()) {
-                    if (getProduct.getTierLevel() != tier) continue;
-                    Long productId = getProduct.getProductId();
-                    Integer quantityInCart = cartProductQuantities.getOrDefault(productId, 0);
+        /**
+         * Built from the same inputs as {@link #evaluateTier}: each get product is discounted at its
+         * indexed price for at most its whole quantity in the cart. The line total is no bound,
+         * since repeated lines of a product at different prices all count at the indexed price.
+         */
+        @Override
+        public BigDecimal upperBound(CartIndex cartIndex) {
+            BigDecimal bound = BigDecimal.ZERO;
+            for (int tier = 1; tier <= maxTier; tier++) {
+                BigDecimal tierBound = BigDecimal.ZERO;
+                for (int position = 0; position < tierTable.getGetProductCount(tier); position++) {
+                    long productId = tierTable.getGetProductId(tier, position);
+                    int quantityInCart = cartIndex.getQuantity(productId);
                     if (quantityInCart > 0) {
-                        int freeQuantity = Math.min(getProduct.getQuantity() * possibleApplications, quantityInCart);
-                        BigDecimal productPrice = productPrices.getOrDefault(productId, BigDecimal.ZERO);
-                        BigDecimal discount = productPrice.multiply(BigDecimal.valueOf(freeQuantity));
-                        tierDiscount = tierDiscount.add(discount);
+                        tierBound = tierBound.add(cartIndex.getPrice(productId).multiply(BigDecimal.valueOf(quantityInCart)));
                     }
                 }
-                if (tierDiscount.compareTo(BigDecimal.ZERO) > 0) {
-                    log.info("Applied tier {} for BxGy coupon: {} with discount: {}", tier, coupon.getId(), tierDiscount);
-                    return tierDiscount;
-                }
+                bound = bound.max(tierBound);
             }
+            return bound;
         }
-        return BigDecimal.ZERO;
-    }
 
-    private AppliedCouponResponseDTO applyCouponForSimple(BxGyCoupon coupon, CartRequestDTO cart) {
-        Map<Long, Integer> cartProductQuantities = CartUtil.getCartProductQuantities(cart);
-        int buyQuantityInCart = CartUtil.calculateBuyQuantityInCart(coupon, cartProductQuantities, 1);
-        int totalBuyQuantity = CartUtil.getTotalBuyQuantity(coupon, 1);
-        int possibleApplications = Math.min(buyQuantityInCart / totalBuyQuantity, coupon.getRepetitionLimit());
-        Map<Long, Integer> freeQuantities = new HashMap<>();
-        for (GetProduct getProduct : coupon.getGetProducts()) {
-            if (getProduct.getTierLevel() != 1) continue;
-            Long productId = getProduct.getProductId();
-            Integer quantityInCart = cartProductQuantities.getOrDefault(productId, 0);
-            if (quantityInCart > 0) {
-                int freeQuantity = Math.min(getProduct.getQuantity() * possibleApplications, quantityInCart);
-                freeQuantities.put(productId, freeQuantity);
+        private CouponEvaluation evaluateTiers(CartIndex cartIndex, boolean fixedPoint) {
+            CouponEvaluation best = CouponEvaluation.notApplicable();
+            for (int tier = maxTier; tier >= 1; tier--) {
+                CouponEvaluation evaluation = evaluateTier(cartIndex, tier, fixedPoint);
+                if (!evaluation.applicable()) {
+                    continue;
+                }
+                log.debug("Tier {} is applicable for BxGy coupon: {} with discount: {}", tier, couponId, evaluation.discount());
+                if (!bestValue) {
+                    return evaluation;
+                }
+                // Strictly greater, so the higher tier keeps a tie
+                if (!best.applicable() || evaluation.discount().compareTo(best.discount()) > 0) {
+                    best = evaluation;
+                }
             }
+            return best;
         }
-        log.info("Applied BxGy simple coupon with {} free items", freeQuantities.size());
-        return buildResponse(cart, freeQuantities);
-    }
 
-    private AppliedCouponResponseDTO applyCouponForTiered(BxGyCoupon coupon, CartRequestDTO cart) {
-        Map<Long, Integer> cartProductQuantities = CartUtil.getCartProductQuantities(cart);
-        int maxTier = CouponUtil.getMaxTierLevel(coupon);
-        for (int tier = maxTier; tier >= 1; tier--) {
-            int buyQuantityInCart = CartUtil.calculateBuyQuantityInCart(coupon, cartProductQuantities, tier);
-            int totalBuyQuantity = CartUtil.getTotalBuyQuantity(coupon, tier);
-            if (buyQuantityInCart >= totalBuyQuantity) {
-                int possibleApplications = Math.min(buyQuantityInCart / totalBuyQuantity, coupon.getRepetitionLimit());
-                Map<Long, Integer> freeQuantities = new HashMap<>();
-                for (GetProduct getProduct : coupon.getGetProducts()) {
-                    if (getProduct.getTierLevel() != tier) continue;
-                    Long productId = getProduct.getProductId();
-                    Integer quantityInCart = cartProductQuantities.getOrDefault(productId, 0);
-                    if (quantityInCart > 0) {
-                        int freeQuantity = Math.min(getProduct.getQuantity() * possibleApplications, quantityInCart);
-                        freeQuantities.put(productId, freeQuantity);
+        private CouponEvaluation evaluateTier(CartIndex cartIndex, int tier, boolean fixedPoint) {
+            int buyQuantityInCart = tierTable.getBuyQuantityInCart(cartIndex, tier);
+            int totalBuyQuantity = tierTable.getRequiredBuyQuantity(tier);
+            log.debug("Checking tier {} - Buy quantity: {}, Required: {}", tier, buyQuantityInCart, totalBuyQuantity);
+            if (buyQuantityInCart < totalBuyQuantity) {
+                return CouponEvaluation.notApplicable();
+            }
+            int possibleApplications = Math.min(buyQuantityInCart / totalBuyQuantity, repetitionLimit);
+            Map<Long, BigDecimal> lineDiscounts = new HashMap<>();
+            BigDecimal totalDiscount = BigDecimal.ZERO;
+            // Fixed-point running total and the scale of the BigDecimal sum it stands for
+            long totalMinorUnits = 0;
+            int totalScale = 0;
+            for (int position = 0; position < tierTable.getGetProductCount(tier); position++) {
+                long productId = tierTable.getGetProductId(tier, position);
+                int quantityInCart = cartIndex.getQuantity(productId);
+                if (quantityInCart > 0) {
+                    int freeQuantity = Math.min(tierTable.getGetQuantity(tier, position) * possibleApplications, quantityInCart);
+                    BigDecimal discount;
+                    if (fixedPoint) {
+                        long discountMinorUnits = Math.multiplyExact(cartIndex.getPriceMinorUnits(productId), freeQuantity);
+                        int scale = cartIndex.getPriceScale(productId);
+                        totalMinorUnits = Math.addExact(totalMinorUnits, discountMinorUnits);
+                        totalScale = Math.max(totalScale, scale);
+                        discount = FixedPointMoney.toBigDecimal(discountMinorUnits, scale);
+                    } else {
+                        discount = cartIndex.getPrice(productId).multiply(BigDecimal.valueOf(freeQuantity));
+                        totalDiscount = totalDiscount.add(discount);
                     }
-                }
-                if (!freeQuantities.isEmpty()) {
-                    log.info("Applied BxGy tiered coupon at tier {} with {} free items", tier, freeQuantities.size());
-                    return buildResponse(cart, freeQuantities);
+                    lineDiscounts.merge(productId, discount, BigDecimal::add);
+                    log.debug("Free quantity for product {}: {}, Discount: {}", productId, freeQuantity, discount);
                 }
             }
+            if (fixedPoint) {
+                totalDiscount = FixedPointMoney.toBigDecimal(totalMinorUnits, totalScale);
+            }
+            return lineDiscounts.isEmpty() ? CouponEvaluation.notApplicable() : CouponEvaluation.applicableTier(tier, totalDiscount, lineDiscounts);
         }
-        return buildResponse(cart, new HashMap<>());
-    }
-
-    private AppliedCouponResponseDTO buildResponse(CartRequestDTO cart, Map<Long, Integer> freeQuantities) {
-        BigDecimal totalDiscount = BigDecimal.ZERO;
-        List<CartItemResponseDTO> responseItems = new ArrayList<>();
-        for (CartItemDTO item : cart.getItems()) {
-            Integer freeQty = freeQuantities.getOrDefault(item.getProductId(), 0);
-            BigDecimal itemDiscount = item.getPrice().multiply(BigDecimal.valueOf(freeQty));
-            totalDiscount = totalDiscount.add(itemDiscount);
-            responseItems.add(CartItemResponseDTO.builder()
-                    .productId(item.getProductId())
-                    .quantity(item.getQuantity())
-                    .price(item.getPrice())
-                    .totalDiscount(itemDiscount)
-                    .build());
-        }
-        BigDecimal cartTotal = CartUtil.calculateCartTotal(cart);
-        UpdatedCartDTO updatedCart = UpdatedCartDTO.builder()
-                .items(responseItems)
-                .totalPrice(cartTotal)
-                .totalDiscount(totalDiscount)
-                .finalPrice(DiscountCalculator.calculateFinalPrice(cartTotal, totalDiscount))
-                .build();
-        return AppliedCouponResponseDTO.builder()
-                .updatedCart(updatedCart)
-                .build();
     }
 }
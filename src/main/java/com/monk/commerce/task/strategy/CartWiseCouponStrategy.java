@@ -1,97 +1,169 @@
 package com.monk.commerce.task.strategy;
 
-import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
-import com.monk.commerce.task.dto.response.CartItemResponseDTO;
-import com.monk.commerce.task.dto.response.UpdatedCartDTO;
 import com.monk.commerce.task.entity.CartWiseCoupon;
 import com.monk.commerce.task.entity.Coupon;
 import com.monk.commerce.task.exception.CouponNotApplicableException;
-import com.monk.commerce.task.util.CartUtil;
+import com.monk.commerce.task.util.CartIndex;
 import com.monk.commerce.task.util.Constants;
 import com.monk.commerce.task.util.CouponUtil;
 import com.monk.commerce.task.util.DiscountCalculator;
+import com.monk.commerce.task.util.FixedPointMoney;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.math.RoundingMode;
+import java.util.Collections;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 @Component
 public class CartWiseCouponStrategy implements CouponStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(CartWiseCouponStrategy.class);
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
 
     @Override
-    public boolean isApplicable(Coupon coupon, CartRequestDTO cart) {
+    public CouponEvaluation evaluate(Coupon coupon, CartIndex cartIndex) {
         Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
         if (!(coupon instanceof CartWiseCoupon)) {
-            return false;
+            return CouponEvaluation.notApplicable();
         }
-        if (CouponUtil.hasExcludedProducts(coupon, cart)) {
-            log.debug("Cart contains excluded products for cart-wise coupon: {}", coupon.getId());
-            return false;
+        return compile(coupon).evaluate(cartIndex);
+    }
+
+    @Override
+    public CouponEvaluator compile(Coupon coupon) {
+        Objects.requireNonNull(coupon, "Coupon cannot be null");
+        if (!(coupon instanceof CartWiseCoupon)) {
+            throw new IllegalArgumentException("Invalid coupon type for CartWiseCouponStrategy");
         }
-        CartWiseCoupon cartWiseCoupon = (CartWiseCoupon) coupon;
-        BigDecimal eligibleCartTotal = CartUtil.calculateEligibleCartTotal(coupon, cart);
-        boolean applicable = eligibleCartTotal.compareTo(cartWiseCoupon.getThresholdAmount()) >= 0;
-        log.debug("Cart-wise coupon {} applicability: {} (Total: {}, Threshold: {})", coupon.getId(), applicable, eligibleCartTotal, cartWiseCoupon.getThresholdAmount());
-        return applicable;
+        return new CompiledCartWiseCoupon((CartWiseCoupon) coupon);
     }
 
     @Override
-    public BigDecimal calculateDiscount(Coupon coupon, CartRequestDTO cart) {
+    public BigDecimal calculateDiscount(Coupon coupon, CartIndex cartIndex) {
+        return evaluateApplicable(coupon, cartIndex).discount();
+    }
+
+    @Override
+    public AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartIndex cartIndex) {
+        CouponEvaluation evaluation = evaluateApplicable(coupon, cartIndex);
+        log.debug("Applying cart-wise coupon: {}", coupon.getId());
+        log.info("Applied cart-wise coupon with discount: {}", evaluation.discount());
+        return evaluation.toAppliedResponse(cartIndex);
+    }
+
+    /**
+     * The cap when there is one, otherwise the cart total rounded up to cents: a percentage of
+     * at most 100 of the eligible total, rounded half up to cents, stays below that.
+     */
+    @Override
+    public BigDecimal upperBound(Coupon coupon, CartIndex cartIndex) {
+        if (!(coupon instanceof CartWiseCoupon)) {
+            return null;
+        }
+        return compile(coupon).upperBound(cartIndex);
+    }
+
+    private CouponEvaluation evaluateApplicable(Coupon coupon, CartIndex cartIndex) {
         Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
         if (!(coupon instanceof CartWiseCoupon)) {
             throw new IllegalArgumentException("Invalid coupon type for CartWiseCouponStrategy");
         }
-        CartWiseCoupon cartWiseCoupon = (CartWiseCoupon) coupon;
-        if (!isApplicable(coupon, cart)) {
+        CouponEvaluation evaluation = evaluate(coupon, cartIndex);
+        if (!evaluation.applicable()) {
             log.error("Cart-wise coupon {} threshold not met", coupon.getId());
             throw new CouponNotApplicableException(Constants.THRESHOLD_NOT_MET);
         }
-        BigDecimal eligibleCartTotal = CartUtil.calculateEligibleCartTotal(coupon, cart);
-        BigDecimal discount = DiscountCalculator.calculatePercentageDiscount(
-                eligibleCartTotal,
-                cartWiseCoupon.getDiscountPercentage()
-        );
-        BigDecimal finalDiscount = DiscountCalculator.calculateDiscountWithCap(
-                discount,
-                cartWiseCoupon.getMaxDiscountAmount()
-        );
-        log.info("Cart-wise discount calculated: {} (before cap: {})", finalDiscount, discount);
-        return finalDiscount;
+        return evaluation;
     }
 
-    @Override
-    public AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartRequestDTO cart) {
-        Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
-        log.debug("Applying cart-wise coupon: {}", coupon.getId());
-        BigDecimal totalDiscount = calculateDiscount(coupon, cart);
-        BigDecimal cartTotal = CartUtil.calculateCartTotal(cart);
-        List<CartItemResponseDTO> responseItems = cart.getItems().stream()
-                .map(item -> CartItemResponseDTO.builder()
-                        .productId(item.getProductId())
-                        .quantity(item.getQuantity())
-                        .price(item.getPrice())
-                        .totalDiscount(BigDecimal.ZERO)
-                        .build())
-                .collect(Collectors.toList());
-        UpdatedCartDTO updatedCart = UpdatedCartDTO.builder()
-                .items(responseItems)
-                .totalPrice(cartTotal)
-                .totalDiscount(totalDiscount)
-                .finalPrice(DiscountCalculator.calculateFinalPrice(cartTotal, totalDiscount))
-                .build();
-        log.info("Applied cart-wise coupon with discount: {}", totalDiscount);
-        return AppliedCouponResponseDTO.builder()
-                .updatedCart(updatedCart)
-                .build();
+    /**
+     * Cart-wise coupon with its excluded products in an array and, when all of them are
+     * representable, its threshold, percentage and cap in minor units and basis points.
+     */
+    private static final class CompiledCartWiseCoupon implements CouponEvaluator {
+
+        private final UUID couponId;
+        private final long[] excludedProductIds;
+        private final BigDecimal thresholdAmount;
+        private final BigDecimal discountPercentage;
+        private final BigDecimal maxDiscountAmount;
+        private final boolean bounded;
+        private final boolean fixedPoint;
+        private final long thresholdMinorUnits;
+        private final long discountBasisPoints;
+        // Long.MAX_VALUE when there is no cap
+        private final long maxDiscountMinorUnits;
+
+        CompiledCartWiseCoupon(CartWiseCoupon coupon) {
+            this.couponId = coupon.getId();
+            this.excludedProductIds = CouponUtil.getExcludedProductIds(coupon);
+            this.thresholdAmount = coupon.getThresholdAmount();
+            this.discountPercentage = coupon.getDiscountPercentage();
+            this.maxDiscountAmount = coupon.getMaxDiscountAmount();
+            this.bounded = discountPercentage != null && discountPercentage.compareTo(ONE_HUNDRED) <= 0;
+            this.fixedPoint = FixedPointMoney.isRepresentable(thresholdAmount)
+                    && FixedPointMoney.isRepresentable(discountPercentage)
+                    && (maxDiscountAmount == null || FixedPointMoney.isRepresentable(maxDiscountAmount));
+            this.thresholdMinorUnits = fixedPoint ? FixedPointMoney.toMinorUnits(thresholdAmount) : 0;
+            this.discountBasisPoints = fixedPoint ? FixedPointMoney.toMinorUnits(discountPercentage) : 0;
+            this.maxDiscountMinorUnits = fixedPoint && maxDiscountAmount != null ?
+                    FixedPointMoney.toMinorUnits(maxDiscountAmount) : Long.MAX_VALUE;
+        }
+
+        @Override
+        public CouponEvaluation evaluate(CartIndex cartIndex) {
+            if (cartIndex.containsAny(excludedProductIds)) {
+                log.debug("Cart contains excluded products for cart-wise coupon: {}", couponId);
+                return CouponEvaluation.notApplicable();
+            }
+            if (fixedPoint && cartIndex.isFixedPoint()) {
+                try {
+                    return evaluateFixedPoint(cartIndex);
+                } catch (ArithmeticException e) {
+                    log.debug("Cart-wise coupon {} exceeds fixed-point range, using BigDecimal", couponId);
+                }
+            }
+            // No excluded product is in the cart, so all of it is eligible
+            BigDecimal eligibleCartTotal = cartIndex.getTotal();
+            boolean applicable = eligibleCartTotal.compareTo(thresholdAmount) >= 0;
+            log.debug("Cart-wise coupon {} applicability: {} (Total: {}, Threshold: {})", couponId, applicable, eligibleCartTotal, thresholdAmount);
+            if (!applicable) {
+                return CouponEvaluation.notApplicable();
+            }
+            BigDecimal discount = DiscountCalculator.calculatePercentageDiscount(eligibleCartTotal, discountPercentage);
+            BigDecimal finalDiscount = DiscountCalculator.calculateDiscountWithCap(discount, maxDiscountAmount);
+            log.debug("Cart-wise discount calculated: {} (before cap: {})", finalDiscount, discount);
+            return CouponEvaluation.applicable(finalDiscount, Collections.emptyMap());
+        }
+
+        @Override
+        public BigDecimal upperBound(CartIndex cartIndex) {
+            if (!bounded) {
+                return null;
+            }
+            BigDecimal bound = cartIndex.getTotal().setScale(FixedPointMoney.SCALE, RoundingMode.CEILING);
+            return maxDiscountAmount != null ? bound.min(maxDiscountAmount) : bound;
+        }
+
+        // Same steps as the BigDecimal path above; the cap is returned as is when it applies
+        private CouponEvaluation evaluateFixedPoint(CartIndex cartIndex) {
+            long eligibleCartTotal = cartIndex.getTotalMinorUnits();
+            if (eligibleCartTotal < thresholdMinorUnits) {
+                log.debug("Cart-wise coupon {} threshold not met", couponId);
+                return CouponEvaluation.notApplicable();
+            }
+            long discount = FixedPointMoney.percentageOf(eligibleCartTotal, discountBasisPoints);
+            BigDecimal finalDiscount = discount > maxDiscountMinorUnits ?
+                    maxDiscountAmount : FixedPointMoney.toBigDecimal(discount, FixedPointMoney.SCALE);
+            log.debug("Cart-wise discount calculated: {}", finalDiscount);
+            return CouponEvaluation.applicable(finalDiscount, Collections.emptyMap());
+        }
     }
 }
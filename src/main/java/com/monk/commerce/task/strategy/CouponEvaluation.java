@@ -0,0 +1,61 @@
+package com.monk.commerce.task.strategy;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
+import com.monk.commerce.task.dto.response.CartItemResponseDTO;
+import com.monk.commerce.task.dto.response.UpdatedCartDTO;
+import com.monk.commerce.task.util.CartIndex;
+import com.monk.commerce.task.util.DiscountCalculator;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of evaluating one coupon against one cart: whether it applies, the total discount,
+ * the discount of each discounted product line, keyed by product ID, and for BxGy coupons the
+ * tier that was applied.
+ */
+public record CouponEvaluation(boolean applicable, BigDecimal discount, Map<Long, BigDecimal> lineDiscounts,
+                               Integer appliedTier) {
+
+    private static final CouponEvaluation NOT_APPLICABLE = new CouponEvaluation(false, BigDecimal.ZERO, Collections.emptyMap(), null);
+
+    public static CouponEvaluation notApplicable() {
+        return NOT_APPLICABLE;
+    }
+
+    public static CouponEvaluation applicable(BigDecimal discount, Map<Long, BigDecimal> lineDiscounts) {
+        return new CouponEvaluation(true, discount, lineDiscounts, null);
+    }
+
+    public static CouponEvaluation applicableTier(int tier, BigDecimal discount, Map<Long, BigDecimal> lineDiscounts) {
+        return new CouponEvaluation(true, discount, lineDiscounts, tier);
+    }
+
+    public AppliedCouponResponseDTO toAppliedResponse(CartIndex cartIndex) {
+        List<CartItemDTO> items = cartIndex.getCart().getItems();
+        List<CartItemResponseDTO> responseItems = new ArrayList<>(items.size());
+        for (CartItemDTO item : items) {
+            responseItems.add(CartItemResponseDTO.builder()
+                    .productId(item.getProductId())
+                    .quantity(item.getQuantity())
+                    .price(item.getPrice())
+                    .totalDiscount(lineDiscounts.getOrDefault(item.getProductId(), BigDecimal.ZERO))
+                    .build());
+        }
+        BigDecimal cartTotal = cartIndex.getTotal();
+        UpdatedCartDTO updatedCart = UpdatedCartDTO.builder()
+                .items(responseItems)
+                .totalPrice(cartTotal)
+                .totalDiscount(discount)
+                .finalPrice(DiscountCalculator.calculateFinalPrice(cartTotal, discount))
+                .build();
+        return AppliedCouponResponseDTO.builder()
+                .updatedCart(updatedCart)
+                .appliedTier(appliedTier)
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.monk.commerce.task.strategy;
+
+import com.monk.commerce.task.util.CartIndex;
+
+import java.math.BigDecimal;
+
+/**
+ * A coupon compiled by its strategy: the parameters copied into primitive fields and lookup
+ * arrays once, so that evaluating a cart reads no entity state. Instances are immutable and
+ * safe to share between threads.
+ */
+public interface CouponEvaluator {
+
+    /**
+     * Same result as {@link CouponStrategy#evaluate} for the coupon this evaluator was compiled from.
+     */
+    CouponEvaluation evaluate(CartIndex cartIndex);
+
+    /**
+     * Same bound as {@link CouponStrategy#upperBound}, or {@code null} when none is known.
+     */
+    default BigDecimal upperBound(CartIndex cartIndex) {
+        return null;
+    }
+}
@@ -3,14 +3,50 @@ package com.monk.commerce.task.strategy;
 import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
 import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.util.CartIndex;
 
 import java.math.BigDecimal;
 
 public interface CouponStrategy {
 
-    boolean isApplicable(Coupon coupon, CartRequestDTO cart);
+    /**
+     * Checks applicability and computes the discount and line discounts in one pass. Coupons of
+     * another type evaluate as not applicable.
+     */
+    CouponEvaluation evaluate(Coupon coupon, CartIndex cartIndex);
 
-    BigDecimal calculateDiscount(Coupon coupon, CartRequestDTO cart);
+    /**
+     * Compiles the coupon into an evaluator that gives the same results as {@link #evaluate}
+     * and {@link #upperBound} without reading the entity again, so later changes to the entity
+     * are not seen by the evaluator.
+     */
+    CouponEvaluator compile(Coupon coupon);
 
-    AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartRequestDTO cart);
+    BigDecimal calculateDiscount(Coupon coupon, CartIndex cartIndex);
+
+    AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartIndex cartIndex);
+
+    /**
+     * A value the coupon's discount on this cart cannot exceed, computed without evaluating the
+     * coupon, or {@code null} when no such bound is known.
+     */
+    default BigDecimal upperBound(Coupon coupon, CartIndex cartIndex) {
+        return null;
+    }
+
+    default boolean isApplicable(Coupon coupon, CartIndex cartIndex) {
+        return evaluate(coupon, cartIndex).applicable();
+    }
+
+    default boolean isApplicable(Coupon coupon, CartRequestDTO cart) {
+        return isApplicable(coupon, CartIndex.of(cart));
+    }
+
+    default BigDecimal calculateDiscount(Coupon coupon, CartRequestDTO cart) {
+        return calculateDiscount(coupon, CartIndex.of(cart));
+    }
+
+    default AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartRequestDTO cart) {
+        return applyCoupon(coupon, CartIndex.of(cart));
+    }
 }
@@ -1,124 +1,176 @@
 package com.monk.commerce.task.strategy;
 
-import com.monk.commerce.task.dto.request.CartItemDTO;
-import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
-import com.monk.commerce.task.dto.response.CartItemResponseDTO;
-import com.monk.commerce.task.dto.response.UpdatedCartDTO;
 import com.monk.commerce.task.entity.Coupon;
 import com.monk.commerce.task.entity.ProductWiseCoupon;
 import com.monk.commerce.task.exception.CouponNotApplicableException;
-import com.monk.commerce.task.util.CartUtil;
+import com.monk.commerce.task.util.CartIndex;
 import com.monk.commerce.task.util.Constants;
 import com.monk.commerce.task.util.CouponUtil;
 import com.monk.commerce.task.util.DiscountCalculator;
+import com.monk.commerce.task.util.FixedPointMoney;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.UUID;
 
 @Component
 public class ProductWiseCouponStrategy implements CouponStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(ProductWiseCouponStrategy.class);
+    private static final BigDecimal ONE_HUNDRED = BigDecimal.valueOf(100);
 
     @Override
-    public boolean isApplicable(Coupon coupon, CartRequestDTO cart) {
+    public CouponEvaluation evaluate(Coupon coupon, CartIndex cartIndex) {
         Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
         if (!(coupon instanceof ProductWiseCoupon)) {
-            return false;
+            return CouponEvaluation.notApplicable();
         }
-        ProductWiseCoupon productWiseCoupon = (ProductWiseCoupon) coupon;
-        boolean hasTargetProduct = cart.getItems().stream()
-                .anyMatch(item -> item.getProductId().equals(productWiseCoupon.getProductId()));
-        if (!hasTargetProduct) {
-            log.debug("Product {} not found in cart for coupon: {}", productWiseCoupon.getProductId(), coupon.getId());
-            return false;
+        return compile(coupon).evaluate(cartIndex);
+    }
+
+    @Override
+    public CouponEvaluator compile(Coupon coupon) {
+        Objects.requireNonNull(coupon, "Coupon cannot be null");
+        if (!(coupon instanceof ProductWiseCoupon)) {
+            throw new IllegalArgumentException("Invalid coupon type for ProductWiseCouponStrategy");
         }
-        boolean notExcluded = !CouponUtil.isProductExcluded(coupon, productWiseCoupon.getProductId());
-        log.debug("Product-wise coupon {} applicable: {}", coupon.getId(), notExcluded);
-        return notExcluded;
+        return new CompiledProductWiseCoupon((ProductWiseCoupon) coupon);
     }
 
     @Override
-    public BigDecimal calculateDiscount(Coupon coupon, CartRequestDTO cart) {
+    public BigDecimal calculateDiscount(Coupon coupon, CartIndex cartIndex) {
+        return evaluateApplicable(coupon, cartIndex).discount();
+    }
+
+    @Override
+    public AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartIndex cartIndex) {
+        CouponEvaluation evaluation = evaluateApplicable(coupon, cartIndex);
+        log.debug("Applying product-wise coupon: {}", coupon.getId());
+        log.info("Applied product-wise coupon with discount: {}", evaluation.discount());
+        return evaluation.toAppliedResponse(cartIndex);
+    }
+
+    /**
+     * The target line total rounded up to cents, or the per-product cap times the quantity
+     * when that is lower.
+     */
+    @Override
+    public BigDecimal upperBound(Coupon coupon, CartIndex cartIndex) {
+        if (!(coupon instanceof ProductWiseCoupon)) {
+            return null;
+        }
+        return compile(coupon).upperBound(cartIndex);
+    }
+
+    private CouponEvaluation evaluateApplicable(Coupon coupon, CartIndex cartIndex) {
         Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
+        Objects.requireNonNull(cartIndex, "Cart cannot be null");
         if (!(coupon instanceof ProductWiseCoupon)) {
             throw new IllegalArgumentException("Invalid coupon type for ProductWiseCouponStrategy");
         }
-        ProductWiseCoupon productWiseCoupon = (ProductWiseCoupon) coupon;
-        if (!isApplicable(coupon, cart)) {
-            log.error("Product {} not in cart for coupon: {}", productWiseCoupon.getProductId(), coupon.getId());
+        CouponEvaluation evaluation = evaluate(coupon, cartIndex);
+        if (!evaluation.applicable()) {
+            log.error("Product {} not in cart for coupon: {}", ((ProductWiseCoupon) coupon).getProductId(), coupon.getId());
             throw new CouponNotApplicableException(Constants.PRODUCT_NOT_IN_CART);
         }
-        Optional<CartItemDTO> targetItem = cart.getItems().stream()
-                .filter(item -> item.getProductId().equals(productWiseCoupon.getProductId()))
-                .findFirst();
-        if (!targetItem.isPresent()) {
-            return BigDecimal.ZERO;
+        return evaluation;
+    }
+
+    /**
+     * Product-wise coupon with its target product unboxed, whether the coupon excludes it, and
+     * when representable its percentage and per-product cap in basis points and minor units.
+     */
+    private static final class CompiledProductWiseCoupon implements CouponEvaluator {
+
+        private final UUID couponId;
+        private final boolean hasProduct;
+        private final long productId;
+        private final boolean productExcluded;
+        private final BigDecimal discountPercentage;
+        private final BigDecimal maxDiscountPerProduct;
+        private final boolean bounded;
+        private final boolean fixedPoint;
+        private final long discountBasisPoints;
+        // Long.MAX_VALUE when there is no cap
+        private final long maxDiscountPerProductMinorUnits;
+
+        CompiledProductWiseCoupon(ProductWiseCoupon coupon) {
+            this.couponId = coupon.getId();
+            this.hasProduct = coupon.getProductId() != null;
+            this.productId = hasProduct ? coupon.getProductId() : 0L;
+            long[] excludedProductIds = CouponUtil.getExcludedProductIds(coupon);
+            this.productExcluded = hasProduct && Arrays.stream(excludedProductIds).anyMatch(id -> id == productId);
+            this.discountPercentage = coupon.getDiscountPercentage();
+            this.maxDiscountPerProduct = coupon.getMaxDiscountPerProduct();
+            this.bounded = hasProduct && discountPercentage != null && discountPercentage.compareTo(ONE_HUNDRED) <= 0;
+            this.fixedPoint = FixedPointMoney.isRepresentable(discountPercentage)
+                    && (maxDiscountPerProduct == null || FixedPointMoney.isRepresentable(maxDiscountPerProduct));
+            this.discountBasisPoints = fixedPoint ? FixedPointMoney.toMinorUnits(discountPercentage) : 0;
+            this.maxDiscountPerProductMinorUnits = fixedPoint && maxDiscountPerProduct != null ?
+                    FixedPointMoney.toMinorUnits(maxDiscountPerProduct) : Long.MAX_VALUE;
+        }
+
+        @Override
+        public CouponEvaluation evaluate(CartIndex cartIndex) {
+            if (!hasProduct || !cartIndex.contains(productId)) {
+                log.debug("Product {} not found in cart for coupon: {}", hasProduct ? productId : null, couponId);
+                return CouponEvaluation.notApplicable();
+            }
+            if (productExcluded) {
+                log.debug("Product {} is excluded for coupon: {}", productId, couponId);
+                return CouponEvaluation.notApplicable();
+            }
+            int quantity = cartIndex.getQuantity(productId);
+            if (fixedPoint && cartIndex.isFixedPoint()) {
+                try {
+                    return evaluateFixedPoint(cartIndex, quantity);
+                } catch (ArithmeticException e) {
+                    log.debug("Product-wise coupon {} exceeds fixed-point range, using BigDecimal", couponId);
+                }
+            }
+            BigDecimal discount = DiscountCalculator.calculatePercentageDiscount(cartIndex.getLineTotal(productId), discountPercentage);
+            if (maxDiscountPerProduct != null) {
+                discount = discount.min(maxDiscountPerProduct.multiply(BigDecimal.valueOf(quantity)));
+            }
+            log.debug("Product-wise discount calculated: {} for product: {}", discount, productId);
+            return CouponEvaluation.applicable(discount, Map.of(productId, discount));
         }
-        CartItemDTO item = targetItem.get();
-        BigDecimal itemTotal = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-        BigDecimal discount = DiscountCalculator.calculatePercentageDiscount(
-                itemTotal,
-                productWiseCoupon.getDiscountPercentage()
-        );
-        if (productWiseCoupon.getMaxDiscountPerProduct() != null) {
-            BigDecimal maxTotalDiscount = productWiseCoupon.getMaxDiscountPerProduct()
-                    .multiply(BigDecimal.valueOf(item.getQuantity()));
-            discount = discount.min(maxTotalDiscount);
+
+        @Override
+        public BigDecimal upperBound(CartIndex cartIndex) {
+            if (!bounded) {
+                return null;
+            }
+            BigDecimal bound = cartIndex.getLineTotal(productId).setScale(FixedPointMoney.SCALE, RoundingMode.CEILING);
+            if (maxDiscountPerProduct != null) {
+                bound = bound.min(maxDiscountPerProduct.multiply(BigDecimal.valueOf(cartIndex.getQuantity(productId))));
+            }
+            return bound;
         }
-        log.info("Product-wise discount calculated: {} for product: {}", discount, item.getProductId());
-        return discount;
-    }
 
-    @Override
-    public AppliedCouponResponseDTO applyCoupon(Coupon coupon, CartRequestDTO cart) {
-        Objects.requireNonNull(coupon, "Coupon cannot be null");
-        Objects.requireNonNull(cart, "Cart cannot be null");
-        log.debug("Applying product-wise coupon: {}", coupon.getId());
-        ProductWiseCoupon productWiseCoupon = (ProductWiseCoupon) coupon;
-        BigDecimal totalDiscount = calculateDiscount(coupon, cart);
-        List<CartItemResponseDTO> responseItems = cart.getItems().stream()
-                .map(item -> {
-                    BigDecimal itemDiscount = BigDecimal.ZERO;
-                    if (item.getProductId().equals(productWiseCoupon.getProductId())) {
-                        BigDecimal itemTotal = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
-                        itemDiscount = DiscountCalculator.calculatePercentageDiscount(
-                                itemTotal,
-                                productWiseCoupon.getDiscountPercentage()
-                        );
-                        if (productWiseCoupon.getMaxDiscountPerProduct() != null) {
-                            BigDecimal maxTotalDiscount = productWiseCoupon.getMaxDiscountPerProduct()
-                                    .multiply(BigDecimal.valueOf(item.getQuantity()));
-                            itemDiscount = itemDiscount.min(maxTotalDiscount);
-                        }
-                    }
-                    return CartItemResponseDTO.builder()
-                            .productId(item.getProductId())
-                            .quantity(item.getQuantity())
-                            .price(item.getPrice())
-                            .totalDiscount(itemDiscount)
-                            .build();
-                })
-                .collect(Collectors.toList());
-        BigDecimal cartTotal = CartUtil.calculateCartTotal(cart);
-        UpdatedCartDTO updatedCart = UpdatedCartDTO.builder()
-                .items(responseItems)
-                .totalPrice(cartTotal)
-                .totalDiscount(totalDiscount)
-                .finalPrice(DiscountCalculator.calculateFinalPrice(cartTotal, totalDiscount))
-                .build();
-        log.info("Applied product-wise coupon with discount: {}", totalDiscount);
-        return AppliedCouponResponseDTO.builder()
-                .updatedCart(updatedCart)
-                .build();
+        // Same steps as the BigDecimal path; a capped discount keeps the scale of the per-product cap
+        private CouponEvaluation evaluateFixedPoint(CartIndex cartIndex, int quantity) {
+            long discount = FixedPointMoney.percentageOf(cartIndex.getLineTotalMinorUnits(productId), discountBasisPoints);
+            BigDecimal finalDiscount = null;
+            if (maxDiscountPerProduct != null) {
+                long maxTotalDiscount = Math.multiplyExact(maxDiscountPerProductMinorUnits, quantity);
+                if (discount > maxTotalDiscount) {
+                    finalDiscount = FixedPointMoney.toBigDecimal(maxTotalDiscount, maxDiscountPerProduct.scale());
+                }
+            }
+            if (finalDiscount == null) {
+                finalDiscount = FixedPointMoney.toBigDecimal(discount, FixedPointMoney.SCALE);
+            }
+            log.debug("Product-wise discount calculated: {} for product: {}", finalDiscount, productId);
+            return CouponEvaluation.applicable(finalDiscount, Map.of(productId, finalDiscount));
+        }
     }
 }
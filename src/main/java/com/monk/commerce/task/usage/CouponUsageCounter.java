@@ -0,0 +1,88 @@
+package com.monk.commerce.task.usage;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.repository.CouponRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Global coupon usage counter spread over {@code coupon.usage.counter-slots} rows of
+ * {@code coupon_usage_counter} so that concurrent redemptions of one coupon lock different
+ * rows. A coupon's {@code max_usage_limit} is split into fixed per-slot quotas that add up
+ * to the limit. While no slot holds more than its quota, filling every slot can never
+ * overshoot the limit. Uses counted while the coupon had no limit, or a different one, are
+ * not split that way, so every change of the limit must be followed by {@link #rebalance(UUID)}.
+ * <p>
+ * The slot count must not be lowered on a database that already holds counts for slots
+ * above the new count, unless every limited coupon is rebalanced.
+ */
+@Component
+public class CouponUsageCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(CouponUsageCounter.class);
+
+    private final CouponRepository couponRepository;
+    private final int slots;
+
+    public CouponUsageCounter(
+            CouponRepository couponRepository,
+            @Value("${coupon.usage.counter-slots:8}") int slots) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("coupon.usage.counter-slots must be at least 1");
+        }
+        this.couponRepository = couponRepository;
+        this.slots = slots;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    /**
+     * Records one use of the coupon, starting from a random slot and moving on to the next
+     * slots while they are full. Returns false once every slot has reached its quota.
+     */
+    public boolean tryIncrement(Coupon coupon) {
+        Long maxUsageLimit = coupon.getMaxUsageLimit();
+        if (maxUsageLimit == null) {
+            couponRepository.incrementUsageSlot(coupon.getId(), ThreadLocalRandom.current().nextInt(slots));
+            return true;
+        }
+        int activeSlots = (int) Math.min(slots, Math.max(0L, maxUsageLimit));
+        if (activeSlots == 0) {
+            return false;
+        }
+        int start = ThreadLocalRandom.current().nextInt(activeSlots);
+        for (int i = 0; i < activeSlots; i++) {
+            int slot = (start + i) % activeSlots;
+            if (couponRepository.incrementUsageSlotWithinQuota(coupon.getId(), slot, slotQuota(maxUsageLimit, slots, slot)) > 0) {
+                return true;
+            }
+            log.debug("Usage slot {} of coupon {} is full", slot, coupon.getId());
+        }
+        return false;
+    }
+
+    /**
+     * Spreads the coupon's recorded uses over the slots with the same split as the quotas, so
+     * that no slot is above its quota unless the whole limit is used up. Must run in the
+     * transaction that changes {@code max_usage_limit}: it locks every slot of the coupon,
+     * holding back concurrent redemptions until that transaction ends.
+     */
+    public void rebalance(UUID couponId) {
+        // Create missing slots first so that the lock covers every slot a redemption can write
+        couponRepository.createUsageSlots(couponId, slots);
+        long total = couponRepository.lockUsageSlots(couponId).stream().mapToLong(Long::longValue).sum();
+        couponRepository.spreadUsageSlots(couponId, slots, total);
+        log.debug("Rebalanced {} uses of coupon {} over {} slots", total, couponId, slots);
+    }
+
+    static long slotQuota(long maxUsageLimit, int slots, int slot) {
+        return maxUsageLimit / slots + (slot < maxUsageLimit % slots ? 1 : 0);
+    }
+}
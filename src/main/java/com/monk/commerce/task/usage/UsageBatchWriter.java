@@ -0,0 +1,262 @@
+package com.monk.commerce.task.usage;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.exception.CouponNotApplicableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Records the usage of many redemptions with one read of the current counts and two JDBC
+ * batches. Each batched statement only adds its delta while the slot or user stays within
+ * its limit; if a concurrent redemption took the room in the meantime the whole write is
+ * rolled back and re-allocated from fresh counts.
+ * <p>
+ * With the write-behind buffer enabled, per-user usage is reserved through
+ * {@link UserUsageBuffer#tryRecord} like single redemptions, so both paths count against the
+ * same per-user limit; the reservations are tied to the batch transaction.
+ */
+@Component
+public class UsageBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageBatchWriter.class);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int BATCH_SIZE = 500;
+    // Written as INSERT ... SELECT on purpose: with reWriteBatchedInserts on, pgjdbc reports no row
+    // counts for INSERT ... VALUES batches, and verifyApplied needs them to find limit conflicts
+    private static final String SLOT_SQL = "INSERT INTO coupon_usage_counter (coupon_id, slot, usage_count) " +
+            "SELECT ?, ?, ? WHERE ? <= ? " +
+            "ON CONFLICT (coupon_id, slot) DO UPDATE SET usage_count = coupon_usage_counter.usage_count + EXCLUDED.usage_count " +
+            "WHERE coupon_usage_counter.usage_count + EXCLUDED.usage_count <= ?";
+    private static final String USER_SQL = "INSERT INTO coupon_usage (coupon_id, user_id, usage_count, last_used_at) " +
+            "SELECT ?, ?, ?, ? WHERE ? <= ? " +
+            "ON CONFLICT (coupon_id, user_id) DO UPDATE SET usage_count = coupon_usage.usage_count + EXCLUDED.usage_count, " +
+            "last_used_at = EXCLUDED.last_used_at " +
+            "WHERE coupon_usage.usage_count + EXCLUDED.usage_count <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final CouponUsageCounter couponUsageCounter;
+    private final UserUsageBuffer userUsageBuffer;
+    private final TransactionTemplate writeTemplate;
+
+    public UsageBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            CouponUsageCounter couponUsageCounter,
+            UserUsageBuffer userUsageBuffer,
+            PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.couponUsageCounter = couponUsageCounter;
+        this.userUsageBuffer = userUsageBuffer;
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Records as many of the redemptions as the global and per-user limits allow, in list order.
+     * Returns for each redemption whether it was recorded.
+     */
+    public boolean[] redeem(List<Redemption> redemptions) {
+        if (redemptions.isEmpty()) {
+            return new boolean[0];
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return writeTemplate.execute(status -> allocateAndWrite(redemptions));
+            } catch (UsageConflictException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.error("Giving up batch redemption of {} items after {} conflicts", redemptions.size(), attempt);
+                    throw new CouponNotApplicableException("Coupon usage changed concurrently, please retry");
+                }
+                log.debug("Batch redemption conflicted with concurrent usage, attempt {}", attempt);
+            }
+        }
+    }
+
+    private boolean[] allocateAndWrite(List<Redemption> redemptions) {
+        int slots = couponUsageCounter.getSlots();
+        boolean buffered = userUsageBuffer.isEnabled();
+        Set<UUID> couponIds = new HashSet<>();
+        Set<String> userIds = new HashSet<>();
+        for (Redemption redemption : redemptions) {
+            couponIds.add(redemption.coupon().getId());
+            if (redemption.userId() != null && !buffered) {
+                userIds.add(redemption.userId());
+            }
+        }
+        Map<UUID, long[]> slotCounts = loadSlotCounts(couponIds, slots);
+        Map<UserKey, Integer> userCounts = userIds.isEmpty() ? new HashMap<>() : loadUserCounts(couponIds, userIds);
+
+        boolean[] granted = new boolean[redemptions.size()];
+        Map<UUID, long[]> slotDeltas = new LinkedHashMap<>();
+        Map<UserKey, Integer> userDeltas = new LinkedHashMap<>();
+        for (int i = 0; i < redemptions.size(); i++) {
+            Coupon coupon = redemptions.get(i).coupon();
+            String userId = redemptions.get(i).userId();
+            UserKey userKey = userId != null && !buffered ? new UserKey(coupon.getId(), userId) : null;
+            if (userKey != null && coupon.getUsageLimitPerUser() != null
+                    && userCounts.getOrDefault(userKey, 0) + userDeltas.getOrDefault(userKey, 0) >= coupon.getUsageLimitPerUser()) {
+                continue;
+            }
+            long[] counts = slotCounts.computeIfAbsent(coupon.getId(), id -> new long[slots]);
+            long[] deltas = slotDeltas.computeIfAbsent(coupon.getId(), id -> new long[slots]);
+            int slot = pickSlot(coupon.getMaxUsageLimit(), slots, counts, deltas);
+            if (slot < 0) {
+                continue;
+            }
+            // Reserved only once a slot is free, since a reservation cannot be handed back before the transaction ends
+            if (buffered && userId != null && !userUsageBuffer.tryRecord(coupon, userId)) {
+                continue;
+            }
+            deltas[slot]++;
+            if (userKey != null) {
+                userDeltas.merge(userKey, 1, Integer::sum);
+            }
+            granted[i] = true;
+        }
+        writeSlots(slotDeltas, redemptions, slots);
+        writeUsers(userDeltas, redemptions);
+        return granted;
+    }
+
+    private static int pickSlot(Long maxUsageLimit, int slots, long[] counts, long[] deltas) {
+        if (maxUsageLimit == null) {
+            return ThreadLocalRandom.current().nextInt(slots);
+        }
+        int activeSlots = (int) Math.min(slots, Math.max(0L, maxUsageLimit));
+        if (activeSlots == 0) {
+            return -1;
+        }
+        int start = ThreadLocalRandom.current().nextInt(activeSlots);
+        for (int i = 0; i < activeSlots; i++) {
+            int slot = (start + i) % activeSlots;
+            if (counts[slot] + deltas[slot] < CouponUsageCounter.slotQuota(maxUsageLimit, slots, slot)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private Map<UUID, long[]> loadSlotCounts(Set<UUID> couponIds, int slots) {
+        Map<UUID, long[]> counts = new HashMap<>();
+        namedJdbcTemplate.query("SELECT coupon_id, slot, usage_count FROM coupon_usage_counter WHERE coupon_id IN (:couponIds)",
+                new MapSqlParameterSource("couponIds", couponIds),
+                rs -> {
+                    int slot = rs.getInt("slot");
+                    if (slot < slots) {
+                        counts.computeIfAbsent(rs.getObject("coupon_id", UUID.class), id -> new long[slots])[slot] = rs.getLong("usage_count");
+                    }
+                });
+        return counts;
+    }
+
+    private Map<UserKey, Integer> loadUserCounts(Set<UUID> couponIds, Set<String> userIds) {
+        Map<UserKey, Integer> counts = new HashMap<>();
+        namedJdbcTemplate.query("SELECT coupon_id, user_id, usage_count FROM coupon_usage " +
+                        "WHERE coupon_id IN (:couponIds) AND user_id IN (:userIds)",
+                new MapSqlParameterSource("couponIds", couponIds).addValue("userIds", userIds),
+                rs -> {
+                    counts.put(new UserKey(rs.getObject("coupon_id", UUID.class), rs.getString("user_id")), rs.getInt("usage_count"));
+                });
+        return counts;
+    }
+
+    private void writeSlots(Map<UUID, long[]> slotDeltas, List<Redemption> redemptions, int slots) {
+        Map<UUID, Long> limits = new HashMap<>();
+        redemptions.forEach(redemption -> limits.put(redemption.coupon().getId(), redemption.coupon().getMaxUsageLimit()));
+        List<SlotDelta> rows = new ArrayList<>();
+        slotDeltas.forEach((couponId, deltas) -> {
+            Long maxUsageLimit = limits.get(couponId);
+            for (int slot = 0; slot < slots; slot++) {
+                if (deltas[slot] > 0) {
+                    long quota = maxUsageLimit == null ? Long.MAX_VALUE : CouponUsageCounter.slotQuota(maxUsageLimit, slots, slot);
+                    rows.add(new SlotDelta(couponId, slot, deltas[slot], quota));
+                }
+            }
+        });
+        int[][] counts = jdbcTemplate.batchUpdate(SLOT_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            ps.setObject(1, row.couponId());
+            ps.setInt(2, row.slot());
+            ps.setLong(3, row.delta());
+            ps.setLong(4, row.delta());
+            ps.setLong(5, row.quota());
+            ps.setLong(6, row.quota());
+        });
+        verifyApplied(counts);
+    }
+
+    private void writeUsers(Map<UserKey, Integer> userDeltas, List<Redemption> redemptions) {
+        if (userDeltas.isEmpty()) {
+            return;
+        }
+        Map<UUID, Integer> limits = new HashMap<>();
+        redemptions.forEach(redemption -> limits.put(redemption.coupon().getId(), redemption.coupon().getUsageLimitPerUser()));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<UserKey, Integer>> rows = new ArrayList<>(userDeltas.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(USER_SQL, rows, BATCH_SIZE, (ps, row) -> {
+            Integer limit = limits.get(row.getKey().couponId());
+            int effectiveLimit = limit != null ? limit : Integer.MAX_VALUE;
+            ps.setObject(1, row.getKey().couponId());
+            ps.setString(2, row.getKey().userId());
+            ps.setInt(3, row.getValue());
+            ps.setTimestamp(4, now);
+            ps.setInt(5, row.getValue());
+            ps.setInt(6, effectiveLimit);
+            ps.setInt(7, effectiveLimit);
+        });
+        verifyApplied(counts);
+    }
+
+    /**
+     * Throws when a statement added nothing because a limit was reached. Requires real row counts
+     * from the driver; a batch reported as {@link Statement#SUCCESS_NO_INFO} fails instead of
+     * passing unchecked.
+     */
+    private static void verifyApplied(int[][] counts) {
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    throw new IllegalStateException("Usage batch returned no row counts, limit conflicts cannot be detected");
+                }
+                if (count == 0) {
+                    throw new UsageConflictException();
+                }
+            }
+        }
+    }
+
+    public record Redemption(Coupon coupon, String userId) {
+    }
+
+    private record UserKey(UUID couponId, String userId) {
+    }
+
+    private record SlotDelta(UUID couponId, int slot, long delta, long quota) {
+    }
+
+    private static final class UsageConflictException extends RuntimeException {
+        private UsageConflictException() {
+            super(null, null, false, false);
+        }
+    }
+}
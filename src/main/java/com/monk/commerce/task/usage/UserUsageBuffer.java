@@ -0,0 +1,268 @@
+package com.monk.commerce.task.usage;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.repository.CouponUsageRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional write-behind buffer for per-user coupon usage ({@code coupon.usage.write-behind.enabled}).
+ * Redemptions are tallied in memory per (coupon, user) and flushed as batched
+ * {@code coupon_usage} upserts every {@code flush-interval-ms} or once {@code max-batch-size}
+ * users are waiting, and once more on shutdown.
+ * <p>
+ * Limit checks see the buffered usage, but only for redemptions made through this instance;
+ * with several instances a user can exceed {@code usage_limit_per_user} until the buffers flush.
+ */
+@Component
+public class UserUsageBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(UserUsageBuffer.class);
+    private static final Duration IDLE_EVICTION = Duration.ofMinutes(1);
+    private static final String UPSERT_SQL = "INSERT INTO coupon_usage (coupon_id, user_id, usage_count, last_used_at) " +
+            "VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (coupon_id, user_id) DO UPDATE SET " +
+            "usage_count = coupon_usage.usage_count + EXCLUDED.usage_count, " +
+            "last_used_at = GREATEST(coupon_usage.last_used_at, EXCLUDED.last_used_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CouponUsageRepository couponUsageRepository;
+    private final TransactionTemplate flushTemplate;
+    private final boolean enabled;
+    private final long flushIntervalMs;
+    private final int maxBatchSize;
+    private final ConcurrentMap<UsageKey, UsageEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger committedSinceFlush = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService flushExecutor;
+
+    public UserUsageBuffer(
+            JdbcTemplate jdbcTemplate,
+            CouponUsageRepository couponUsageRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${coupon.usage.write-behind.enabled:false}") boolean enabled,
+            @Value("${coupon.usage.write-behind.flush-interval-ms:5}") long flushIntervalMs,
+            @Value("${coupon.usage.write-behind.max-batch-size:500}") int maxBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.couponUsageRepository = couponUsageRepository;
+        this.flushTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "coupon-usage-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Coupon usage write-behind enabled, flushing every {} ms", flushIntervalMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("Flushed coupon usage buffer on shutdown");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves one use of the coupon for the user if the persisted plus buffered usage is still
+     * below {@code usage_limit_per_user}. The reservation becomes flushable when the surrounding
+     * transaction commits and is released if it rolls back.
+     */
+    public boolean tryRecord(Coupon coupon, String userId) {
+        UsageKey key = new UsageKey(coupon.getId(), userId);
+        // Read outside the map in the common case; the entry may still be evicted before compute
+        Integer persisted = entries.containsKey(key) ? null : persistedUsage(key);
+        Integer limit = coupon.getUsageLimitPerUser();
+        boolean[] reserved = new boolean[1];
+        entries.compute(key, (k, entry) -> {
+            UsageEntry current = entry != null ? entry
+                    : new UsageEntry(persisted != null ? persisted : persistedUsage(k));
+            if (limit == null || current.persisted + current.reserved < limit) {
+                current.reserved++;
+                current.lastUsedAt = LocalDateTime.now();
+                reserved[0] = true;
+            }
+            return current;
+        });
+        if (reserved[0]) {
+            afterCompletion(key);
+        }
+        return reserved[0];
+    }
+
+    /**
+     * Usage reserved through this buffer that is not known to be in {@code coupon_usage} yet.
+     * Usage being flushed still counts until its batch has committed, so a read of this value
+     * followed by a read of the table counts every use at least once.
+     */
+    public int getUnflushedUsage(UUID couponId, String userId) {
+        int[] unflushed = new int[1];
+        entries.computeIfPresent(new UsageKey(couponId, userId), (k, entry) -> {
+            unflushed[0] = entry.reserved - entry.flushed;
+            return entry;
+        });
+        return unflushed[0];
+    }
+
+    /**
+     * Writes all committed, unflushed usage in batched upserts. Usage only counts as flushed
+     * once its batch has committed; a failed batch is kept in the buffer and retried on the
+     * next flush.
+     */
+    public synchronized void flush() {
+        committedSinceFlush.set(0);
+        List<PendingUsage> pending = new ArrayList<>();
+        for (UsageKey key : entries.keySet()) {
+            entries.computeIfPresent(key, (k, entry) -> {
+                int delta = entry.committed - entry.flushed - entry.inFlight;
+                if (delta > 0) {
+                    pending.add(new PendingUsage(k, delta, entry.lastUsedAt));
+                    entry.inFlight += delta;
+                }
+                return entry;
+            });
+        }
+        if (!pending.isEmpty()) {
+            try {
+                flushTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, pending, maxBatchSize,
+                        (ps, usage) -> {
+                            ps.setObject(1, usage.key().couponId());
+                            ps.setString(2, usage.key().userId());
+                            ps.setInt(3, usage.delta());
+                            ps.setTimestamp(4, Timestamp.valueOf(usage.lastUsedAt()));
+                        }));
+            } catch (RuntimeException e) {
+                log.error("Failed to flush usage of {} coupon users, retrying on next flush: {}", pending.size(), e.getMessage());
+                pending.forEach(usage -> entries.computeIfPresent(usage.key(), (k, entry) -> {
+                    entry.inFlight -= usage.delta();
+                    return entry;
+                }));
+                return;
+            }
+            pending.forEach(usage -> entries.computeIfPresent(usage.key(), (k, entry) -> {
+                entry.inFlight -= usage.delta();
+                entry.flushed += usage.delta();
+                return entry;
+            }));
+            log.debug("Flushed usage of {} coupon users", pending.size());
+        }
+        evictIdle(LocalDateTime.now().minus(IDLE_EVICTION));
+    }
+
+    // Drops fully flushed entries last used before the given time; their usage is re-read when needed
+    void evictIdle(LocalDateTime idleBefore) {
+        for (UsageKey key : entries.keySet()) {
+            entries.computeIfPresent(key, (k, entry) ->
+                    entry.flushed == entry.reserved && entry.lastUsedAt.isBefore(idleBefore) ? null : entry);
+        }
+    }
+
+    private int persistedUsage(UsageKey key) {
+        Integer persisted = couponUsageRepository.getTotalUsageByUserAndCoupon(key.couponId(), key.userId());
+        return persisted != null ? persisted : 0;
+    }
+
+    private void afterCompletion(UsageKey key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(key, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                complete(key, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private void complete(UsageKey key, boolean committed) {
+        entries.computeIfPresent(key, (k, entry) -> {
+            if (committed) {
+                entry.committed++;
+            } else {
+                entry.reserved--;
+            }
+            return entry;
+        });
+        if (committed && flushExecutor != null && !flushExecutor.isShutdown() && committedSinceFlush.incrementAndGet() >= maxBatchSize
+                && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Coupon usage flush failed: {}", e.getMessage());
+        }
+    }
+
+    private record UsageKey(UUID couponId, String userId) {
+    }
+
+    private record PendingUsage(UsageKey key, int delta, LocalDateTime lastUsedAt) {
+    }
+
+    // Only read or mutated inside ConcurrentHashMap compute calls for its key
+    private static final class UsageEntry {
+        private final int persisted;
+        private int reserved;
+        private int committed;
+        // Committed usage in a batch that has not committed yet
+        private int inFlight;
+        private int flushed;
+        private LocalDateTime lastUsedAt = LocalDateTime.now();
+
+        private UsageEntry(int persisted) {
+            this.persisted = persisted;
+        }
+    }
+}
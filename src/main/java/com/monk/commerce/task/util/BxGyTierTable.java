@@ -0,0 +1,144 @@
+package com.monk.commerce.task.util;
+
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.GetProduct;
+
+import java.util.Objects;
+
+/**
+ * Buy and get products of a BxGy coupon grouped by tier level into arrays, with the buy
+ * quantity each tier requires summed up front. Tier checks against a {@link CartIndex} are
+ * then plain array loops instead of filtering both product lists for every tier.
+ * <p>
+ * Tiers are indexed from 1 to {@link #getMaxTier()}; a missing tier level counts as tier 1
+ * like it does when the product is persisted.
+ */
+public final class BxGyTierTable {
+
+    private static final long[] NO_PRODUCTS = new long[0];
+    private static final int[] NO_QUANTITIES = new int[0];
+
+    private final int maxTier;
+    private final long[][] buyProductIds;
+    private final int[] requiredBuyQuantities;
+    private final long[][] getProductIds;
+    private final int[][] getQuantities;
+
+    private BxGyTierTable(int maxTier, long[][] buyProductIds, int[] requiredBuyQuantities,
+                          long[][] getProductIds, int[][] getQuantities) {
+        this.maxTier = maxTier;
+        this.buyProductIds = buyProductIds;
+        this.requiredBuyQuantities = requiredBuyQuantities;
+        this.getProductIds = getProductIds;
+        this.getQuantities = getQuantities;
+    }
+
+    public static BxGyTierTable of(BxGyCoupon coupon) {
+        Objects.requireNonNull(coupon, "Coupon cannot be null");
+        // Same maximum as CouponUtil.getMaxTierLevel
+        int maxBuyTier = coupon.getBuyProducts().isEmpty() ? 1 : Integer.MIN_VALUE;
+        for (BuyProduct buyProduct : coupon.getBuyProducts()) {
+            maxBuyTier = Math.max(maxBuyTier, tierOf(buyProduct.getTierLevel()));
+        }
+        int maxGetTier = coupon.getGetProducts().isEmpty() ? 1 : Integer.MIN_VALUE;
+        for (GetProduct getProduct : coupon.getGetProducts()) {
+            maxGetTier = Math.max(maxGetTier, tierOf(getProduct.getTierLevel()));
+        }
+        int maxTier = Math.max(maxBuyTier, maxGetTier);
+        int tiers = Math.max(maxTier, 1) + 1;
+
+        int[] buyCounts = new int[tiers];
+        int[] requiredBuyQuantities = new int[tiers];
+        for (BuyProduct buyProduct : coupon.getBuyProducts()) {
+            int tier = tierOf(buyProduct.getTierLevel());
+            if (tier >= 1) {
+                buyCounts[tier]++;
+                requiredBuyQuantities[tier] += buyProduct.getQuantity();
+            }
+        }
+        int[] getCounts = new int[tiers];
+        for (GetProduct getProduct : coupon.getGetProducts()) {
+            int tier = tierOf(getProduct.getTierLevel());
+            if (tier >= 1) {
+                getCounts[tier]++;
+            }
+        }
+
+        long[][] buyProductIds = new long[tiers][];
+        long[][] getProductIds = new long[tiers][];
+        int[][] getQuantities = new int[tiers][];
+        for (int tier = 0; tier < tiers; tier++) {
+            buyProductIds[tier] = buyCounts[tier] > 0 ? new long[buyCounts[tier]] : NO_PRODUCTS;
+            getProductIds[tier] = getCounts[tier] > 0 ? new long[getCounts[tier]] : NO_PRODUCTS;
+            getQuantities[tier] = getCounts[tier] > 0 ? new int[getCounts[tier]] : NO_QUANTITIES;
+        }
+        // Fill in list order, reusing the counts as write positions
+        int[] buyFill = new int[tiers];
+        for (BuyProduct buyProduct : coupon.getBuyProducts()) {
+            int tier = tierOf(buyProduct.getTierLevel());
+            if (tier >= 1) {
+                buyProductIds[tier][buyFill[tier]++] = buyProduct.getProductId();
+            }
+        }
+        int[] getFill = new int[tiers];
+        for (GetProduct getProduct : coupon.getGetProducts()) {
+            int tier = tierOf(getProduct.getTierLevel());
+            if (tier >= 1) {
+                int position = getFill[tier]++;
+                getProductIds[tier][position] = getProduct.getProductId();
+                getQuantities[tier][position] = getProduct.getQuantity();
+            }
+        }
+        return new BxGyTierTable(maxTier, buyProductIds, requiredBuyQuantities, getProductIds, getQuantities);
+    }
+
+    public int getMaxTier() {
+        return maxTier;
+    }
+
+    /**
+     * Total buy quantity the tier requires per application.
+     */
+    public int getRequiredBuyQuantity(int tier) {
+        return hasTier(tier) ? requiredBuyQuantities[tier] : 0;
+    }
+
+    /**
+     * Quantity of the tier's buy products in the cart.
+     */
+    public int getBuyQuantityInCart(CartIndex cartIndex, int tier) {
+        if (!hasTier(tier)) {
+            return 0;
+        }
+        long[] productIds = buyProductIds[tier];
+        int quantity = 0;
+        for (long productId : productIds) {
+            quantity += cartIndex.getQuantity(productId);
+        }
+        return quantity;
+    }
+
+    /**
+     * Number of get products in the tier.
+     */
+    public int getGetProductCount(int tier) {
+        return hasTier(tier) ? getProductIds[tier].length : 0;
+    }
+
+    public long getGetProductId(int tier, int position) {
+        return getProductIds[tier][position];
+    }
+
+    public int getGetQuantity(int tier, int position) {
+        return getQuantities[tier][position];
+    }
+
+    private boolean hasTier(int tier) {
+        return tier >= 1 && tier < requiredBuyQuantities.length;
+    }
+
+    private static int tierOf(Integer tierLevel) {
+        return tierLevel != null ? tierLevel : 1;
+    }
+}
@@ -0,0 +1,203 @@
+package com.monk.commerce.task.util;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.CartRequestDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read-only view of a cart built in one pass over its items: distinct products in cart order
+ * with their quantities, prices and line totals, the cart total, and an open-addressing table
+ * from product ID to position. Lookups neither box nor allocate, so one index can be shared by
+ * every coupon evaluated against the cart.
+ * <p>
+ * When every price is representable in {@link FixedPointMoney}, prices and totals are also
+ * kept as minor units together with the scale of the BigDecimal value, and strategies
+ * evaluate the cart with long arithmetic.
+ * <p>
+ * Repeated products are merged the way {@link CartUtil#getCartProductQuantities} and
+ * {@link CartUtil#getProductPrices} merge them: quantities add up and the first price wins.
+ */
+public final class CartIndex {
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final CartRequestDTO cart;
+    private final long[] productIds;
+    private final int[] quantities;
+    private final BigDecimal[] prices;
+    private final BigDecimal[] lineTotals;
+    private final long[] priceMinorUnits;
+    private final long[] lineTotalMinorUnits;
+    private final int size;
+    // Position + 1 of the product in the arrays above, 0 for an empty slot
+    private final int[] table;
+    private final int mask;
+    private final BigDecimal total;
+    private final long totalMinorUnits;
+    private final boolean fixedPoint;
+
+    private CartIndex(CartRequestDTO cart, boolean allowFixedPoint) {
+        this.cart = cart;
+        List<CartItemDTO> items = cart.getItems();
+        int capacity = Integer.highestOneBit(Math.max(1, items.size()) * 2 - 1) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        this.productIds = new long[items.size()];
+        this.quantities = new int[items.size()];
+        this.prices = new BigDecimal[items.size()];
+        this.lineTotals = new BigDecimal[items.size()];
+        this.priceMinorUnits = new long[items.size()];
+        this.lineTotalMinorUnits = new long[items.size()];
+        boolean minorUnits = allowFixedPoint;
+        int count = 0;
+        BigDecimal sum = BigDecimal.ZERO;
+        long sumMinorUnits = 0;
+        for (CartItemDTO item : items) {
+            long productId = item.getProductId();
+            BigDecimal lineTotal = item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            sum = sum.add(lineTotal);
+            long priceMinor = 0;
+            long lineMinorUnits = 0;
+            if (minorUnits && FixedPointMoney.isRepresentable(item.getPrice())) {
+                try {
+                    priceMinor = FixedPointMoney.toMinorUnits(item.getPrice());
+                    lineMinorUnits = Math.multiplyExact(priceMinor, item.getQuantity());
+                    sumMinorUnits = Math.addExact(sumMinorUnits, lineMinorUnits);
+                } catch (ArithmeticException e) {
+                    minorUnits = false;
+                }
+            } else {
+                minorUnits = false;
+            }
+            int slot = slotOf(productId);
+            int position = table[slot] - 1;
+            if (position >= 0) {
+                quantities[position] += item.getQuantity();
+                lineTotals[position] = lineTotals[position].add(lineTotal);
+                lineTotalMinorUnits[position] += lineMinorUnits;
+                continue;
+            }
+            productIds[count] = productId;
+            quantities[count] = item.getQuantity();
+            prices[count] = item.getPrice();
+            lineTotals[count] = lineTotal;
+            priceMinorUnits[count] = priceMinor;
+            lineTotalMinorUnits[count] = lineMinorUnits;
+            table[slot] = ++count;
+        }
+        this.size = count;
+        this.total = sum;
+        this.totalMinorUnits = sumMinorUnits;
+        this.fixedPoint = minorUnits;
+    }
+
+    public static CartIndex of(CartRequestDTO cart) {
+        Objects.requireNonNull(cart, "Cart cannot be null");
+        return new CartIndex(cart, true);
+    }
+
+    /**
+     * Index whose cart is always evaluated with BigDecimal arithmetic.
+     */
+    public static CartIndex withoutFixedPoint(CartRequestDTO cart) {
+        Objects.requireNonNull(cart, "Cart cannot be null");
+        return new CartIndex(cart, false);
+    }
+
+    /**
+     * Whether the minor unit accessors below hold the cart's amounts.
+     */
+    public boolean isFixedPoint() {
+        return fixedPoint;
+    }
+
+    public long getTotalMinorUnits() {
+        return totalMinorUnits;
+    }
+
+    public long getLineTotalMinorUnits(int position) {
+        return lineTotalMinorUnits[position];
+    }
+
+    public long getLineTotalMinorUnits(long productId) {
+        int position = positionOf(productId);
+        return position >= 0 ? lineTotalMinorUnits[position] : 0;
+    }
+
+    public long getPriceMinorUnits(long productId) {
+        int position = positionOf(productId);
+        return position >= 0 ? priceMinorUnits[position] : 0;
+    }
+
+    public int getPriceScale(long productId) {
+        int position = positionOf(productId);
+        return position >= 0 ? prices[position].scale() : 0;
+    }
+
+    public CartRequestDTO getCart() {
+        return cart;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    /**
+     * Number of distinct products in the cart.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getProductId(int position) {
+        return productIds[position];
+    }
+
+    public BigDecimal getLineTotal(int position) {
+        return lineTotals[position];
+    }
+
+    public boolean contains(long productId) {
+        return positionOf(productId) >= 0;
+    }
+
+    public boolean containsAny(long[] productIds) {
+        for (long productId : productIds) {
+            if (contains(productId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getQuantity(long productId) {
+        int position = positionOf(productId);
+        return position >= 0 ? quantities[position] : 0;
+    }
+
+    public BigDecimal getPrice(long productId) {
+        int position = positionOf(productId);
+        return position >= 0 ? prices[position] : BigDecimal.ZERO;
+    }
+
+    public BigDecimal getLineTotal(long productId) {
+        int position = positionOf(productId);
+        return position >= 0 ? lineTotals[position] : BigDecimal.ZERO;
+    }
+
+    private int positionOf(long productId) {
+        return table[slotOf(productId)] - 1;
+    }
+
+    // Linear probing; the table is at least twice the item count so an empty slot always ends the probe
+    private int slotOf(long productId) {
+        int slot = (int) ((productId * HASH_MULTIPLIER) >>> 32) & mask;
+        while (table[slot] != 0 && productIds[table[slot] - 1] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
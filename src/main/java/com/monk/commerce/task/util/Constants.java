@@ -19,6 +19,24 @@ public final class Constants {
     public static final String THRESHOLD_NOT_MET = "Cart total does not meet the threshold amount";
     public static final String PRODUCT_NOT_IN_CART = "Required product not found in cart";
     public static final String BXGY_CONDITION_NOT_MET = "BxGy coupon conditions not met";
+    public static final String COUPON_USAGE_LIMIT_REACHED = "Coupon has reached maximum usage limit";
+    public static final String USER_USAGE_LIMIT_REACHED = "User has reached usage limit for this coupon";
+    public static final String USAGE_LIMIT_REACHED = "Coupon usage limit reached";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final String INVALID_PAGE_SIZE = "Page size must be between 1 and %d";
+    public static final String INVALID_CURSOR = "Invalid page cursor";
+    public static final String INVALID_EXPIRY_WINDOW = "expires_from must be before expires_to";
+
+    // No 0/O or 1/I, which are easy to mistype when codes are entered by hand
+    public static final String CAMPAIGN_CODE_ALPHABET = "23456789ABCDEFGHJKLMNPQRSTUVWXYZ";
+    public static final int DEFAULT_CAMPAIGN_CODE_LENGTH = 10;
+    public static final int MAX_CAMPAIGN_CODE_LENGTH = 32;
+    public static final int MAX_CAMPAIGN_CODES = 5_000_000;
+    public static final String INVALID_CAMPAIGN_ALPHABET = "Alphabet must have between 2 and 64 distinct letters or digits";
+    public static final String INVALID_CAMPAIGN_CODE_LENGTH = "Campaign code including prefix must be at most %d characters";
+    public static final String CAMPAIGN_CODE_SPACE_TOO_SMALL = "Alphabet and length allow too few codes to generate %d unique codes";
 
     public static final String COUPON_TYPE_REQUIRED = "Coupon type is required";
     public static final String PRODUCT_ID_REQUIRED = "Product ID is required";
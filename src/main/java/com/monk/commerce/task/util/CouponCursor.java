@@ -0,0 +1,47 @@
+package com.monk.commerce.task.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Keyset position in the coupon listing: the next page starts after the coupon with this
+ * creation time and ID. Handed to clients as an opaque URL-safe string.
+ */
+public record CouponCursor(LocalDateTime createdAt, UUID id) {
+
+    private static final char SEPARATOR = '|';
+
+    public CouponCursor {
+        Objects.requireNonNull(createdAt, "Cursor creation time cannot be null");
+        Objects.requireNonNull(id, "Cursor ID cannot be null");
+    }
+
+    public String encode() {
+        String value = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns null for a null cursor, meaning the first page.
+     */
+    public static CouponCursor decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException(Constants.INVALID_CURSOR);
+            }
+            return new CouponCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    UUID.fromString(value.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(Constants.INVALID_CURSOR, e);
+        }
+    }
+}
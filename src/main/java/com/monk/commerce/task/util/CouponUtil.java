@@ -3,9 +3,10 @@ package com.monk.commerce.task.util;
 import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.entity.BxGyCoupon;
 import com.monk.commerce.task.entity.Coupon;
-import com.monk.commerce.task.entity.CouponUsage;
+import com.monk.commerce.task.entity.ExcludedProduct;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.UUID;
 
 public final class CouponUtil {
@@ -28,29 +29,45 @@ public final class CouponUtil {
         return coupon.getUsageCount() >= coupon.getMaxUsageLimit();
     }
 
-    public static boolean hasUserReachedLimit(Coupon coupon, String userId) {
-        if (coupon.getUsageLimitPerUser() == null || userId == null) return false;
-        
-        return coupon.getUsageHistory().stream()
-                .filter(usage -> usage.getUserId().equals(userId))
-                .mapToInt(CouponUsage::getUsageCount)
-                .sum() >= coupon.getUsageLimitPerUser();
+    public static boolean hasUserReachedLimit(Coupon coupon, int userUsageCount) {
+        if (coupon.getUsageLimitPerUser() == null) return false;
+        return userUsageCount >= coupon.getUsageLimitPerUser();
     }
 
     public static boolean isProductExcluded(Coupon coupon, Long productId) {
-        if (productId == null || coupon.getExcludedProducts().isEmpty()) return false;
+        if (productId == null || !hasExclusions(coupon)) return false;
         
         return coupon.getExcludedProducts().stream()
                 .anyMatch(ep -> ep.getProductId().equals(productId));
     }
 
     public static boolean hasExcludedProducts(Coupon coupon, CartRequestDTO cart) {
-        if (coupon.getExcludedProducts().isEmpty()) return false;
+        if (!hasExclusions(coupon)) return false;
         
         return cart.getItems().stream()
                 .anyMatch(item -> isProductExcluded(coupon, item.getProductId()));
     }
 
+    // Coupons built without the entity defaults, e.g. by the builder, have no exclusion list
+    private static boolean hasExclusions(Coupon coupon) {
+        return coupon.getExcludedProducts() != null && !coupon.getExcludedProducts().isEmpty();
+    }
+
+    /**
+     * Distinct product IDs the coupon excludes, for evaluators that check them without the entity.
+     */
+    public static long[] getExcludedProductIds(Coupon coupon) {
+        if (coupon.getExcludedProducts() == null) {
+            return new long[0];
+        }
+        return coupon.getExcludedProducts().stream()
+                .map(ExcludedProduct::getProductId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .distinct()
+                .toArray();
+    }
+
     public static int getMaxTierLevel(BxGyCoupon coupon) {
         int maxBuyTier = coupon.getBuyProducts().stream()
                 .mapToInt(bp -> bp.getTierLevel())
@@ -65,15 +82,9 @@ public final class CouponUtil {
         return Math.max(maxBuyTier, maxGetTier);
     }
 
-    public static Integer getUserUsageRemaining(Coupon coupon, String userId) {
+    public static Integer getUserUsageRemaining(Coupon coupon, int userUsageCount) {
         if (coupon.getUsageLimitPerUser() == null) return null;
-        
-        int used = coupon.getUsageHistory().stream()
-                .filter(usage -> usage.getUserId().equals(userId))
-                .mapToInt(CouponUsage::getUsageCount)
-                .sum();
-        
-        return Math.max(0, coupon.getUsageLimitPerUser() - used);
+        return Math.max(0, coupon.getUsageLimitPerUser() - userUsageCount);
     }
 
     public static Long getGlobalUsageRemaining(Coupon coupon) {
@@ -81,6 +92,11 @@ public final class CouponUtil {
         return Math.max(0L, coupon.getMaxUsageLimit() - coupon.getUsageCount());
     }
 
+    public static Long getGlobalUsageRemaining(Coupon coupon, long usageCount) {
+        if (coupon.getMaxUsageLimit() == null) return null;
+        return Math.max(0L, coupon.getMaxUsageLimit() - usageCount);
+    }
+
     public static String generateCouponCode() {
         return "CPN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
@@ -0,0 +1,67 @@
+package com.monk.commerce.task.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point money: amounts as {@code long} minor units (hundredths) and percentages as
+ * {@code long} basis points. Callers track alongside each amount the scale its
+ * {@link BigDecimal} counterpart would have, so that converting back yields exactly the value
+ * and scale the BigDecimal calculation produces, e.g. {@code 50} and {@code 50.00} stay distinct.
+ * <p>
+ * Amounts with more than two decimals or more than {@link #MAX_INTEGER_DIGITS} integer digits
+ * are not representable, and arithmetic overflow throws {@link ArithmeticException}; callers
+ * fall back to BigDecimal in both cases.
+ */
+public final class FixedPointMoney {
+
+    public static final int SCALE = 2;
+    private static final int MIN_SCALE = -8;
+    private static final int MAX_INTEGER_DIGITS = 15;
+    private static final long[] POWERS_OF_TEN = new long[SCALE - MIN_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private FixedPointMoney() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    public static boolean isRepresentable(BigDecimal amount) {
+        return amount != null
+                && amount.scale() <= SCALE
+                && amount.scale() >= MIN_SCALE
+                && amount.precision() - amount.scale() <= MAX_INTEGER_DIGITS;
+    }
+
+    /**
+     * Minor units of a representable amount, or basis points of a representable percentage.
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * The BigDecimal with the given value in minor units and the given scale of a
+     * representable amount or a sum or multiple of such amounts.
+     */
+    public static BigDecimal toBigDecimal(long minorUnits, int scale) {
+        return BigDecimal.valueOf(minorUnits / POWERS_OF_TEN[SCALE - scale], scale);
+    }
+
+    /**
+     * {@code amount * percentage / 100} in minor units, rounded HALF_UP like
+     * {@link DiscountCalculator#calculatePercentageDiscount}; the result has scale {@link #SCALE}.
+     */
+    public static long percentageOf(long amountMinorUnits, long basisPoints) {
+        long product = Math.multiplyExact(amountMinorUnits, basisPoints);
+        long quotient = product / 10_000;
+        if (Math.abs(product % 10_000) >= 5_000) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+}
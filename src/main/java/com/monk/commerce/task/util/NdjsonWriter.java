@@ -0,0 +1,39 @@
+package com.monk.commerce.task.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes each accepted item as one JSON line ({@code application/x-ndjson}). The first item is
+ * flushed right away so that clients see data early, later ones every {@link #FLUSH_EVERY} items.
+ */
+public final class NdjsonWriter<T> implements Consumer<T> {
+
+    private static final int FLUSH_EVERY = 64;
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream out;
+    private int written;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out) {
+        this.objectMapper = objectMapper;
+        this.out = out;
+    }
+
+    @Override
+    public void accept(T item) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(item));
+            out.write('\n');
+            if (++written == 1 || written % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.monk.commerce.task.validator;
 import com.monk.commerce.task.dto.request.CartItemDTO;
 import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.exception.InvalidCartException;
+import com.monk.commerce.task.util.CartIndex;
 import com.monk.commerce.task.util.Constants;
 import org.springframework.stereotype.Component;
 
@@ -19,7 +20,11 @@ public class CartValidator {
     private static final int MAX_ITEM_QUANTITY = 1000;
     private static final BigDecimal MAX_CART_TOTAL = new BigDecimal("10000000");
 
-    public void validateCartRequest(CartRequestDTO cartRequest) {
+    /**
+     * Validates the cart and returns its {@link CartIndex}, which is built once here and also
+     * supplies the total for the cart total check.
+     */
+    public CartIndex validateCartRequest(CartRequestDTO cartRequest) {
         if (cartRequest == null) {
             throw new InvalidCartException(Constants.INVALID_CART);
         }
@@ -41,7 +46,9 @@ public class CartValidator {
         }
 
         items.forEach(this::validateCartItem);
-        validateCartTotal(cartRequest);
+        CartIndex cartIndex = CartIndex.of(cartRequest);
+        validateCartTotal(cartIndex.getTotal());
+        return cartIndex;
     }
 
     public void validateCartItem(CartItemDTO item) {
@@ -82,7 +89,10 @@ public class CartValidator {
         BigDecimal cartTotal = cartRequest.getItems().stream()
                 .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
+        validateCartTotal(cartTotal);
+    }
 
+    private void validateCartTotal(BigDecimal cartTotal) {
         if (cartTotal.compareTo(BigDecimal.ZERO) < 0) {
             throw new InvalidCartException("Cart total cannot be negative");
         }
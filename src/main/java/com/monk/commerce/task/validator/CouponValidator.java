@@ -24,7 +24,7 @@ public class CouponValidator {
         }
 
         if (CouponUtil.hasReachedMaxUsage(coupon)) {
-            throw new InvalidCouponException("Coupon has reached maximum usage limit");
+            throw new InvalidCouponException(Constants.COUPON_USAGE_LIMIT_REACHED);
         }
     }
 
@@ -0,0 +1,4 @@
+-- Adds the tier selection mode of BxGy coupons for databases created before the column.
+-- Existing coupons keep applying the highest tier that is met.
+
+ALTER TABLE bxgy_coupon ADD COLUMN tier_selection VARCHAR(20) NOT NULL DEFAULT 'HIGHEST_MET';
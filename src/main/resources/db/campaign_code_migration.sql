@@ -0,0 +1,7 @@
+-- Adds the table of single-use campaign codes for databases created before it. Codes are unique
+-- across all campaigns and are removed with their coupon.
+
+CREATE TABLE campaign_code (code VARCHAR(32) PRIMARY KEY,
+coupon_id UUID NOT NULL REFERENCES coupon(id) ON DELETE CASCADE,created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
+CREATE INDEX idx_campaign_code_coupon ON campaign_code(coupon_id);
@@ -0,0 +1,3 @@
+-- Supports the keyset-paginated coupon listing, newest first by (created_at, id).
+
+CREATE INDEX idx_coupon_active_created ON coupon(is_active, created_at DESC, id DESC);
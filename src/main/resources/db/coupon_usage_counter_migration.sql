@@ -0,0 +1,13 @@
+-- Moves coupon.usage_count into coupon_usage_counter for databases created before the counter table.
+-- Legacy counts are spread over the 8 default slots (coupon.usage.counter-slots) with the same
+-- split as the per-slot quotas, so no slot starts above its share of max_usage_limit.
+
+CREATE TABLE coupon_usage_counter (coupon_id UUID NOT NULL REFERENCES coupon(id) ON DELETE CASCADE,
+slot INTEGER NOT NULL,usage_count BIGINT NOT NULL DEFAULT 0,PRIMARY KEY(coupon_id, slot));
+
+INSERT INTO coupon_usage_counter (coupon_id, slot, usage_count)
+SELECT c.id, s.slot, c.usage_count / 8 + CASE WHEN s.slot < c.usage_count % 8 THEN 1 ELSE 0 END
+FROM coupon c CROSS JOIN generate_series(0, 7) AS s(slot)
+WHERE c.usage_count / 8 + CASE WHEN s.slot < c.usage_count % 8 THEN 1 ELSE 0 END > 0;
+
+ALTER TABLE coupon DROP COLUMN usage_count;
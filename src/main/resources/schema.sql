@@ -1,7 +1,7 @@
 CREATE TABLE coupon (id UUID PRIMARY KEY DEFAULT gen_random_uuid(),coupon_code VARCHAR(50) UNIQUE NOT NULL,
 type VARCHAR(20) NOT NULL,description VARCHAR(500),
 is_active BOOLEAN NOT NULL DEFAULT TRUE,
-expiration_date TIMESTAMP,usage_count BIGINT NOT NULL DEFAULT 0,max_usage_limit BIGINT,usage_limit_per_user INTEGER,
+expiration_date TIMESTAMP,max_usage_limit BIGINT,usage_limit_per_user INTEGER,
 allow_stacking BOOLEAN NOT NULL DEFAULT FALSE,priority INTEGER NOT NULL DEFAULT 0,
 created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP);
 
@@ -14,7 +14,8 @@ discount_percentage DECIMAL(5,2) NOT NULL,max_discount_per_product DECIMAL(10,2)
 
 
 CREATE TABLE bxgy_coupon (id UUID PRIMARY KEY REFERENCES coupon(id) ON DELETE CASCADE,
-repetition_limit INTEGER NOT NULL, is_tiered BOOLEAN NOT NULL DEFAULT FALSE);
+repetition_limit INTEGER NOT NULL, is_tiered BOOLEAN NOT NULL DEFAULT FALSE,
+tier_selection VARCHAR(20) NOT NULL DEFAULT 'HIGHEST_MET');
 
 
 CREATE TABLE buy_product (id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
@@ -37,11 +38,18 @@ coupon_id UUID NOT NULL REFERENCES coupon(id) ON DELETE CASCADE,
 user_id VARCHAR(100) NOT NULL,usage_count INTEGER NOT NULL DEFAULT 1,
 last_used_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,UNIQUE(coupon_id, user_id));
 
+CREATE TABLE coupon_usage_counter (coupon_id UUID NOT NULL REFERENCES coupon(id) ON DELETE CASCADE,
+slot INTEGER NOT NULL,usage_count BIGINT NOT NULL DEFAULT 0,PRIMARY KEY(coupon_id, slot));
+
+CREATE TABLE campaign_code (code VARCHAR(32) PRIMARY KEY,
+coupon_id UUID NOT NULL REFERENCES coupon(id) ON DELETE CASCADE,created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
 CREATE INDEX idx_coupon_code ON coupon(coupon_code);
 CREATE INDEX idx_coupon_type ON coupon(type);
 CREATE INDEX idx_coupon_active ON coupon(is_active);
 CREATE INDEX idx_coupon_expiration ON coupon(expiration_date);
 CREATE INDEX idx_coupon_priority ON coupon(priority);
+CREATE INDEX idx_coupon_active_created ON coupon(is_active, created_at DESC, id DESC);
 CREATE INDEX idx_product_wise_product ON product_wise_coupon(product_id);
 CREATE INDEX idx_buy_product_coupon ON buy_product(bxgy_coupon_id);
 CREATE INDEX idx_buy_product_tier ON buy_product(tier_level);
@@ -51,3 +59,4 @@ CREATE INDEX idx_excluded_product_coupon ON excluded_product(coupon_id);
 CREATE INDEX idx_excluded_product_product ON excluded_product(product_id);
 CREATE INDEX idx_coupon_usage_user ON coupon_usage(user_id);
 CREATE INDEX idx_coupon_usage_coupon ON coupon_usage(coupon_id);
+CREATE INDEX idx_campaign_code_coupon ON campaign_code(coupon_id);
@@ -0,0 +1,142 @@
+package com.monk.commerce.task.cache;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.dto.response.ApplicableCouponResponseDTO;
+import com.monk.commerce.task.dto.response.ResultCacheStatsDTO;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.util.CartIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApplicableCouponCacheTest {
+
+    private final ApplicableCouponCache cache = new ApplicableCouponCache(2, 60_000);
+
+    private CartIndex cart(CartItemDTO... items) {
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(List.of(items));
+        return CartIndex.of(cart);
+    }
+
+    private List<ApplicableCouponResponseDTO> result() {
+        return List.of(ApplicableCouponResponseDTO.builder()
+                .couponId(UUID.randomUUID())
+                .discount(BigDecimal.TEN)
+                .build());
+    }
+
+    @Test
+    void keyFor_isCanonicalForItemOrderButKeepsPriceScale() {
+        CartItemDTO first = new CartItemDTO(1L, 2, BigDecimal.valueOf(100));
+        CartItemDTO second = new CartItemDTO(2L, 1, BigDecimal.valueOf(50));
+
+        assertEquals(cache.keyFor(cart(first, second), "user1", null, 1L),
+                cache.keyFor(cart(second, first), "user1", null, 1L));
+        assertNotEquals(cache.keyFor(cart(first, second), "user1", null, 1L),
+                cache.keyFor(cart(first, new CartItemDTO(2L, 1, new BigDecimal("50.00"))), "user1", null, 1L));
+        assertNotEquals(cache.keyFor(cart(first), "user1", null, 1L), cache.keyFor(cart(first), "user1", null, 2L));
+        assertNotEquals(cache.keyFor(cart(first), "user1", null, 1L), cache.keyFor(cart(first), "user1", 5, 1L));
+    }
+
+    @Test
+    void keyFor_repeatedProductAtDifferentPrices_differsByLineTotal() {
+        CartItemDTO first = new CartItemDTO(1L, 1, BigDecimal.valueOf(10));
+
+        assertNotEquals(cache.keyFor(cart(first, new CartItemDTO(1L, 1, BigDecimal.valueOf(20))), "user1", null, 1L),
+                cache.keyFor(cart(first, new CartItemDTO(1L, 1, BigDecimal.valueOf(30))), "user1", null, 1L));
+    }
+
+    @Test
+    void keyFor_anonymousCartDiffersFromUserNamedNull() {
+        CartIndex cartIndex = cart(new CartItemDTO(1L, 1, BigDecimal.TEN));
+
+        assertNotEquals(cache.keyFor(cartIndex, null, null, 1L), cache.keyFor(cartIndex, "null", null, 1L));
+        assertNotEquals(cache.keyFor(cartIndex, null, null, 1L), cache.keyFor(cartIndex, "", null, 1L));
+    }
+
+    @Test
+    void get_hitsAfterPutAndCountsHitsAndMisses() {
+        ApplicableCouponCache.Key key = cache.keyFor(cart(new CartItemDTO(1L, 1, BigDecimal.TEN)), null, null, 1L);
+        List<ApplicableCouponResponseDTO> coupons = result();
+
+        assertNull(cache.get(key));
+        cache.put(key, coupons, null);
+
+        assertEquals(coupons, cache.get(key));
+        ResultCacheStatsDTO stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedBeyondMaxEntries() {
+        ApplicableCouponCache.Key first = cache.keyFor(cart(new CartItemDTO(1L, 1, BigDecimal.TEN)), null, null, 1L);
+        ApplicableCouponCache.Key second = cache.keyFor(cart(new CartItemDTO(2L, 1, BigDecimal.TEN)), null, null, 1L);
+        ApplicableCouponCache.Key third = cache.keyFor(cart(new CartItemDTO(3L, 1, BigDecimal.TEN)), null, null, 1L);
+        cache.put(first, result(), null);
+        cache.put(second, result(), null);
+        cache.get(first);
+
+        cache.put(third, result(), null);
+
+        assertNotNull(cache.get(first));
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(third));
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    void put_shardedCacheStaysWithinMaxEntries() {
+        ApplicableCouponCache large = new ApplicableCouponCache(1024, 60_000);
+        for (long productId = 1; productId <= 3000; productId++) {
+            large.put(large.keyFor(cart(new CartItemDTO(productId, 1, BigDecimal.TEN)), null, null, 1L), result(), null);
+        }
+
+        ResultCacheStatsDTO stats = large.stats();
+        assertTrue(stats.getSize() <= 1024, "size " + stats.getSize());
+        assertEquals(3000, stats.getSize() + stats.getEvictions());
+    }
+
+    @Test
+    void put_skipsResultsWhoseCouponsHaveExpired() {
+        ApplicableCouponCache.Key key = cache.keyFor(cart(new CartItemDTO(1L, 1, BigDecimal.TEN)), null, null, 1L);
+
+        cache.put(key, result(), LocalDateTime.now().minusSeconds(1));
+
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void invalidateAfterCommit_changesKeysOfUserForUserLimitedCoupon() {
+        CartIndex cartIndex = cart(new CartItemDTO(1L, 1, BigDecimal.TEN));
+        ApplicableCouponCache.Key before = cache.keyFor(cartIndex, "user1", null, 1L);
+        ApplicableCouponCache.Key otherUser = cache.keyFor(cartIndex, "user2", null, 1L);
+        CartWiseCoupon unlimited = new CartWiseCoupon();
+        CartWiseCoupon userLimited = new CartWiseCoupon();
+        userLimited.setUsageLimitPerUser(1);
+
+        cache.invalidateAfterCommit(unlimited, "user1");
+        assertEquals(before, cache.keyFor(cartIndex, "user1", null, 1L));
+
+        cache.invalidateAfterCommit(userLimited, "user1");
+        assertNotEquals(before, cache.keyFor(cartIndex, "user1", null, 1L));
+        assertEquals(otherUser, cache.keyFor(cartIndex, "user2", null, 1L));
+    }
+
+    @Test
+    void keyFor_returnsNullWhenDisabled() {
+        ApplicableCouponCache disabled = new ApplicableCouponCache(0, 60_000);
+
+        assertNull(disabled.keyFor(cart(new CartItemDTO(1L, 1, BigDecimal.TEN)), null, null, 1L));
+        assertFalse(disabled.stats().isEnabled());
+    }
+}
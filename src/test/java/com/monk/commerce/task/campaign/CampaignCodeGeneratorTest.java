@@ -0,0 +1,101 @@
+package com.monk.commerce.task.campaign;
+
+import com.monk.commerce.task.util.Constants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CampaignCodeGeneratorTest {
+
+    @Mock
+    private CampaignCodeWriter writer;
+
+    private CampaignCodeGenerator generator;
+    private final UUID couponId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        generator = new CampaignCodeGenerator(writer, 10);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<String>> insertedChunks(int times) {
+        ArgumentCaptor<List<String>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(writer, times(times)).insert(eq(couponId), chunks.capture());
+        return chunks.getAllValues();
+    }
+
+    @Test
+    void generate_writesUniqueCodesInChunks() {
+        when(writer.findExisting(any())).thenReturn(Set.of());
+
+        int generated = generator.generate(couponId, 25, Constants.CAMPAIGN_CODE_ALPHABET, "X-", 8);
+
+        assertEquals(25, generated);
+        List<List<String>> chunks = insertedChunks(3);
+        assertEquals(List.of(10, 10, 5), chunks.stream().map(List::size).toList());
+        Set<String> codes = new HashSet<>();
+        chunks.forEach(codes::addAll);
+        assertEquals(25, codes.size());
+        assertTrue(codes.stream().allMatch(code -> code.startsWith("X-") && code.length() == 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generate_storedCodesAreReplacedAndOnlyReplacementsRechecked() {
+        String[] taken = new String[1];
+        when(writer.findExisting(any()))
+                .thenAnswer(invocation -> {
+                    taken[0] = ((Collection<String>) invocation.getArgument(0)).iterator().next();
+                    return Set.of(taken[0]);
+                })
+                .thenReturn(Set.of());
+
+        generator.generate(couponId, 10, Constants.CAMPAIGN_CODE_ALPHABET, "", 8);
+
+        List<String> chunk = insertedChunks(1).get(0);
+        assertEquals(10, chunk.size());
+        assertFalse(chunk.contains(taken[0]));
+        verify(writer).findExisting(argThat(codes -> codes.size() == 1));
+    }
+
+    @Test
+    void generate_insertClash_retriesChunkWithNewCodes() {
+        when(writer.findExisting(any())).thenReturn(Set.of());
+        doThrow(new DuplicateKeyException("campaign_code_pkey")).doNothing().when(writer).insert(eq(couponId), any());
+
+        assertEquals(10, generator.generate(couponId, 10, Constants.CAMPAIGN_CODE_ALPHABET, "", 8));
+
+        List<List<String>> chunks = insertedChunks(2);
+        assertNotEquals(new HashSet<>(chunks.get(0)), new HashSet<>(chunks.get(1)));
+    }
+
+    @Test
+    void generate_codeSpaceTooSmall_throwsBeforeWriting() {
+        // 32^4 codes leave room for at most 10485 at one code in a hundred
+        assertThrows(IllegalArgumentException.class,
+                () -> generator.generate(couponId, 20_000, Constants.CAMPAIGN_CODE_ALPHABET, "", 4));
+
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    void constructor_chunkSizeOutOfRange_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new CampaignCodeGenerator(writer, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CampaignCodeGenerator(writer, 30_001));
+    }
+}
@@ -0,0 +1,52 @@
+package com.monk.commerce.task.campaign;
+
+import com.monk.commerce.task.util.Constants;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomCodeGeneratorTest {
+
+    @Test
+    void next_prefixFollowedByLettersOfAlphabet() {
+        RandomCodeGenerator generator = new RandomCodeGenerator(Constants.CAMPAIGN_CODE_ALPHABET, "SUMMER-", 10, new Random(1));
+
+        for (int i = 0; i < 1000; i++) {
+            String code = generator.next();
+            assertEquals(17, code.length());
+            assertTrue(code.startsWith("SUMMER-"));
+            assertTrue(code.substring(7).chars().allMatch(c -> Constants.CAMPAIGN_CODE_ALPHABET.indexOf(c) >= 0), code);
+        }
+    }
+
+    @Test
+    void next_lettersEquallyLikelyForAlphabetNotDividing256() {
+        RandomCodeGenerator generator = new RandomCodeGenerator("ABC", "", 1, new Random(7));
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < 30_000; i++) {
+            counts.merge(generator.next(), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(Math.abs(count - 10_000) < 400, "count " + count));
+    }
+
+    @Test
+    void capacity_alphabetToThePowerOfLength() {
+        assertEquals(32L * 32 * 32 * 32, new RandomCodeGenerator(Constants.CAMPAIGN_CODE_ALPHABET, "", 4, new Random()).capacity());
+        assertEquals(Long.MAX_VALUE, new RandomCodeGenerator(Constants.CAMPAIGN_CODE_ALPHABET, "", 32, new Random()).capacity());
+    }
+
+    @Test
+    void constructor_invalidAlphabetOrLength_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new RandomCodeGenerator("A", "", 8, new Random()));
+        assertThrows(IllegalArgumentException.class, () -> new RandomCodeGenerator("AAB", "", 8, new Random()));
+        assertThrows(IllegalArgumentException.class, () -> new RandomCodeGenerator("AB-", "", 8, new Random()));
+        assertThrows(IllegalArgumentException.class, () -> new RandomCodeGenerator("AB", "PREFIX", 27, new Random()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.monk.commerce.task.catalog;
+
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.enums.TierSelection;
+import com.monk.commerce.task.repository.CouponViewRepository;
+import com.monk.commerce.task.repository.projection.BxGyCouponView;
+import com.monk.commerce.task.repository.projection.CartWiseCouponView;
+import com.monk.commerce.task.repository.projection.ExcludedProductView;
+import com.monk.commerce.task.repository.projection.TierProductView;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CouponCatalogLoaderTest {
+
+    @Mock
+    private CouponViewRepository couponViewRepository;
+
+    private CouponCatalogLoader loader;
+
+    @BeforeEach
+    void setup() {
+        loader = new CouponCatalogLoader(couponViewRepository);
+    }
+
+    private CartWiseCouponView cartWiseView(UUID id) {
+        return new CartWiseCouponView(id, "CART10", CouponType.CART_WISE, null, null, 3L, 10L, null,
+                true, 2, LocalDateTime.now(), null, BigDecimal.valueOf(100), BigDecimal.valueOf(10), null);
+    }
+
+    private BxGyCouponView bxGyView(UUID id) {
+        return new BxGyCouponView(id, "B2G1", CouponType.BXGY, null, null, 0L, null, 1,
+                false, 0, LocalDateTime.now(), null, 2, true, TierSelection.BEST_VALUE);
+    }
+
+    @Test
+    void loadActiveCoupons_assemblesCouponsWithTheirProducts() {
+        UUID cartWiseId = UUID.randomUUID();
+        UUID bxGyId = UUID.randomUUID();
+        when(couponViewRepository.findActiveCartWiseCoupons()).thenReturn(List.of(cartWiseView(cartWiseId)));
+        when(couponViewRepository.findActiveBxGyCoupons()).thenReturn(List.of(bxGyView(bxGyId)));
+        when(couponViewRepository.findActiveExcludedProducts()).thenReturn(List.of(
+                new ExcludedProductView(cartWiseId, 7L), new ExcludedProductView(bxGyId, 8L)));
+        when(couponViewRepository.findActiveBuyProducts()).thenReturn(List.of(
+                new TierProductView(bxGyId, 1L, 2, 1), new TierProductView(bxGyId, 2L, 3, 2)));
+        when(couponViewRepository.findActiveGetProducts()).thenReturn(List.of(new TierProductView(bxGyId, 3L, 1, 1)));
+
+        Map<UUID, Coupon> coupons = loader.loadActiveCoupons().stream()
+                .collect(Collectors.toMap(Coupon::getId, Function.identity()));
+
+        CartWiseCoupon cartWise = (CartWiseCoupon) coupons.get(cartWiseId);
+        assertEquals(new BigDecimal("100"), cartWise.getThresholdAmount());
+        assertEquals(3L, cartWise.getUsageCount());
+        assertTrue(cartWise.getIsActive());
+        assertEquals(7L, cartWise.getExcludedProducts().get(0).getProductId());
+        BxGyCoupon bxGy = (BxGyCoupon) coupons.get(bxGyId);
+        assertEquals(TierSelection.BEST_VALUE, bxGy.getTierSelection());
+        assertEquals(2, bxGy.getBuyProducts().size());
+        assertEquals(2, bxGy.getTierTable().getMaxTier());
+        assertEquals(3L, bxGy.getGetProducts().get(0).getProductId());
+        assertSame(bxGy, bxGy.getGetProducts().get(0).getBxgyCoupon());
+    }
+
+    @Test
+    void loadActiveCoupons_skipsRowsOfUnknownCoupons() {
+        when(couponViewRepository.findActiveExcludedProducts()).thenReturn(List.of(new ExcludedProductView(UUID.randomUUID(), 7L)));
+        when(couponViewRepository.findActiveBuyProducts()).thenReturn(List.of(new TierProductView(UUID.randomUUID(), 1L, 2, 1)));
+
+        assertTrue(loader.loadActiveCoupons().isEmpty());
+    }
+}
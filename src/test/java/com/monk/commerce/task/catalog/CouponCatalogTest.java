@@ -0,0 +1,135 @@
+package com.monk.commerce.task.catalog;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.factory.CouponStrategyFactory;
+import com.monk.commerce.task.repository.CouponRepository;
+import com.monk.commerce.task.strategy.BxGyCouponStrategy;
+import com.monk.commerce.task.strategy.CartWiseCouponStrategy;
+import com.monk.commerce.task.strategy.CouponEvaluation;
+import com.monk.commerce.task.strategy.ProductWiseCouponStrategy;
+import com.monk.commerce.task.util.CartIndex;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CouponCatalogTest {
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CouponCatalogLoader catalogLoader;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CouponCatalog catalog;
+
+    @BeforeEach
+    void setup() {
+        CouponStrategyFactory strategyFactory = new CouponStrategyFactory(
+                new CartWiseCouponStrategy(), new ProductWiseCouponStrategy(), new BxGyCouponStrategy());
+        catalog = new CouponCatalog(couponRepository, catalogLoader, strategyFactory, transactionManager, 60_000);
+    }
+
+    private Coupon createCoupon(int priority, Long maxUsageLimit, long usageCount) {
+        CartWiseCoupon coupon = new CartWiseCoupon();
+        coupon.setId(UUID.randomUUID());
+        coupon.setType(CouponType.CART_WISE);
+        coupon.setIsActive(true);
+        coupon.setPriority(priority);
+        coupon.setMaxUsageLimit(maxUsageLimit);
+        coupon.setUsageCount(usageCount);
+        coupon.setThresholdAmount(BigDecimal.valueOf(100));
+        coupon.setDiscountPercentage(BigDecimal.valueOf(10));
+        coupon.setExcludedProducts(new ArrayList<>());
+        return coupon;
+    }
+
+    @Test
+    void current_loadsOnceAndReusesSnapshot() {
+        when(catalogLoader.loadActiveCoupons()).thenReturn(List.of(createCoupon(0, null, 0)));
+
+        CouponCatalogSnapshot first = catalog.current();
+        CouponCatalogSnapshot second = catalog.current();
+
+        assertSame(first, second);
+        assertEquals(1, first.size());
+        verify(catalogLoader, times(1)).loadActiveCoupons();
+    }
+
+    @Test
+    void current_compilesEvaluatorForEachCoupon() {
+        Coupon coupon = createCoupon(0, null, 0);
+        when(catalogLoader.loadActiveCoupons()).thenReturn(List.of(coupon));
+
+        CouponCatalogSnapshot snapshot = catalog.current();
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(List.of(new CartItemDTO(1L, 2, BigDecimal.valueOf(100))));
+        CouponEvaluation evaluation = snapshot.getEvaluator(coupon.getId()).evaluate(CartIndex.of(cart));
+
+        assertTrue(evaluation.applicable());
+        assertEquals(new BigDecimal("20.00"), evaluation.discount());
+    }
+
+    @Test
+    void refresh_swapsSnapshotWithNewVersion() {
+        when(catalogLoader.loadActiveCoupons()).thenReturn(List.of(createCoupon(0, null, 0)));
+
+        CouponCatalogSnapshot first = catalog.current();
+        CouponCatalogSnapshot refreshed = catalog.refresh();
+
+        assertTrue(refreshed.getVersion() > first.getVersion());
+        assertSame(refreshed, catalog.current());
+    }
+
+    @Test
+    void recordUsageAfterCommit_exhaustsCouponInMemory() {
+        Coupon coupon = createCoupon(0, 2L, 1);
+        when(catalogLoader.loadActiveCoupons()).thenReturn(List.of(coupon));
+
+        CouponCatalogSnapshot snapshot = catalog.current();
+        assertEquals(1, snapshot.getValidCoupons(LocalDateTime.now()).size());
+
+        catalog.recordUsageAfterCommit(coupon.getId());
+
+        assertEquals(2L, snapshot.getUsageCount(coupon.getId()));
+        assertTrue(snapshot.getValidCoupons(LocalDateTime.now()).isEmpty());
+        assertEquals(0L, snapshot.getGlobalUsageRemaining(coupon));
+    }
+
+    @Test
+    void getValidCoupons_filtersExpiredAndInactiveAndOrdersByPriority() {
+        Coupon low = createCoupon(1, null, 0);
+        Coupon high = createCoupon(5, null, 0);
+        Coupon expired = createCoupon(9, null, 0);
+        expired.setExpirationDate(LocalDateTime.now().minusMinutes(1));
+        Coupon inactive = createCoupon(9, null, 0);
+        inactive.setIsActive(false);
+
+        CouponCatalogSnapshot snapshot = new CouponCatalogSnapshot(1L, Instant.now(), List.of(low, expired, high, inactive));
+
+        List<Coupon> valid = snapshot.getValidCoupons(LocalDateTime.now());
+
+        assertEquals(List.of(high, low), valid);
+    }
+}
@@ -0,0 +1,160 @@
+package com.monk.commerce.task.catalog;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
+import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.entity.ProductWiseCoupon;
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.util.CartIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouponIndexTest {
+
+    private CartRequestDTO cart(Long... productIds) {
+        List<CartItemDTO> items = Arrays.stream(productIds)
+                .map(productId -> new CartItemDTO(productId, 1, BigDecimal.valueOf(100)))
+                .toList();
+        return CartRequestDTO.builder().items(items).build();
+    }
+
+    private <T extends Coupon> T activate(T coupon, CouponType type, Long... excludedProductIds) {
+        coupon.setId(UUID.randomUUID());
+        coupon.setType(type);
+        coupon.setIsActive(true);
+        coupon.setPriority(0);
+        coupon.setUsageCount(0L);
+        for (Long productId : excludedProductIds) {
+            coupon.getExcludedProducts().add(ExcludedProduct.builder().productId(productId).build());
+        }
+        return coupon;
+    }
+
+    private CartWiseCoupon cartWise(Long... excludedProductIds) {
+        return activate(new CartWiseCoupon(), CouponType.CART_WISE, excludedProductIds);
+    }
+
+    private CartWiseCoupon cartWiseWithThreshold(long threshold, Long... excludedProductIds) {
+        CartWiseCoupon coupon = cartWise(excludedProductIds);
+        coupon.setThresholdAmount(BigDecimal.valueOf(threshold));
+        return coupon;
+    }
+
+    private ProductWiseCoupon productWise(Long productId, Long... excludedProductIds) {
+        ProductWiseCoupon coupon = activate(new ProductWiseCoupon(), CouponType.PRODUCT_WISE, excludedProductIds);
+        coupon.setProductId(productId);
+        return coupon;
+    }
+
+    private BxGyCoupon bxGy(Long buyProductId, Long getProductId, Long... excludedProductIds) {
+        BxGyCoupon coupon = activate(new BxGyCoupon(), CouponType.BXGY, excludedProductIds);
+        coupon.getBuyProducts().add(BuyProduct.builder().productId(buyProductId).quantity(2).tierLevel(1).build());
+        coupon.getGetProducts().add(GetProduct.builder().productId(getProductId).quantity(1).tierLevel(1).build());
+        return coupon;
+    }
+
+    private Set<UUID> candidates(CouponCatalogSnapshot snapshot, CartRequestDTO cart) {
+        return snapshot.getCandidateCoupons(CartIndex.of(cart), LocalDateTime.now()).stream()
+                .map(Coupon::getId)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void candidates_includeCartWiseAndMatchingProductWise() {
+        CartWiseCoupon cartWise = cartWise();
+        ProductWiseCoupon onCartProduct = productWise(1L);
+        ProductWiseCoupon offCartProduct = productWise(99L);
+
+        CouponCatalogSnapshot snapshot = new CouponCatalogSnapshot(1L, Instant.now(), List.of(cartWise, onCartProduct, offCartProduct));
+
+        assertEquals(Set.of(cartWise.getId(), onCartProduct.getId()), candidates(snapshot, cart(1L, 2L)));
+    }
+
+    @Test
+    void candidates_requireBothBuyAndGetProductForBxGy() {
+        BxGyCoupon bxGy = bxGy(1L, 2L);
+
+        CouponCatalogSnapshot snapshot = new CouponCatalogSnapshot(1L, Instant.now(), List.of(bxGy));
+
+        assertEquals(Set.of(bxGy.getId()), candidates(snapshot, cart(1L, 2L)));
+        assertTrue(candidates(snapshot, cart(1L)).isEmpty());
+        assertTrue(candidates(snapshot, cart(2L)).isEmpty());
+    }
+
+    @Test
+    void candidates_dropCouponsExcludingACartProduct() {
+        CartWiseCoupon cartWise = cartWise(3L);
+        BxGyCoupon bxGy = bxGy(1L, 2L, 3L);
+        ProductWiseCoupon selfExcluded = productWise(1L, 1L);
+
+        CouponCatalogSnapshot snapshot = new CouponCatalogSnapshot(1L, Instant.now(), List.of(cartWise, bxGy, selfExcluded));
+
+        assertEquals(Set.of(cartWise.getId(), bxGy.getId()), candidates(snapshot, cart(1L, 2L)));
+        assertTrue(candidates(snapshot, cart(1L, 2L, 3L)).isEmpty());
+    }
+
+    @Test
+    void candidates_keepCartWiseWithoutExclusionsOnlyUpToCartTotal() {
+        CartWiseCoupon low = cartWiseWithThreshold(50);
+        CartWiseCoupon atTotal = cartWiseWithThreshold(200);
+        CartWiseCoupon high = cartWiseWithThreshold(300);
+        CartWiseCoupon highWithExclusion = cartWiseWithThreshold(300, 9L);
+
+        CouponCatalogSnapshot snapshot = new CouponCatalogSnapshot(1L, Instant.now(), List.of(high, atTotal, highWithExclusion, low));
+
+        // Two products at 100: the cart total is 200
+        assertEquals(Set.of(low.getId(), atTotal.getId(), highWithExclusion.getId()), candidates(snapshot, cart(1L, 2L)));
+        assertEquals(Set.of(low.getId(), highWithExclusion.getId()), candidates(snapshot, cart(1L)));
+
+        CartWiseCoupon lowered = cartWiseWithThreshold(150);
+        lowered.setId(high.getId());
+        CouponCatalogSnapshot updated = snapshot.withCoupon(2L, lowered);
+
+        assertEquals(Set.of(low.getId(), lowered.getId(), atTotal.getId(), highWithExclusion.getId()), candidates(updated, cart(1L, 2L)));
+        assertEquals(Set.of(low.getId(), atTotal.getId(), highWithExclusion.getId()), candidates(snapshot, cart(1L, 2L)));
+    }
+
+    @Test
+    void withCoupon_reindexesUpdatedCouponWithoutTouchingPreviousSnapshot() {
+        ProductWiseCoupon coupon = productWise(1L);
+        CouponCatalogSnapshot original = new CouponCatalogSnapshot(1L, Instant.now(), List.of(coupon));
+
+        ProductWiseCoupon moved = productWise(2L);
+        moved.setId(coupon.getId());
+        CouponCatalogSnapshot updated = original.withCoupon(2L, moved);
+
+        assertEquals(2L, updated.getVersion());
+        assertEquals(Set.of(coupon.getId()), candidates(original, cart(1L)));
+        assertTrue(candidates(updated, cart(1L)).isEmpty());
+        assertEquals(Set.of(moved.getId()), candidates(updated, cart(2L)));
+    }
+
+    @Test
+    void withoutCoupon_removesCouponFromIndex() {
+        BxGyCoupon bxGy = bxGy(1L, 2L);
+        CartWiseCoupon cartWise = cartWise();
+        CouponCatalogSnapshot original = new CouponCatalogSnapshot(1L, Instant.now(), List.of(bxGy, cartWise));
+
+        CouponCatalogSnapshot updated = original.withoutCoupon(2L, bxGy.getId());
+
+        assertEquals(1, updated.size());
+        assertEquals(Set.of(cartWise.getId()), candidates(updated, cart(1L, 2L)));
+        assertEquals(Set.of(bxGy.getId(), cartWise.getId()), candidates(original, cart(1L, 2L)));
+    }
+}
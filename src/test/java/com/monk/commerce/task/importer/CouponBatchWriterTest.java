@@ -0,0 +1,93 @@
+package com.monk.commerce.task.importer;
+
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
+import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.enums.TierSelection;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CouponBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CouponBatchWriter writer;
+
+    @BeforeEach
+    void setup() {
+        writer = new CouponBatchWriter(jdbcTemplate, transactionManager);
+    }
+
+    private static void verifyBatch(JdbcTemplate jdbcTemplate, String table, int rows) {
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO " + table + " "),
+                argThat((Collection<Object> batch) -> batch.size() == rows), eq(500), any());
+    }
+
+    @Test
+    void insert_writesEveryTableInOneBatchAndAssignsDefaults() {
+        CartWiseCoupon cartWise = CartWiseCoupon.builder()
+                .couponCode("CART10")
+                .type(CouponType.CART_WISE)
+                .thresholdAmount(BigDecimal.valueOf(100))
+                .discountPercentage(BigDecimal.valueOf(10))
+                .excludedProducts(new ArrayList<>())
+                .build();
+        cartWise.getExcludedProducts().add(ExcludedProduct.builder().coupon(cartWise).productId(7L).build());
+        BxGyCoupon bxGy = BxGyCoupon.builder()
+                .couponCode("B2G1")
+                .type(CouponType.BXGY)
+                .repetitionLimit(2)
+                .buyProducts(new ArrayList<>())
+                .getProducts(new ArrayList<>())
+                .build();
+        bxGy.getBuyProducts().add(BuyProduct.builder().bxgyCoupon(bxGy).productId(1L).quantity(2).build());
+        bxGy.getGetProducts().add(GetProduct.builder().bxgyCoupon(bxGy).productId(3L).quantity(1).build());
+
+        writer.insert(List.<Coupon>of(cartWise, bxGy));
+
+        verifyBatch(jdbcTemplate, "coupon", 2);
+        verifyBatch(jdbcTemplate, "cart_wise_coupon", 1);
+        verifyBatch(jdbcTemplate, "product_wise_coupon", 0);
+        verifyBatch(jdbcTemplate, "bxgy_coupon", 1);
+        verifyBatch(jdbcTemplate, "buy_product", 1);
+        verifyBatch(jdbcTemplate, "get_product", 1);
+        verifyBatch(jdbcTemplate, "excluded_product", 1);
+        verify(transactionManager).commit(any());
+        assertNotNull(cartWise.getId());
+        assertNotNull(cartWise.getExcludedProducts().get(0).getId());
+        assertTrue(cartWise.getIsActive());
+        assertEquals(0, cartWise.getPriority());
+        assertEquals(TierSelection.HIGHEST_MET, bxGy.getTierSelection());
+        assertEquals(1, bxGy.getBuyProducts().get(0).getTierLevel());
+    }
+
+    @Test
+    void insert_empty_doesNothing() {
+        writer.insert(List.of());
+
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+}
@@ -0,0 +1,107 @@
+package com.monk.commerce.task.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.monk.commerce.task.dto.response.CouponImportErrorDTO;
+import com.monk.commerce.task.dto.response.CouponImportResponseDTO;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.mapper.CouponMapper;
+import com.monk.commerce.task.repository.CouponRepository;
+
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CouponImporterTest {
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    @Mock
+    private CouponBatchWriter batchWriter;
+
+    private CouponImporter importer;
+
+    @BeforeEach
+    void setup() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        importer = new CouponImporter(couponRepository, new CouponMapper(objectMapper), batchWriter, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), 2);
+    }
+
+    private static String cartWise(String couponCode) {
+        return "{\"coupon_code\":\"" + couponCode + "\",\"type\":\"cart-wise\",\"details\":{\"threshold\":100,\"discount\":10}}";
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Integer> errorIndexes(CouponImportResponseDTO response) {
+        return response.getErrors().stream().map(CouponImportErrorDTO::getIndex).toList();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCoupons_ndjson_writesRowsInChunks() {
+        CouponImportResponseDTO response = importer.importCoupons(input(
+                cartWise("A") + "\n" + cartWise("B") + "\n" + cartWise("C") + "\n"));
+
+        assertEquals(3, response.getImported());
+        assertEquals(0, response.getFailed());
+        ArgumentCaptor<List<Coupon>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter, times(2)).insert(chunks.capture());
+        assertEquals(List.of(2, 1), chunks.getAllValues().stream().map(List::size).toList());
+        verify(couponRepository, times(2)).findExistingCouponCodes(any());
+    }
+
+    @Test
+    void importCoupons_jsonArray_reportsEachFailedRow() {
+        when(couponRepository.findExistingCouponCodes(List.of("A", "TAKEN"))).thenReturn(List.of("TAKEN"));
+
+        CouponImportResponseDTO response = importer.importCoupons(input("[" +
+                cartWise("A") + "," +
+                cartWise("A") + "," +
+                "{\"coupon_code\":\"NOTYPE\"}," +
+                cartWise("TAKEN") + "," +
+                "{\"coupon_code\":\"NODETAILS\",\"type\":\"cart-wise\"}]"));
+
+        assertEquals(1, response.getImported());
+        assertEquals(4, response.getFailed());
+        assertEquals(List.of(1, 2, 3, 4), errorIndexes(response));
+        assertEquals("Coupon code already exists: TAKEN", response.getErrors().get(2).getError());
+        verify(batchWriter).insert(argThat(coupons -> coupons.size() == 1 && "A".equals(coupons.get(0).getCouponCode())));
+    }
+
+    @Test
+    void importCoupons_malformedInput_stopsAndKeepsRowsReadBefore() {
+        CouponImportResponseDTO response = importer.importCoupons(input(cartWise("A") + "\n{\"coupon_code\": \n"));
+
+        assertEquals(1, response.getImported());
+        assertEquals(List.of(1), errorIndexes(response));
+        assertTrue(response.getErrors().get(0).getError().startsWith("Malformed input"));
+    }
+
+    @Test
+    void importCoupons_chunkWriteFails_reportsEveryRowOfChunk() {
+        doThrow(new DataIntegrityViolationException("duplicate key")).when(batchWriter).insert(any());
+
+        CouponImportResponseDTO response = importer.importCoupons(input(cartWise("A") + "\n" + cartWise("B")));
+
+        assertEquals(0, response.getImported());
+        assertEquals(List.of(0, 1), errorIndexes(response));
+    }
+}
@@ -9,6 +9,7 @@ import com.monk.commerce.task.entity.Coupon;
 import com.monk.commerce.task.entity.ExcludedProduct;
 import com.monk.commerce.task.entity.ProductWiseCoupon;
 import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.enums.TierSelection;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -90,6 +91,23 @@ class CouponMapperTest {
         assertEquals(2, c.getGetProducts().size() - 1 + 1);
     }
 
+    @Test
+    void toEntity_bxgy_mapsTierSelection() {
+        CouponRequestDTO dto = new CouponRequestDTO();
+        dto.setType("bxgy");
+        BxGyDetailsDTO details = new BxGyDetailsDTO();
+        details.setRepetitionLimit(1);
+        details.setBuyProducts(List.of(new BxGyProductDTO(1L, 2, 1), new BxGyProductDTO(1L, 4, 2)));
+        details.setGetProducts(List.of(new BxGyProductDTO(2L, 1, 1), new BxGyProductDTO(3L, 1, 2)));
+        details.setTierSelection("best-value");
+        dto.setDetails(details);
+
+        BxGyCoupon coupon = (BxGyCoupon) mapper.toEntity(dto);
+
+        assertEquals(TierSelection.BEST_VALUE, coupon.getTierSelection());
+        assertEquals("best-value", ((BxGyDetailsDTO) mapper.toResponseDTO(coupon).getDetails()).getTierSelection());
+    }
+
     @Test
     void toResponseDTO_correctMapping() {
         CartWiseCoupon coupon = CartWiseCoupon.builder()
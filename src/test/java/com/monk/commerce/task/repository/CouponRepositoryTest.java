@@ -0,0 +1,207 @@
+package com.monk.commerce.task.repository;
+
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
+import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.repository.projection.CouponKeyView;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+// Not mapped as an entity, but read by the usage count formula
+@Sql(statements = "CREATE TABLE IF NOT EXISTS coupon_usage_counter (coupon_id UUID NOT NULL, slot INTEGER NOT NULL, " +
+        "usage_count BIGINT NOT NULL DEFAULT 0, PRIMARY KEY (coupon_id, slot))")
+class CouponRepositoryTest {
+
+    @Autowired
+    private CouponRepository couponRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private int sequence;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private CartWiseCoupon persistCartWise() {
+        CartWiseCoupon coupon = new CartWiseCoupon();
+        coupon.setCouponCode("CART" + sequence++);
+        coupon.setType(CouponType.CART_WISE);
+        coupon.setThresholdAmount(BigDecimal.valueOf(100));
+        coupon.setDiscountPercentage(BigDecimal.valueOf(10));
+        coupon.getExcludedProducts().add(ExcludedProduct.builder().coupon(coupon).productId(7L).build());
+        return entityManager.persist(coupon);
+    }
+
+    private BxGyCoupon persistBxGy() {
+        BxGyCoupon coupon = new BxGyCoupon();
+        coupon.setCouponCode("BXGY" + sequence++);
+        coupon.setType(CouponType.BXGY);
+        coupon.setRepetitionLimit(2);
+        coupon.getBuyProducts().add(BuyProduct.builder().bxgyCoupon(coupon).productId(1L).quantity(2).tierLevel(1).build());
+        coupon.getGetProducts().add(GetProduct.builder().bxgyCoupon(coupon).productId(3L).quantity(1).tierLevel(1).build());
+        coupon.getExcludedProducts().add(ExcludedProduct.builder().coupon(coupon).productId(8L).build());
+        return entityManager.persist(coupon);
+    }
+
+    private void persistCoupons(int count) {
+        for (int i = 0; i < count; i++) {
+            persistCartWise();
+            persistBxGy();
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static void readCollections(List<Coupon> coupons) {
+        for (Coupon coupon : coupons) {
+            Hibernate.initialize(coupon.getExcludedProducts());
+            assertEquals(1, coupon.getExcludedProducts().size());
+            if (coupon instanceof BxGyCoupon bxGyCoupon) {
+                assertEquals(1, bxGyCoupon.getBuyProducts().size());
+                assertEquals(1, bxGyCoupon.getGetProducts().size());
+            }
+        }
+    }
+
+    // Loads the catalog the way CouponCatalog does and returns the number of statements it took
+    private long loadCatalog() {
+        statistics.clear();
+        readCollections(couponRepository.findAllActiveCoupons());
+        long statements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        return statements;
+    }
+
+    // Streams one window of coupons the way CouponServiceImpl.streamAllCoupons does and returns the number of statements it took
+    private long streamCatalog() {
+        statistics.clear();
+        try (Stream<UUID> ids = couponRepository.streamAllActiveCouponIds()) {
+            List<Coupon> window = couponRepository.findAllActiveByIdIn(ids.toList());
+            readCollections(window);
+        }
+        long statements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        return statements;
+    }
+
+    @Test
+    void findAllActiveCoupons_statementCountDoesNotGrowWithCatalog() {
+        persistCoupons(2);
+        long smallCatalog = loadCatalog();
+
+        persistCoupons(20);
+        long largeCatalog = loadCatalog();
+
+        assertEquals(smallCatalog, largeCatalog);
+        // Coupons with their subtypes, then buy products, get products and exclusions
+        assertTrue(largeCatalog <= 4, "Catalog load took " + largeCatalog + " statements");
+    }
+
+    @Test
+    void streamAllActiveCouponIds_windowStatementCountDoesNotGrowWithCatalog() {
+        persistCoupons(2);
+        long smallCatalog = streamCatalog();
+
+        persistCoupons(20);
+        long largeCatalog = streamCatalog();
+
+        assertEquals(smallCatalog, largeCatalog);
+        // The IDs, then the window's coupons with their exclusions, buy products and get products
+        assertTrue(largeCatalog <= 4, "Streaming took " + largeCatalog + " statements");
+    }
+
+    @Test
+    void findActivePageKeys_walksEveryCouponOnceInKeysetOrder() {
+        persistCoupons(5);
+        List<UUID> seen = new ArrayList<>();
+        LocalDateTime afterCreatedAt = null;
+        UUID afterId = null;
+        List<CouponKeyView> page;
+        do {
+            page = couponRepository.findActivePageKeys(null, null, null, null, afterCreatedAt, afterId, PageRequest.of(0, 3));
+            for (CouponKeyView key : page) {
+                seen.add(key.id());
+                afterCreatedAt = key.createdAt();
+                afterId = key.id();
+            }
+        } while (!page.isEmpty());
+
+        assertEquals(10, seen.size());
+        assertEquals(10, new HashSet<>(seen).size());
+        // Pages continue exactly where the previous one ended, in the order of one unpaged read
+        List<UUID> unpaged = couponRepository.findActivePageKeys(null, null, null, null, null, null, PageRequest.of(0, 100))
+                .stream().map(CouponKeyView::id).toList();
+        assertEquals(unpaged, seen);
+    }
+
+    @Test
+    void findActivePageKeys_filtersByTypeAndProduct() {
+        CartWiseCoupon cartWise = persistCartWise();
+        BxGyCoupon bxGy = persistBxGy();
+        entityManager.flush();
+
+        List<CouponKeyView> cartWiseKeys = couponRepository.findActivePageKeys(CouponType.CART_WISE, null, null, null,
+                null, null, PageRequest.of(0, 10));
+        List<CouponKeyView> productKeys = couponRepository.findActivePageKeys(null, null, null, 3L,
+                null, null, PageRequest.of(0, 10));
+
+        assertEquals(List.of(cartWise.getId()), cartWiseKeys.stream().map(CouponKeyView::id).toList());
+        assertEquals(List.of(bxGy.getId()), productKeys.stream().map(CouponKeyView::id).toList());
+    }
+
+    @Test
+    void spreadUsageSlots_spreadsLockedTotalLikeQuotas() {
+        UUID couponId = persistCartWise().getId();
+        entityManager.flush();
+        // Uses counted while unlimited, including a slot above the configured four
+        jdbcTemplate.update("INSERT INTO coupon_usage_counter (coupon_id, slot, usage_count) " +
+                "VALUES (?, 0, 0), (?, 1, 0), (?, 2, 0), (?, 3, 5), (?, 5, 2)", couponId, couponId, couponId, couponId, couponId);
+
+        long total = couponRepository.lockUsageSlots(couponId).stream().mapToLong(Long::longValue).sum();
+        couponRepository.spreadUsageSlots(couponId, 4, total);
+
+        assertEquals(7, total);
+        assertEquals(List.of(2L, 2L, 2L, 1L, 0L), jdbcTemplate.queryForList(
+                "SELECT usage_count FROM coupon_usage_counter WHERE coupon_id = ? ORDER BY slot", Long.class, couponId));
+    }
+}
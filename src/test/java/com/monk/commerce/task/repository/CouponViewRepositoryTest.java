@@ -0,0 +1,93 @@
+package com.monk.commerce.task.repository;
+
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
+import com.monk.commerce.task.entity.GetProduct;
+import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.enums.TierSelection;
+import com.monk.commerce.task.repository.projection.BxGyCouponView;
+import com.monk.commerce.task.repository.projection.CartWiseCouponView;
+import com.monk.commerce.task.repository.projection.ExcludedProductView;
+import com.monk.commerce.task.repository.projection.TierProductView;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+// Not mapped as an entity, but read by the usage count formula
+@Sql(statements = "CREATE TABLE IF NOT EXISTS coupon_usage_counter (coupon_id UUID NOT NULL, slot INTEGER NOT NULL, " +
+        "usage_count BIGINT NOT NULL DEFAULT 0, PRIMARY KEY (coupon_id, slot))")
+class CouponViewRepositoryTest {
+
+    @Autowired
+    private CouponViewRepository couponViewRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void findActive_readsViewsWithoutLoadingEntities() {
+        CartWiseCoupon cartWise = new CartWiseCoupon();
+        cartWise.setCouponCode("CART10");
+        cartWise.setType(CouponType.CART_WISE);
+        cartWise.setThresholdAmount(new BigDecimal("100.00"));
+        cartWise.setDiscountPercentage(new BigDecimal("10.00"));
+        cartWise.getExcludedProducts().add(ExcludedProduct.builder().coupon(cartWise).productId(7L).build());
+        entityManager.persist(cartWise);
+        CartWiseCoupon inactive = new CartWiseCoupon();
+        inactive.setCouponCode("OLD");
+        inactive.setType(CouponType.CART_WISE);
+        inactive.setIsActive(false);
+        inactive.setThresholdAmount(new BigDecimal("50.00"));
+        inactive.setDiscountPercentage(new BigDecimal("5.00"));
+        entityManager.persist(inactive);
+        BxGyCoupon bxGy = new BxGyCoupon();
+        bxGy.setCouponCode("B2G1");
+        bxGy.setType(CouponType.BXGY);
+        bxGy.setRepetitionLimit(2);
+        bxGy.setTierSelection(TierSelection.BEST_VALUE);
+        bxGy.getBuyProducts().add(BuyProduct.builder().bxgyCoupon(bxGy).productId(1L).quantity(2).tierLevel(1).build());
+        bxGy.getGetProducts().add(GetProduct.builder().bxgyCoupon(bxGy).productId(3L).quantity(1).tierLevel(1).build());
+        entityManager.persist(bxGy);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<CartWiseCouponView> cartWiseViews = couponViewRepository.findActiveCartWiseCoupons();
+        List<BxGyCouponView> bxGyViews = couponViewRepository.findActiveBxGyCoupons();
+        List<ExcludedProductView> excluded = couponViewRepository.findActiveExcludedProducts();
+        List<TierProductView> buyProducts = couponViewRepository.findActiveBuyProducts();
+        List<TierProductView> getProducts = couponViewRepository.findActiveGetProducts();
+
+        assertEquals(1, cartWiseViews.size());
+        assertEquals(new BigDecimal("100.00"), cartWiseViews.get(0).thresholdAmount());
+        assertEquals(0L, cartWiseViews.get(0).usageCount());
+        assertTrue(couponViewRepository.findActiveProductWiseCoupons().isEmpty());
+        assertEquals(TierSelection.BEST_VALUE, bxGyViews.get(0).tierSelection());
+        assertEquals(List.of(new ExcludedProductView(cartWise.getId(), 7L)), excluded);
+        assertEquals(List.of(new TierProductView(bxGy.getId(), 1L, 2, 1)), buyProducts);
+        assertEquals(List.of(new TierProductView(bxGy.getId(), 3L, 1, 1)), getProducts);
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
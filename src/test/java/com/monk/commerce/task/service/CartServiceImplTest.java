@@ -1,10 +1,18 @@
 package com.monk.commerce.task.service;
 
+import com.monk.commerce.task.cache.ApplicableCouponCache;
+import com.monk.commerce.task.catalog.CouponCatalog;
+import com.monk.commerce.task.catalog.CouponCatalogSnapshot;
+import com.monk.commerce.task.dto.request.BatchApplyItemDTO;
+import com.monk.commerce.task.dto.request.BatchApplyRequestDTO;
 import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.MultiCartRequestDTO;
 import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.dto.response.ApplicableCouponResponseDTO;
 import com.monk.commerce.task.dto.response.AppliedCouponResponseDTO;
-import com.monk.commerce.task.dto.response.UpdatedCartDTO;
+import com.monk.commerce.task.dto.response.BatchApplyResultDTO;
+import com.monk.commerce.task.dto.response.CartApplicableCouponsDTO;
+import com.monk.commerce.task.dto.response.CouponStackResponseDTO;
 import com.monk.commerce.task.entity.CartWiseCoupon;
 import com.monk.commerce.task.entity.Coupon;
 import com.monk.commerce.task.enums.CouponType;
@@ -15,7 +23,16 @@ import com.monk.commerce.task.factory.CouponStrategyFactory;
 import com.monk.commerce.task.repository.CouponRepository;
 import com.monk.commerce.task.repository.CouponUsageRepository;
 import com.monk.commerce.task.service.serviceImpl.CartServiceImpl;
+import com.monk.commerce.task.stacking.CouponStackOptimizer;
+import com.monk.commerce.task.strategy.BxGyCouponStrategy;
+import com.monk.commerce.task.strategy.CartWiseCouponStrategy;
+import com.monk.commerce.task.strategy.CouponEvaluation;
 import com.monk.commerce.task.strategy.CouponStrategy;
+import com.monk.commerce.task.strategy.ProductWiseCouponStrategy;
+import com.monk.commerce.task.usage.CouponUsageCounter;
+import com.monk.commerce.task.usage.UsageBatchWriter;
+import com.monk.commerce.task.usage.UserUsageBuffer;
+import com.monk.commerce.task.util.CartIndex;
 import com.monk.commerce.task.util.CouponUtil;
 import com.monk.commerce.task.validator.CartValidator;
 import com.monk.commerce.task.validator.CouponValidator;
@@ -27,6 +44,7 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,6 +52,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -59,7 +79,18 @@ class CartServiceImplTest {
     @Mock
     private CouponStrategy strategy;
 
-    @InjectMocks
+    @Mock
+    private CouponCatalog couponCatalog;
+
+    @Mock
+    private CouponUsageCounter couponUsageCounter;
+
+    @Mock
+    private UserUsageBuffer userUsageBuffer;
+
+    @Mock
+    private UsageBatchWriter usageBatchWriter;
+
     private CartServiceImpl cartService;
 
     private CartRequestDTO cart;
@@ -67,6 +98,8 @@ class CartServiceImplTest {
 
     @BeforeEach
     void setup() {
+        cartService = newCartService(512);
+
         cart = new CartRequestDTO();
         List<CartItemDTO> items = new ArrayList<>();
         items.add(new CartItemDTO(1L, 2, BigDecimal.valueOf(100)));
@@ -75,6 +108,15 @@ class CartServiceImplTest {
 
         request = new HashMap<>();
         request.put("cart", cart);
+
+        lenient().when(cartValidator.validateCartRequest(any()))
+                .thenAnswer(invocation -> CartIndex.of(invocation.getArgument(0)));
+    }
+
+    private CartServiceImpl newCartService(int parallelEvaluationThreshold) {
+        return new CartServiceImpl(couponRepository, strategyFactory, cartValidator, couponValidator, couponUsageRepository,
+                couponCatalog, couponUsageCounter, userUsageBuffer, usageBatchWriter, new CouponStackOptimizer(50),
+                new ApplicableCouponCache(100, 60_000), ForkJoinPool.commonPool(), parallelEvaluationThreshold);
     }
 
     private Coupon createCoupon(UUID id, CouponType type, BigDecimal threshold) {
@@ -91,6 +133,10 @@ class CartServiceImplTest {
         return coupon;
     }
 
+    private CouponEvaluation appliedEvaluation() {
+        return CouponEvaluation.applicable(BigDecimal.valueOf(20), Collections.emptyMap());
+    }
+
     @Test
     void getApplicableCoupons_nullRequest_throwsException() {
         assertThrows(NullPointerException.class, () -> cartService.getApplicableCoupons(null));
@@ -104,7 +150,7 @@ class CartServiceImplTest {
 
     @Test
     void getApplicableCoupons_noValidCoupons_returnsEmptyList() {
-        when(couponRepository.findAllValidCoupons(any())).thenReturn(Collections.emptyList());
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), Collections.emptyList()));
 
         Map<String, List<ApplicableCouponResponseDTO>> result = cartService.getApplicableCoupons(request);
 
@@ -120,15 +166,14 @@ class CartServiceImplTest {
         Coupon c1 = createCoupon(id1, CouponType.CART_WISE, BigDecimal.valueOf(100));
         Coupon c2 = createCoupon(id2, CouponType.CART_WISE, BigDecimal.valueOf(50));
 
-        when(couponRepository.findAllValidCoupons(any())).thenReturn(List.of(c1, c2));
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), List.of(c1, c2)));
         when(strategyFactory.getStrategy(any())).thenReturn(strategy);
-        when(strategy.isApplicable(any(), any())).thenReturn(true);
-        when(strategy.calculateDiscount(eq(c1), any())).thenReturn(BigDecimal.valueOf(20));
-        when(strategy.calculateDiscount(eq(c2), any())).thenReturn(BigDecimal.valueOf(10));
+        when(strategy.evaluate(eq(c1), any(CartIndex.class))).thenReturn(CouponEvaluation.applicable(BigDecimal.valueOf(20), Collections.emptyMap()));
+        when(strategy.evaluate(eq(c2), any(CartIndex.class))).thenReturn(CouponEvaluation.applicable(BigDecimal.valueOf(10), Collections.emptyMap()));
 
         MockedStatic<CouponUtil> mock = Mockito.mockStatic(CouponUtil.class);
-        mock.when(() -> CouponUtil.getUserUsageRemaining(any(), anyString())).thenReturn(5);
-        mock.when(() -> CouponUtil.getGlobalUsageRemaining(any())).thenReturn(100L);
+        mock.when(() -> CouponUtil.getUserUsageRemaining(any(), anyInt())).thenReturn(5);
+        mock.when(() -> CouponUtil.getGlobalUsageRemaining(any(), anyLong())).thenReturn(100L);
 
         Map<String, List<ApplicableCouponResponseDTO>> result = cartService.getApplicableCoupons(request);
 
@@ -138,6 +183,152 @@ class CartServiceImplTest {
         assertEquals(BigDecimal.valueOf(20), result.get("applicable_coupons").get(0).getDiscount());
     }
 
+    @Test
+    void getApplicableCoupons_usesBatchedUserUsageForLimitedCoupons() {
+        UUID exhaustedId = UUID.randomUUID();
+        UUID remainingId = UUID.randomUUID();
+        UUID unlimitedId = UUID.randomUUID();
+
+        Coupon exhausted = createCoupon(exhaustedId, CouponType.CART_WISE, BigDecimal.valueOf(100));
+        exhausted.setUsageLimitPerUser(2);
+        Coupon remaining = createCoupon(remainingId, CouponType.CART_WISE, BigDecimal.valueOf(100));
+        remaining.setUsageLimitPerUser(3);
+        Coupon unlimited = createCoupon(unlimitedId, CouponType.CART_WISE, BigDecimal.valueOf(100));
+
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), List.of(exhausted, remaining, unlimited)));
+        when(couponUsageRepository.findUsageCountsByUserAndCouponIds(eq("user123"), anyCollection()))
+                .thenReturn(List.of(new Object[]{exhaustedId, 2}, new Object[]{remainingId, 1}));
+        when(strategyFactory.getStrategy(any())).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(CouponEvaluation.applicable(BigDecimal.TEN, Collections.emptyMap()));
+
+        List<ApplicableCouponResponseDTO> result = cartService.getApplicableCoupons(request).get("applicable_coupons");
+
+        assertEquals(2, result.size());
+        ApplicableCouponResponseDTO remainingResponse = result.stream()
+                .filter(dto -> dto.getCouponId().equals(remainingId))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, remainingResponse.getUserUsageRemaining());
+        assertTrue(result.stream().noneMatch(dto -> dto.getCouponId().equals(exhaustedId)));
+        verify(couponUsageRepository, times(1)).findUsageCountsByUserAndCouponIds(eq("user123"), argThat(ids -> ids.size() == 2));
+        verify(couponUsageRepository, never()).getTotalUsageByUserAndCoupon(any(), any());
+    }
+
+    @Test
+    void getApplicableCoupons_aboveThreshold_matchesSequentialOrderAndIsolatesErrors() {
+        List<Coupon> coupons = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Coupon coupon = createCoupon(UUID.randomUUID(), CouponType.CART_WISE, BigDecimal.valueOf(100));
+            coupons.add(coupon);
+            if (i == 7) {
+                lenient().when(strategy.evaluate(eq(coupon), any(CartIndex.class))).thenThrow(new IllegalStateException("broken"));
+            } else {
+                // Few distinct discounts so that the stable sort has ties to preserve
+                lenient().when(strategy.evaluate(eq(coupon), any(CartIndex.class)))
+                        .thenReturn(CouponEvaluation.applicable(BigDecimal.valueOf(i % 5), Collections.emptyMap()));
+            }
+        }
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), coupons));
+        when(strategyFactory.getStrategy(any())).thenReturn(strategy);
+
+        List<ApplicableCouponResponseDTO> sequential = cartService.getApplicableCoupons(request).get("applicable_coupons");
+        List<ApplicableCouponResponseDTO> parallel = newCartService(2).getApplicableCoupons(request).get("applicable_coupons");
+
+        assertEquals(199, parallel.size());
+        assertEquals(sequential.stream().map(ApplicableCouponResponseDTO::getCouponId).toList(),
+                parallel.stream().map(ApplicableCouponResponseDTO::getCouponId).toList());
+        assertTrue(parallel.stream().noneMatch(dto -> dto.getCouponId().equals(coupons.get(7).getId())));
+    }
+
+    @Test
+    void getApplicableCoupons_withLimit_returnsTopCouponsAndSkipsBoundedOnes() {
+        List<Coupon> coupons = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Coupon coupon = createCoupon(UUID.randomUUID(), CouponType.CART_WISE, BigDecimal.valueOf(100));
+            // Distinct priorities fix the catalog order and with it which coupons the bound skips
+            coupon.setPriority(30 - i);
+            coupons.add(coupon);
+            BigDecimal discount = BigDecimal.valueOf((i * 7) % 10);
+            lenient().when(strategy.evaluate(eq(coupon), any(CartIndex.class)))
+                    .thenReturn(CouponEvaluation.applicable(discount, Collections.emptyMap()));
+            lenient().when(strategy.upperBound(eq(coupon), any(CartIndex.class))).thenReturn(discount);
+        }
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), coupons));
+        when(strategyFactory.getStrategy(any())).thenReturn(strategy);
+
+        List<ApplicableCouponResponseDTO> all = cartService.getApplicableCoupons(request).get("applicable_coupons");
+        clearInvocations(strategy);
+        List<ApplicableCouponResponseDTO> top = cartService.getApplicableCoupons(request, 4).get("applicable_coupons");
+
+        assertEquals(all.subList(0, 4).stream().map(ApplicableCouponResponseDTO::getCouponId).toList(),
+                top.stream().map(ApplicableCouponResponseDTO::getCouponId).toList());
+        verify(strategy, times(12)).evaluate(any(), any(CartIndex.class));
+    }
+
+    @Test
+    void getApplicableCoupons_runsCompiledEvaluatorsFromCatalog() {
+        Coupon met = createCoupon(UUID.randomUUID(), CouponType.CART_WISE, BigDecimal.valueOf(100));
+        Coupon notMet = createCoupon(UUID.randomUUID(), CouponType.CART_WISE, BigDecimal.valueOf(300));
+        CouponStrategyFactory compilingFactory = new CouponStrategyFactory(
+                new CartWiseCouponStrategy(), new ProductWiseCouponStrategy(), new BxGyCouponStrategy());
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), List.of(met, notMet), compilingFactory));
+
+        List<ApplicableCouponResponseDTO> result = cartService.getApplicableCoupons(request).get("applicable_coupons");
+
+        assertEquals(1, result.size());
+        assertEquals(met.getId(), result.get(0).getCouponId());
+        assertEquals(new BigDecimal("20.00"), result.get(0).getDiscount());
+        verifyNoInteractions(strategyFactory);
+    }
+
+    @Test
+    void getApplicableCoupons_repeatedCart_servedFromCacheUntilUserRedeems() {
+        Coupon coupon = createCoupon(UUID.randomUUID(), CouponType.CART_WISE, BigDecimal.valueOf(100));
+        coupon.setUsageLimitPerUser(3);
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), List.of(coupon)));
+        when(strategyFactory.getStrategy(any())).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(appliedEvaluation());
+
+        List<ApplicableCouponResponseDTO> first = cartService.getApplicableCoupons(request).get("applicable_coupons");
+        List<ApplicableCouponResponseDTO> second = cartService.getApplicableCoupons(request).get("applicable_coupons");
+
+        assertEquals(first, second);
+        verify(strategy, times(1)).evaluate(any(), any(CartIndex.class));
+        assertEquals(1, cartService.getApplicableCouponsCacheStats().getHits());
+
+        when(couponRepository.findActiveById(coupon.getId())).thenReturn(Optional.of(coupon));
+        when(couponUsageRepository.upsertUsageWithinLimit(any(), eq(coupon.getId()), eq("user123"), eq(3), any())).thenReturn(1);
+        when(couponUsageCounter.tryIncrement(coupon)).thenReturn(true);
+        cartService.applyCoupon(coupon.getId(), request);
+        cartService.getApplicableCoupons(request);
+
+        assertEquals(1, cartService.getApplicableCouponsCacheStats().getHits());
+    }
+
+    @Test
+    void getApplicableCoupons_invalidLimit_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> cartService.getApplicableCoupons(request, 0));
+    }
+
+    @Test
+    void getBestCouponStack_combinesStackableCoupons() {
+        Coupon first = createCoupon(UUID.randomUUID(), CouponType.CART_WISE, BigDecimal.ZERO);
+        first.setAllowStacking(true);
+        Coupon second = createCoupon(UUID.randomUUID(), CouponType.CART_WISE, BigDecimal.ZERO);
+        second.setAllowStacking(true);
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), List.of(first, second)));
+        when(strategyFactory.getStrategy(any())).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(appliedEvaluation());
+
+        CouponStackResponseDTO response = cartService.getBestCouponStack(request);
+
+        // 10% of 200, then 10% of the remaining 180
+        assertEquals(2, response.getCoupons().size());
+        assertEquals(new BigDecimal("18.00"), response.getCoupons().get(1).getDiscount());
+        assertEquals(0, new BigDecimal("38.00").compareTo(response.getUpdatedCart().getTotalDiscount()));
+        assertTrue(response.isOptimal());
+    }
+
     @Test
     void applyCoupon_nullRequest_throwsException() {
         assertThrows(NullPointerException.class, () -> cartService.applyCoupon(UUID.randomUUID(), null));
@@ -162,31 +353,61 @@ class CartServiceImplTest {
         UUID id = UUID.randomUUID();
         Coupon coupon = createCoupon(id, CouponType.CART_WISE, BigDecimal.valueOf(100));
 
-        when(couponRepository.findActiveById(id)).thenReturn(Optional.of(coupon));
+        coupon.setUsageLimitPerUser(2);
 
-        MockedStatic<CouponUtil> mock = Mockito.mockStatic(CouponUtil.class);
-        mock.when(() -> CouponUtil.hasUserReachedLimit(eq(coupon), anyString())).thenReturn(true);
+        when(couponRepository.findActiveById(id)).thenReturn(Optional.of(coupon));
+        when(strategyFactory.getStrategy(CouponType.CART_WISE)).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(appliedEvaluation());
+        when(couponUsageRepository.upsertUsageWithinLimit(any(), eq(id), eq("user123"), eq(2), any())).thenReturn(0);
 
         assertThrows(CouponNotApplicableException.class, () -> cartService.applyCoupon(id, request));
-
-        mock.close();
+        verify(couponUsageCounter, never()).tryIncrement(any());
+        verify(couponCatalog, never()).recordUsageAfterCommit(any());
     }
 
     @Test
-    void applyCoupon_strategyNotApplicable_throwsException() {
+    void applyCoupon_writeBehind_buffersUserUsageInsteadOfUpsert() {
         UUID id = UUID.randomUUID();
         Coupon coupon = createCoupon(id, CouponType.CART_WISE, BigDecimal.valueOf(100));
+        coupon.setUsageLimitPerUser(2);
 
         when(couponRepository.findActiveById(id)).thenReturn(Optional.of(coupon));
         when(strategyFactory.getStrategy(CouponType.CART_WISE)).thenReturn(strategy);
-        when(strategy.isApplicable(any(), any())).thenReturn(false);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(appliedEvaluation());
+        when(userUsageBuffer.isEnabled()).thenReturn(true);
+        when(userUsageBuffer.tryRecord(coupon, "user123")).thenReturn(true);
+        when(couponUsageCounter.tryIncrement(coupon)).thenReturn(true);
+
+        assertNotNull(cartService.applyCoupon(id, request));
+        verify(couponUsageRepository, never()).upsertUsageWithinLimit(any(), any(), any(), anyInt(), any());
+        verify(couponUsageRepository, never()).upsertUsage(any(), any(), any(), any());
+    }
 
-        MockedStatic<CouponUtil> mock = Mockito.mockStatic(CouponUtil.class);
-        mock.when(() -> CouponUtil.hasUserReachedLimit(any(), anyString())).thenReturn(false);
+    @Test
+    void applyCoupon_globalLimitReachedConcurrently_throwsException() {
+        UUID id = UUID.randomUUID();
+        Coupon coupon = createCoupon(id, CouponType.CART_WISE, BigDecimal.valueOf(100));
+        coupon.setMaxUsageLimit(10L);
+
+        when(couponRepository.findActiveById(id)).thenReturn(Optional.of(coupon));
+        when(strategyFactory.getStrategy(CouponType.CART_WISE)).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(appliedEvaluation());
+        when(couponUsageCounter.tryIncrement(coupon)).thenReturn(false);
 
         assertThrows(CouponNotApplicableException.class, () -> cartService.applyCoupon(id, request));
+        verify(couponCatalog, never()).recordUsageAfterCommit(any());
+    }
 
-        mock.close();
+    @Test
+    void applyCoupon_strategyNotApplicable_throwsException() {
+        UUID id = UUID.randomUUID();
+        Coupon coupon = createCoupon(id, CouponType.CART_WISE, BigDecimal.valueOf(100));
+
+        when(couponRepository.findActiveById(id)).thenReturn(Optional.of(coupon));
+        when(strategyFactory.getStrategy(CouponType.CART_WISE)).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(CouponEvaluation.notApplicable());
+
+        assertThrows(CouponNotApplicableException.class, () -> cartService.applyCoupon(id, request));
     }
 
     @Test
@@ -194,31 +415,112 @@ class CartServiceImplTest {
         UUID id = UUID.randomUUID();
         Coupon coupon = createCoupon(id, CouponType.CART_WISE, BigDecimal.valueOf(50));
 
-        UpdatedCartDTO updatedCart = UpdatedCartDTO.builder()
-                .totalDiscount(BigDecimal.valueOf(30))
-                .finalPrice(BigDecimal.valueOf(170))
-                .build();
-
-        AppliedCouponResponseDTO responseDTO = AppliedCouponResponseDTO.builder()
-                .updatedCart(updatedCart)
-                .build();
-
         when(couponRepository.findActiveById(id)).thenReturn(Optional.of(coupon));
         when(strategyFactory.getStrategy(CouponType.CART_WISE)).thenReturn(strategy);
-        when(strategy.isApplicable(any(), any())).thenReturn(true);
-        when(strategy.applyCoupon(any(), any())).thenReturn(responseDTO);
-
-        MockedStatic<CouponUtil> mock = Mockito.mockStatic(CouponUtil.class);
-        mock.when(() -> CouponUtil.hasUserReachedLimit(any(), anyString())).thenReturn(false);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(CouponEvaluation.applicable(BigDecimal.valueOf(30), Collections.emptyMap()));
+        when(couponUsageCounter.tryIncrement(coupon)).thenReturn(true);
 
         AppliedCouponResponseDTO result = cartService.applyCoupon(id, request);
 
-        mock.close();
-
         assertNotNull(result);
+        assertEquals(BigDecimal.valueOf(170), result.getUpdatedCart().getFinalPrice());
         verify(couponUsageRepository, times(1))
                 .upsertUsage(any(), eq(id), eq("user123"), any());
-        verify(couponRepository, times(1))
-                .incrementUsageCount(eq(id), any());
+        verify(couponUsageCounter, times(1)).tryIncrement(coupon);
+        verify(couponCatalog).recordUsageAfterCommit(id);
+    }
+
+    @Test
+    void applyCouponBatch_loadsEachCouponOnceAndReportsPerItem() {
+        UUID id = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        Coupon coupon = createCoupon(id, CouponType.CART_WISE, BigDecimal.valueOf(50));
+
+        when(couponRepository.findAllActiveByIdIn(anyCollection())).thenReturn(List.of(coupon));
+        when(strategyFactory.getStrategy(CouponType.CART_WISE)).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(appliedEvaluation());
+        when(usageBatchWriter.redeem(anyList())).thenReturn(new boolean[]{true, false});
+
+        BatchApplyRequestDTO batch = BatchApplyRequestDTO.builder()
+                .items(List.of(
+                        new BatchApplyItemDTO(id, cart),
+                        new BatchApplyItemDTO(missingId, cart),
+                        new BatchApplyItemDTO(id, cart)))
+                .build();
+
+        List<BatchApplyResultDTO> results = cartService.applyCouponBatch(batch).get("results");
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertNotNull(results.get(0).getUpdatedCart());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals(String.format("Coupon not found with ID: %s", missingId), results.get(1).getError());
+        assertFalse(results.get(2).isSuccess());
+        assertNull(results.get(2).getUpdatedCart());
+        verify(couponRepository, times(1)).findAllActiveByIdIn(argThat(ids -> ids.size() == 2));
+        verify(usageBatchWriter).redeem(argThat(redemptions -> redemptions.size() == 2));
+        verify(couponCatalog, times(1)).recordUsageAfterCommit(id);
+    }
+
+    @Test
+    void streamApplicableCoupons_readsUsageUpFrontAndEvaluatesLazily() {
+        UUID exhaustedId = UUID.randomUUID();
+        UUID remainingId = UUID.randomUUID();
+
+        Coupon exhausted = createCoupon(exhaustedId, CouponType.CART_WISE, BigDecimal.valueOf(100));
+        exhausted.setUsageLimitPerUser(1);
+        Coupon remaining = createCoupon(remainingId, CouponType.CART_WISE, BigDecimal.valueOf(100));
+
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), List.of(exhausted, remaining)));
+        when(couponUsageRepository.findUsageCountsByUserAndCouponIds(eq("user123"), anyCollection()))
+                .thenReturn(Collections.singletonList(new Object[]{exhaustedId, 1}));
+        when(strategyFactory.getStrategy(any())).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(CouponEvaluation.applicable(BigDecimal.TEN, Collections.emptyMap()));
+
+        Stream<ApplicableCouponResponseDTO> stream = cartService.streamApplicableCoupons(request);
+
+        verify(couponUsageRepository).findUsageCountsByUserAndCouponIds(eq("user123"), anyCollection());
+        verifyNoInteractions(strategyFactory);
+
+        List<ApplicableCouponResponseDTO> result = stream.toList();
+
+        assertEquals(1, result.size());
+        assertEquals(remainingId, result.get(0).getCouponId());
+    }
+
+    @Test
+    void streamApplicableCoupons_missingCart_throwsBeforeStreaming() {
+        Map<String, CartRequestDTO> req = new HashMap<>();
+        assertThrows(InvalidCartException.class, () -> cartService.streamApplicableCoupons(req));
+    }
+
+    @Test
+    void getApplicableCouponsForCarts_sharesCatalogAndUsageReadsAcrossCarts() {
+        UUID id = UUID.randomUUID();
+        Coupon coupon = createCoupon(id, CouponType.CART_WISE, BigDecimal.valueOf(50));
+        coupon.setUsageLimitPerUser(5);
+        CartRequestDTO invalidCart = new CartRequestDTO();
+
+        when(couponCatalog.current()).thenReturn(new CouponCatalogSnapshot(1L, Instant.now(), List.of(coupon)));
+        lenient().doThrow(new InvalidCartException("Cart cannot be empty")).when(cartValidator).validateCartRequest(invalidCart);
+        when(couponUsageRepository.findUsageCountsByUserAndCouponIds(eq("user123"), anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{id, 1}));
+        when(strategyFactory.getStrategy(any())).thenReturn(strategy);
+        when(strategy.evaluate(any(), any(CartIndex.class))).thenReturn(CouponEvaluation.applicable(BigDecimal.TEN, Collections.emptyMap()));
+
+        MultiCartRequestDTO multiCart = MultiCartRequestDTO.builder()
+                .carts(List.of(cart, invalidCart, cart))
+                .build();
+
+        List<CartApplicableCouponsDTO> results = cartService.getApplicableCouponsForCarts(multiCart).get("results");
+
+        assertEquals(3, results.size());
+        assertEquals(1, results.get(0).getApplicableCoupons().size());
+        assertEquals(4, results.get(0).getApplicableCoupons().get(0).getUserUsageRemaining());
+        assertEquals("Cart cannot be empty", results.get(1).getError());
+        assertNull(results.get(1).getApplicableCoupons());
+        assertEquals(1, results.get(2).getApplicableCoupons().size());
+        verify(couponCatalog, times(1)).current();
+        verify(couponUsageRepository, times(1)).findUsageCountsByUserAndCouponIds(eq("user123"), anyCollection());
     }
 }
@@ -1,37 +1,59 @@
 package com.monk.commerce.task.service;
 
+import com.monk.commerce.task.campaign.CampaignCodeGenerator;
+import com.monk.commerce.task.campaign.CampaignCodeWriter;
+import com.monk.commerce.task.catalog.CouponCatalog;
+import com.monk.commerce.task.dto.request.CampaignCodeRequestDTO;
 import com.monk.commerce.task.dto.request.CouponRequestDTO;
+import com.monk.commerce.task.dto.response.CampaignCodeResponseDTO;
+import com.monk.commerce.task.dto.response.CouponImportResponseDTO;
+import com.monk.commerce.task.dto.response.CouponPageResponseDTO;
 import com.monk.commerce.task.dto.response.CouponResponseDTO;
 import com.monk.commerce.task.entity.CartWiseCoupon;
 import com.monk.commerce.task.entity.Coupon;
 import com.monk.commerce.task.enums.CouponType;
 import com.monk.commerce.task.exception.CouponNotFoundException;
 import com.monk.commerce.task.exception.InvalidCouponException;
+import com.monk.commerce.task.importer.CouponImporter;
 import com.monk.commerce.task.mapper.CouponMapper;
 import com.monk.commerce.task.repository.CouponRepository;
+import com.monk.commerce.task.repository.projection.CouponKeyView;
 import com.monk.commerce.task.service.serviceImpl.CouponServiceImpl;
+import com.monk.commerce.task.usage.CouponUsageCounter;
+import com.monk.commerce.task.util.Constants;
+import com.monk.commerce.task.util.CouponCursor;
 import com.monk.commerce.task.util.CouponUtil;
 import com.monk.commerce.task.validator.CouponValidator;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +68,24 @@ class CouponServiceImplTest {
     @Mock
     private CouponValidator couponValidator;
 
+    @Mock
+    private CouponCatalog couponCatalog;
+
+    @Mock
+    private CouponUsageCounter couponUsageCounter;
+
+    @Mock
+    private CouponImporter couponImporter;
+
+    @Mock
+    private CampaignCodeGenerator campaignCodeGenerator;
+
+    @Mock
+    private CampaignCodeWriter campaignCodeWriter;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private CouponServiceImpl couponService;
 
@@ -134,6 +174,59 @@ class CouponServiceImplTest {
         assertEquals(1, result.size());
     }
 
+    @Test
+    void streamAllCoupons_success_loadsWindowAndClearsPersistenceContext() {
+        UUID deactivated = UUID.randomUUID();
+        when(couponRepository.streamAllActiveCouponIds()).thenReturn(Stream.of(coupon.getId(), deactivated));
+        when(couponRepository.findAllActiveByIdIn(List.of(coupon.getId(), deactivated))).thenReturn(List.of(coupon));
+        when(couponMapper.toResponseDTO(coupon)).thenReturn(response);
+        List<CouponResponseDTO> streamed = new ArrayList<>();
+
+        couponService.streamAllCoupons(streamed::add);
+
+        assertEquals(List.of(response), streamed);
+        verify(entityManager).clear();
+    }
+
+    @Test
+    void getCouponPage_fullPage_returnsCursorOfLastCoupon() {
+        CouponKeyView first = new CouponKeyView(coupon.getId(), LocalDateTime.now());
+        CouponKeyView next = new CouponKeyView(UUID.randomUUID(), first.createdAt().minusMinutes(1));
+        when(couponRepository.findActivePageKeys(any(), any(), any(), any(), any(), any(), any())).thenReturn(List.of(first, next));
+        when(couponRepository.findAllActiveByIdIn(List.of(coupon.getId()))).thenReturn(List.of(coupon));
+        when(couponMapper.toResponseDTO(coupon)).thenReturn(response);
+
+        CouponPageResponseDTO page = couponService.getCouponPage("cart-wise", null, null, null, null, 1);
+
+        assertEquals(List.of(response), page.getCoupons());
+        assertTrue(page.isHasMore());
+        assertEquals(new CouponCursor(first.createdAt(), first.id()), CouponCursor.decode(page.getNextCursor()));
+        verify(couponRepository).findActivePageKeys(eq(CouponType.CART_WISE), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getCouponPage_lastPage_hasNoCursor() {
+        CouponCursor cursor = new CouponCursor(LocalDateTime.now(), UUID.randomUUID());
+        when(couponRepository.findActivePageKeys(any(), any(), any(), eq(7L), eq(cursor.createdAt()), eq(cursor.id()), any()))
+                .thenReturn(List.of());
+
+        CouponPageResponseDTO page = couponService.getCouponPage(null, null, null, 7L, cursor.encode(), null);
+
+        assertTrue(page.getCoupons().isEmpty());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(couponRepository, never()).findAllActiveByIdIn(any());
+    }
+
+    @Test
+    void getCouponPage_invalidSizeOrWindow_throwsException() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(IllegalArgumentException.class, () -> couponService.getCouponPage(null, null, null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> couponService.getCouponPage(null, null, null, null, null, 501));
+        assertThrows(IllegalArgumentException.class, () -> couponService.getCouponPage(null, now, now, null, null, null));
+    }
+
     @Test
     void getCouponById_notFound_throwsException() {
         UUID id = UUID.randomUUID();
@@ -195,6 +288,25 @@ class CouponServiceImplTest {
         assertNotNull(result);
         verify(couponMapper).updateEntity(eq(coupon), eq(request));
         verify(couponRepository).save(coupon);
+        verify(couponCatalog).upsertAfterCommit(id);
+        verifyNoInteractions(couponUsageCounter);
+    }
+
+    @Test
+    void updateCoupon_changedUsageLimit_rebalancesUsageSlots() {
+        UUID id = coupon.getId();
+        coupon.setMaxUsageLimit(null);
+
+        when(couponRepository.findActiveById(id)).thenReturn(Optional.of(coupon));
+        Mockito.doAnswer(invocation -> {
+            coupon.setMaxUsageLimit(3L);
+            return null;
+        }).when(couponMapper).updateEntity(coupon, request);
+        when(couponRepository.save(any())).thenReturn(coupon);
+
+        couponService.updateCoupon(id, request);
+
+        verify(couponUsageCounter).rebalance(id);
     }
 
     @Test
@@ -214,5 +326,52 @@ class CouponServiceImplTest {
 
         assertDoesNotThrow(() -> couponService.deleteCoupon(id));
         verify(couponRepository).softDeleteById(eq(id), any());
+        verify(couponCatalog).removeAfterCommit(id);
+    }
+
+    @Test
+    void importCoupons_refreshesCatalogOnlyWhenCouponsWereImported() {
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        when(couponImporter.importCoupons(input))
+                .thenReturn(CouponImportResponseDTO.builder().imported(0).failed(0).errors(List.of()).build())
+                .thenReturn(CouponImportResponseDTO.builder().imported(3).failed(0).errors(List.of()).build());
+
+        assertEquals(0, couponService.importCoupons(input).getImported());
+        verify(couponCatalog, never()).refresh();
+
+        assertEquals(3, couponService.importCoupons(input).getImported());
+        verify(couponCatalog).refresh();
+    }
+
+    @Test
+    void generateCampaignCodes_appliesDefaults() {
+        UUID id = UUID.randomUUID();
+        when(couponRepository.existsActiveById(id)).thenReturn(true);
+        when(campaignCodeGenerator.generate(id, 1000, Constants.CAMPAIGN_CODE_ALPHABET, "", Constants.DEFAULT_CAMPAIGN_CODE_LENGTH))
+                .thenReturn(1000);
+
+        CampaignCodeResponseDTO result = couponService.generateCampaignCodes(id, CampaignCodeRequestDTO.builder().count(1000).build());
+
+        assertEquals(id, result.getCouponId());
+        assertEquals(1000, result.getGenerated());
+    }
+
+    @Test
+    void generateCampaignCodes_couponNotFound_throwsException() {
+        UUID id = UUID.randomUUID();
+        when(couponRepository.existsActiveById(id)).thenReturn(false);
+
+        assertThrows(CouponNotFoundException.class,
+                () -> couponService.generateCampaignCodes(id, CampaignCodeRequestDTO.builder().count(10).build()));
+        verifyNoInteractions(campaignCodeGenerator);
+    }
+
+    @Test
+    void streamCampaignCodes_couponNotFound_throwsException() {
+        UUID id = UUID.randomUUID();
+        when(couponRepository.existsActiveById(id)).thenReturn(false);
+
+        assertThrows(CouponNotFoundException.class, () -> couponService.streamCampaignCodes(id, code -> { }));
+        verifyNoInteractions(campaignCodeWriter);
     }
 }
@@ -0,0 +1,111 @@
+package com.monk.commerce.task.stacking;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.CartWiseCoupon;
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ProductWiseCoupon;
+import com.monk.commerce.task.strategy.CouponEvaluation;
+import com.monk.commerce.task.util.CartIndex;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouponStackOptimizerTest {
+
+    private final CouponStackOptimizer optimizer = new CouponStackOptimizer(1_000);
+
+    private CartIndex buildCart(BigDecimal... prices) {
+        List<CartItemDTO> items = new ArrayList<>();
+        for (int i = 0; i < prices.length; i++) {
+            items.add(new CartItemDTO(i + 1L, 1, prices[i]));
+        }
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(items);
+        return CartIndex.of(cart);
+    }
+
+    private <T extends Coupon> T stackable(T coupon, boolean allowStacking) {
+        coupon.setId(UUID.randomUUID());
+        coupon.setAllowStacking(allowStacking);
+        coupon.setExcludedProducts(new ArrayList<>());
+        return coupon;
+    }
+
+    private CouponStackOptimizer.Candidate cartWise(BigDecimal threshold, BigDecimal percentage, BigDecimal cap, BigDecimal cartTotal) {
+        CartWiseCoupon coupon = stackable(new CartWiseCoupon(), true);
+        coupon.setThresholdAmount(threshold);
+        coupon.setDiscountPercentage(percentage);
+        coupon.setMaxDiscountAmount(cap);
+        BigDecimal discount = cartTotal.multiply(percentage).divide(BigDecimal.valueOf(100), 2, java.math.RoundingMode.HALF_UP);
+        if (cap != null) {
+            discount = discount.min(cap);
+        }
+        return new CouponStackOptimizer.Candidate(coupon, CouponEvaluation.applicable(discount, Collections.emptyMap()));
+    }
+
+    private CouponStackOptimizer.Candidate itemLevel(Coupon coupon, long productId, BigDecimal discount) {
+        return new CouponStackOptimizer.Candidate(coupon, CouponEvaluation.applicable(discount, Map.of(productId, discount)));
+    }
+
+    @Test
+    void optimize_itemDiscountBreakingCartThreshold_isLeftOut() {
+        CartIndex cart = buildCart(BigDecimal.valueOf(60), BigDecimal.valueOf(40));
+        CouponStackOptimizer.Candidate productWise = itemLevel(stackable(new ProductWiseCoupon(), true), 1L, BigDecimal.valueOf(30));
+        CouponStackOptimizer.Candidate bigCartWise = cartWise(BigDecimal.valueOf(90), BigDecimal.valueOf(50), BigDecimal.valueOf(45), cart.getTotal());
+        CouponStackOptimizer.Candidate smallCartWise = cartWise(BigDecimal.ZERO, BigDecimal.valueOf(10), null, cart.getTotal());
+
+        CouponStackOptimizer.Stack stack = optimizer.optimize(List.of(productWise, bigCartWise, smallCartWise), cart);
+
+        // 45 on 100, then 10% of the remaining 55; the product-wise 30 would drop the total below 90
+        assertEquals(List.of(bigCartWise, smallCartWise), stack.coupons());
+        assertEquals(List.of(BigDecimal.valueOf(45), new BigDecimal("5.50")), stack.discounts());
+        assertEquals(0, new BigDecimal("50.50").compareTo(stack.evaluation().discount()));
+        assertTrue(stack.optimal());
+    }
+
+    @Test
+    void optimize_nonStackableSingleBeatsStack() {
+        CartIndex cart = buildCart(BigDecimal.valueOf(100));
+        CouponStackOptimizer.Candidate exclusive = itemLevel(stackable(new ProductWiseCoupon(), false), 1L, BigDecimal.valueOf(50));
+        CouponStackOptimizer.Candidate first = itemLevel(stackable(new ProductWiseCoupon(), true), 1L, BigDecimal.valueOf(20));
+        CouponStackOptimizer.Candidate second = cartWise(BigDecimal.ZERO, BigDecimal.valueOf(10), null, cart.getTotal());
+
+        CouponStackOptimizer.Stack stack = optimizer.optimize(List.of(first, exclusive, second), cart);
+
+        assertEquals(List.of(exclusive), stack.coupons());
+        assertEquals(BigDecimal.valueOf(50), stack.evaluation().discount());
+        assertEquals(Map.of(1L, BigDecimal.valueOf(50)), stack.evaluation().lineDiscounts());
+    }
+
+    @Test
+    void optimize_overlappingLineDiscounts_cappedAtLineTotal() {
+        CartIndex cart = buildCart(BigDecimal.valueOf(100));
+        CouponStackOptimizer.Candidate productWise = itemLevel(stackable(new ProductWiseCoupon(), true), 1L, BigDecimal.valueOf(60));
+        CouponStackOptimizer.Candidate bxGy = itemLevel(stackable(new BxGyCoupon(), true), 1L, BigDecimal.valueOf(70));
+
+        CouponStackOptimizer.Stack stack = optimizer.optimize(List.of(productWise, bxGy), cart);
+
+        assertEquals(List.of(bxGy, productWise), stack.coupons());
+        assertEquals(List.of(BigDecimal.valueOf(70), BigDecimal.valueOf(30)), stack.discounts());
+        assertEquals(Map.of(1L, BigDecimal.valueOf(100)), stack.evaluation().lineDiscounts());
+    }
+
+    @Test
+    void optimize_noCandidates_returnsEmptyStack() {
+        CouponStackOptimizer.Stack stack = optimizer.optimize(List.of(), buildCart(BigDecimal.TEN));
+
+        assertTrue(stack.coupons().isEmpty());
+        assertFalse(stack.evaluation().applicable());
+        assertTrue(stack.optimal());
+    }
+}
@@ -8,9 +8,12 @@ import com.monk.commerce.task.dto.response.UpdatedCartDTO;
 import com.monk.commerce.task.entity.BuyProduct;
 import com.monk.commerce.task.entity.BxGyCoupon;
 import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.entity.ExcludedProduct;
 import com.monk.commerce.task.entity.GetProduct;
 import com.monk.commerce.task.enums.CouponType;
+import com.monk.commerce.task.enums.TierSelection;
 import com.monk.commerce.task.exception.CouponNotApplicableException;
+import com.monk.commerce.task.util.CartIndex;
 
 import org.junit.jupiter.api.Test;
 
@@ -18,7 +21,9 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -166,4 +171,160 @@ class BxGyCouponStrategyTest {
         assertTrue(getItemResponse.isPresent());
         assertEquals(BigDecimal.valueOf(50), getItemResponse.get().getTotalDiscount());
     }
+
+    @Test
+    void evaluate_tieredScenario_fallsBackToHighestMetTierInOnePass() {
+        BxGyCoupon coupon = buildSimpleBxGyCoupon();
+        coupon.setIsTiered(true);
+        coupon.getBuyProducts().add(BuyProduct.builder()
+                .id(UUID.randomUUID())
+                .bxgyCoupon(coupon)
+                .productId(1L)
+                .quantity(4)
+                .tierLevel(2)
+                .build());
+        coupon.getGetProducts().add(GetProduct.builder()
+                .id(UUID.randomUUID())
+                .bxgyCoupon(coupon)
+                .productId(2L)
+                .quantity(2)
+                .tierLevel(2)
+                .build());
+
+        CouponEvaluation evaluation = strategy.evaluate(coupon, CartIndex.of(buildCartSimple()));
+
+        assertTrue(evaluation.applicable());
+        assertEquals(BigDecimal.valueOf(50), evaluation.discount());
+        assertEquals(Map.of(2L, BigDecimal.valueOf(50)), evaluation.lineDiscounts());
+    }
+
+    @Test
+    void evaluate_bestValueTierSelection_picksLargestDiscountOverHighestTier() {
+        BxGyCoupon coupon = buildSimpleBxGyCoupon();
+        coupon.setIsTiered(true);
+        coupon.getBuyProducts().add(BuyProduct.builder()
+                .id(UUID.randomUUID())
+                .bxgyCoupon(coupon)
+                .productId(1L)
+                .quantity(1)
+                .tierLevel(2)
+                .build());
+        coupon.getGetProducts().add(GetProduct.builder()
+                .id(UUID.randomUUID())
+                .bxgyCoupon(coupon)
+                .productId(3L)
+                .quantity(1)
+                .tierLevel(2)
+                .build());
+        CartRequestDTO cart = buildCartSimple();
+        cart.getItems().add(new CartItemDTO(3L, 1, BigDecimal.valueOf(20)));
+
+        CouponEvaluation highestMet = strategy.evaluate(coupon, CartIndex.of(cart));
+        coupon.setTierSelection(TierSelection.BEST_VALUE);
+        AppliedCouponResponseDTO bestValue = strategy.applyCoupon(coupon, cart);
+
+        assertEquals(2, highestMet.appliedTier());
+        assertEquals(BigDecimal.valueOf(20), highestMet.discount());
+        assertEquals(1, bestValue.getAppliedTier());
+        assertEquals(BigDecimal.valueOf(50), bestValue.getUpdatedCart().getTotalDiscount());
+    }
+
+    @Test
+    void compile_keepsCouponAsCompiled() {
+        BxGyCoupon coupon = buildSimpleBxGyCoupon();
+
+        CouponEvaluator evaluator = strategy.compile(coupon);
+        coupon.setRepetitionLimit(0);
+        coupon.setExcludedProducts(new ArrayList<>(List.of(ExcludedProduct.builder().productId(1L).build())));
+
+        CouponEvaluation evaluation = evaluator.evaluate(CartIndex.of(buildCartSimple()));
+        assertTrue(evaluation.applicable());
+        assertEquals(BigDecimal.valueOf(50), evaluation.discount());
+        assertFalse(strategy.evaluate(coupon, CartIndex.of(buildCartSimple())).applicable());
+    }
+
+    @Test
+    void evaluate_fixedPoint_matchesBigDecimalWithinUpperBound() {
+        Random random = new Random(17);
+        for (int i = 0; i < 2_000; i++) {
+            CartRequestDTO cart = randomCart(random);
+            BxGyCoupon coupon = BxGyCoupon.builder()
+                    .id(UUID.randomUUID())
+                    .couponCode("BXGY-RANDOM")
+                    .type(CouponType.BXGY)
+                    .isActive(true)
+                    .repetitionLimit(1 + random.nextInt(3))
+                    .isTiered(true)
+                    .buyProducts(new ArrayList<>())
+                    .getProducts(new ArrayList<>())
+                    .build();
+            for (int tier = 1; tier <= 2; tier++) {
+                coupon.getBuyProducts().add(BuyProduct.builder()
+                        .bxgyCoupon(coupon)
+                        .productId(1L + random.nextInt(5))
+                        .quantity(1 + random.nextInt(3))
+                        .tierLevel(tier)
+                        .build());
+                for (int j = 0; j < 2; j++) {
+                    coupon.getGetProducts().add(GetProduct.builder()
+                            .bxgyCoupon(coupon)
+                            .productId(1L + random.nextInt(5))
+                            .quantity(1 + random.nextInt(3))
+                            .tierLevel(tier)
+                            .build());
+                }
+            }
+
+            CouponEvaluation fixedPoint = strategy.evaluate(coupon, CartIndex.of(cart));
+            CouponEvaluation bigDecimal = strategy.evaluate(coupon, CartIndex.withoutFixedPoint(cart));
+
+            assertSameEvaluation(bigDecimal, fixedPoint);
+            if (bigDecimal.applicable()) {
+                assertTrue(strategy.upperBound(coupon, CartIndex.of(cart)).compareTo(bigDecimal.discount()) >= 0);
+            }
+        }
+    }
+
+    @Test
+    void upperBound_repeatedGetProductAtDifferentPrices_coversDiscount() {
+        BxGyCoupon coupon = BxGyCoupon.builder()
+                .id(UUID.randomUUID())
+                .couponCode("B1G1-REPEAT")
+                .type(CouponType.BXGY)
+                .isActive(true)
+                .repetitionLimit(2)
+                .buyProducts(new ArrayList<>())
+                .getProducts(new ArrayList<>())
+                .build();
+        coupon.getBuyProducts().add(BuyProduct.builder().bxgyCoupon(coupon).productId(2L).quantity(1).tierLevel(1).build());
+        coupon.getGetProducts().add(GetProduct.builder().bxgyCoupon(coupon).productId(2L).quantity(1).tierLevel(1).build());
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(List.of(new CartItemDTO(2L, 1, BigDecimal.valueOf(100)), new CartItemDTO(2L, 1, BigDecimal.valueOf(5))));
+
+        CouponEvaluation evaluation = strategy.evaluate(coupon, CartIndex.of(cart));
+
+        // Both free units are discounted at the first-seen price, above the line total of 105
+        assertEquals(0, BigDecimal.valueOf(200).compareTo(evaluation.discount()));
+        assertTrue(strategy.upperBound(coupon, CartIndex.of(cart)).compareTo(evaluation.discount()) >= 0);
+    }
+
+    private static CartRequestDTO randomCart(Random random) {
+        List<CartItemDTO> items = new ArrayList<>();
+        int count = 1 + random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            // Few product IDs so that products repeat; prices with zero to two decimals
+            items.add(new CartItemDTO(1L + random.nextInt(5), 1 + random.nextInt(5),
+                    BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(3))));
+        }
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(items);
+        return cart;
+    }
+
+    private static void assertSameEvaluation(CouponEvaluation expected, CouponEvaluation actual) {
+        assertEquals(expected.applicable(), actual.applicable());
+        // equals on BigDecimal also compares the scale
+        assertEquals(expected.discount(), actual.discount());
+        assertEquals(expected.lineDiscounts(), actual.lineDiscounts());
+    }
 }
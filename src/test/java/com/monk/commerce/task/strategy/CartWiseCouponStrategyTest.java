@@ -9,6 +9,7 @@ import com.monk.commerce.task.entity.Coupon;
 import com.monk.commerce.task.entity.ExcludedProduct;
 import com.monk.commerce.task.enums.CouponType;
 import com.monk.commerce.task.exception.CouponNotApplicableException;
+import com.monk.commerce.task.util.CartIndex;
 
 import org.junit.jupiter.api.Test;
 
@@ -16,6 +17,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -145,4 +147,67 @@ class CartWiseCouponStrategyTest {
         assertEquals(BigDecimal.valueOf(20.00).setScale(2), updatedCart.getTotalDiscount());
         assertEquals(BigDecimal.valueOf(180.00).setScale(2), updatedCart.getFinalPrice());
     }
+
+    @Test
+    void evaluate_fixedPoint_matchesBigDecimalWithinUpperBound() {
+        Random random = new Random(11);
+        for (int i = 0; i < 2_000; i++) {
+            CartRequestDTO cart = randomCart(random);
+            CartWiseCoupon coupon = buildCartWiseCoupon(
+                    BigDecimal.valueOf(random.nextInt(200_000), random.nextInt(3)),
+                    BigDecimal.valueOf(1 + random.nextInt(5_000), random.nextInt(3)),
+                    random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(50_000), random.nextInt(3)));
+            if (random.nextBoolean()) {
+                ExcludedProduct excluded = new ExcludedProduct();
+                excluded.setProductId(1L + random.nextInt(5));
+                coupon.getExcludedProducts().add(excluded);
+            }
+
+            CouponEvaluation fixedPoint = strategy.evaluate(coupon, CartIndex.of(cart));
+            CouponEvaluation bigDecimal = strategy.evaluate(coupon, CartIndex.withoutFixedPoint(cart));
+
+            assertSameEvaluation(bigDecimal, fixedPoint);
+            BigDecimal bound = strategy.upperBound(coupon, CartIndex.of(cart));
+            // Above 100% the discount is not bounded by the cart and no bound is given
+            if (coupon.getDiscountPercentage().compareTo(BigDecimal.valueOf(100)) > 0) {
+                assertNull(bound);
+            } else if (bigDecimal.applicable()) {
+                assertTrue(bound.compareTo(bigDecimal.discount()) >= 0);
+            }
+        }
+    }
+
+    @Test
+    void compile_keepsCouponAsCompiled() {
+        CartWiseCoupon coupon = buildCartWiseCoupon(BigDecimal.valueOf(100), BigDecimal.valueOf(10), null);
+        CartIndex cartIndex = CartIndex.of(buildCart(BigDecimal.valueOf(100), BigDecimal.valueOf(100)));
+
+        CouponEvaluator evaluator = strategy.compile(coupon);
+        coupon.setDiscountPercentage(BigDecimal.valueOf(50));
+        coupon.setThresholdAmount(BigDecimal.valueOf(1_000));
+
+        assertSameEvaluation(CouponEvaluation.applicable(new BigDecimal("20.00"), Collections.emptyMap()),
+                evaluator.evaluate(cartIndex));
+        assertThrows(IllegalArgumentException.class, () -> strategy.compile(new Coupon()));
+    }
+
+    private static CartRequestDTO randomCart(Random random) {
+        List<CartItemDTO> items = new ArrayList<>();
+        int count = 1 + random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            // Few product IDs so that products repeat; prices with zero to two decimals
+            items.add(new CartItemDTO(1L + random.nextInt(5), 1 + random.nextInt(5),
+                    BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(3))));
+        }
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(items);
+        return cart;
+    }
+
+    private static void assertSameEvaluation(CouponEvaluation expected, CouponEvaluation actual) {
+        assertEquals(expected.applicable(), actual.applicable());
+        // equals on BigDecimal also compares the scale
+        assertEquals(expected.discount(), actual.discount());
+        assertEquals(expected.lineDiscounts(), actual.lineDiscounts());
+    }
 }
@@ -10,12 +10,14 @@ import com.monk.commerce.task.entity.ExcludedProduct;
 import com.monk.commerce.task.entity.ProductWiseCoupon;
 import com.monk.commerce.task.enums.CouponType;
 import com.monk.commerce.task.exception.CouponNotApplicableException;
+import com.monk.commerce.task.util.CartIndex;
 
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -140,4 +142,72 @@ class ProductWiseCouponStrategyTest {
         assertEquals(1L, item.getProductId());
         assertEquals(BigDecimal.valueOf(20).setScale(2), item.getTotalDiscount());
     }
+
+    @Test
+    void compile_keepsCouponAsCompiled() {
+        ProductWiseCoupon coupon = buildProductWiseCoupon(1L, BigDecimal.valueOf(10), null);
+        CartIndex cartIndex = CartIndex.of(buildCartWithProduct(1L, 2, BigDecimal.valueOf(100)));
+
+        CouponEvaluator evaluator = strategy.compile(coupon);
+        coupon.setProductId(2L);
+        coupon.setDiscountPercentage(BigDecimal.valueOf(50));
+
+        CouponEvaluation evaluation = evaluator.evaluate(cartIndex);
+        assertTrue(evaluation.applicable());
+        assertEquals(new BigDecimal("20.00"), evaluation.discount());
+        assertFalse(strategy.evaluate(coupon, cartIndex).applicable());
+    }
+
+    @Test
+    void evaluate_fixedPoint_matchesBigDecimalWithinUpperBound() {
+        Random random = new Random(13);
+        for (int i = 0; i < 2_000; i++) {
+            CartRequestDTO cart = randomCart(random);
+            ProductWiseCoupon coupon = buildProductWiseCoupon(1L + random.nextInt(5),
+                    BigDecimal.valueOf(1 + random.nextInt(5_000), random.nextInt(3)),
+                    random.nextBoolean() ? null : BigDecimal.valueOf(random.nextInt(10_000), random.nextInt(3)));
+
+            CouponEvaluation fixedPoint = strategy.evaluate(coupon, CartIndex.of(cart));
+            CouponEvaluation bigDecimal = strategy.evaluate(coupon, CartIndex.withoutFixedPoint(cart));
+
+            assertSameEvaluation(bigDecimal, fixedPoint);
+            BigDecimal bound = strategy.upperBound(coupon, CartIndex.of(cart));
+            // Above 100% the discount is not bounded by the cart and no bound is given
+            if (coupon.getDiscountPercentage().compareTo(BigDecimal.valueOf(100)) > 0) {
+                assertNull(bound);
+            } else if (bigDecimal.applicable()) {
+                assertTrue(bound.compareTo(bigDecimal.discount()) >= 0);
+            }
+        }
+    }
+
+    @Test
+    void evaluate_fixedPoint_fallsBackForPercentageWithMoreDecimals() {
+        CartRequestDTO cart = buildCartWithProduct(1L, 3, new BigDecimal("33.33"));
+        ProductWiseCoupon coupon = buildProductWiseCoupon(1L, new BigDecimal("12.345"), null);
+
+        CouponEvaluation evaluation = strategy.evaluate(coupon, CartIndex.of(cart));
+
+        assertEquals(new BigDecimal("12.34"), evaluation.discount());
+    }
+
+    private static CartRequestDTO randomCart(Random random) {
+        List<CartItemDTO> items = new ArrayList<>();
+        int count = 1 + random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            // Few product IDs so that products repeat; prices with zero to two decimals
+            items.add(new CartItemDTO(1L + random.nextInt(5), 1 + random.nextInt(5),
+                    BigDecimal.valueOf(1 + random.nextInt(100_000), random.nextInt(3))));
+        }
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(items);
+        return cart;
+    }
+
+    private static void assertSameEvaluation(CouponEvaluation expected, CouponEvaluation actual) {
+        assertEquals(expected.applicable(), actual.applicable());
+        // equals on BigDecimal also compares the scale
+        assertEquals(expected.discount(), actual.discount());
+        assertEquals(expected.lineDiscounts(), actual.lineDiscounts());
+    }
 }
@@ -0,0 +1,103 @@
+package com.monk.commerce.task.usage;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.repository.CouponRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CouponUsageCounterTest {
+
+    @Mock
+    private CouponRepository couponRepository;
+
+    private CouponUsageCounter counter;
+
+    @BeforeEach
+    void setup() {
+        counter = new CouponUsageCounter(couponRepository, 4);
+    }
+
+    private Coupon createCoupon(Long maxUsageLimit) {
+        Coupon coupon = new Coupon();
+        coupon.setId(UUID.randomUUID());
+        coupon.setMaxUsageLimit(maxUsageLimit);
+        return coupon;
+    }
+
+    @Test
+    void slotQuota_sharesAddUpToLimit() {
+        for (long limit : new long[]{0, 1, 3, 4, 10, 1001}) {
+            long total = IntStream.range(0, 4).mapToLong(slot -> CouponUsageCounter.slotQuota(limit, 4, slot)).sum();
+            assertEquals(limit, total);
+        }
+        assertEquals(3, CouponUsageCounter.slotQuota(10, 4, 1));
+        assertEquals(2, CouponUsageCounter.slotQuota(10, 4, 2));
+    }
+
+    @Test
+    void tryIncrement_unlimitedCoupon_incrementsOneSlot() {
+        Coupon coupon = createCoupon(null);
+
+        assertTrue(counter.tryIncrement(coupon));
+
+        verify(couponRepository).incrementUsageSlot(eq(coupon.getId()), intThat(slot -> slot >= 0 && slot < 4));
+        verify(couponRepository, never()).incrementUsageSlotWithinQuota(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void tryIncrement_fullSlot_movesOnToNextSlot() {
+        Coupon coupon = createCoupon(10L);
+        when(couponRepository.incrementUsageSlotWithinQuota(eq(coupon.getId()), anyInt(), anyLong()))
+                .thenReturn(0, 1);
+
+        assertTrue(counter.tryIncrement(coupon));
+
+        verify(couponRepository, times(2)).incrementUsageSlotWithinQuota(eq(coupon.getId()), anyInt(), anyLong());
+    }
+
+    @Test
+    void tryIncrement_allSlotsFull_returnsFalse() {
+        Coupon coupon = createCoupon(2L);
+        when(couponRepository.incrementUsageSlotWithinQuota(eq(coupon.getId()), anyInt(), anyLong())).thenReturn(0);
+
+        assertFalse(counter.tryIncrement(coupon));
+
+        // A limit of 2 only gives the first two slots a quota
+        verify(couponRepository).incrementUsageSlotWithinQuota(coupon.getId(), 0, 1L);
+        verify(couponRepository).incrementUsageSlotWithinQuota(coupon.getId(), 1, 1L);
+        verifyNoMoreInteractions(couponRepository);
+    }
+
+    @Test
+    void tryIncrement_zeroLimit_neverWrites() {
+        assertFalse(counter.tryIncrement(createCoupon(0L)));
+
+        verifyNoInteractions(couponRepository);
+    }
+
+    @Test
+    void rebalance_spreadsLockedTotalOverSlots() {
+        UUID couponId = UUID.randomUUID();
+        // Uses counted while the coupon had no limit, in slots a limit of 3 does not check
+        when(couponRepository.lockUsageSlots(couponId)).thenReturn(List.of(0L, 0L, 0L, 5L));
+
+        counter.rebalance(couponId);
+
+        var order = inOrder(couponRepository);
+        order.verify(couponRepository).createUsageSlots(couponId, 4);
+        order.verify(couponRepository).lockUsageSlots(couponId);
+        order.verify(couponRepository).spreadUsageSlots(couponId, 4, 5L);
+    }
+}
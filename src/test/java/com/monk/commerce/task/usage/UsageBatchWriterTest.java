@@ -0,0 +1,125 @@
+package com.monk.commerce.task.usage;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.exception.CouponNotApplicableException;
+import com.monk.commerce.task.repository.CouponUsageRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UsageBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CouponUsageCounter couponUsageCounter;
+
+    @Mock
+    private UserUsageBuffer userUsageBuffer;
+
+    @Mock
+    private CouponUsageRepository couponUsageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UsageBatchWriter writer;
+
+    @BeforeEach
+    void setup() {
+        writer = new UsageBatchWriter(jdbcTemplate, couponUsageCounter, userUsageBuffer, transactionManager);
+        when(couponUsageCounter.getSlots()).thenReturn(4);
+    }
+
+    private Coupon createCoupon(Long maxUsageLimit, Integer usageLimitPerUser) {
+        Coupon coupon = new Coupon();
+        coupon.setId(UUID.randomUUID());
+        coupon.setMaxUsageLimit(maxUsageLimit);
+        coupon.setUsageLimitPerUser(usageLimitPerUser);
+        return coupon;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeem_grantsInOrderUntilGlobalAndUserLimitsAreUsedUp() {
+        Coupon global = createCoupon(2L, null);
+        Coupon perUser = createCoupon(null, 1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1, 1}});
+
+        boolean[] granted = writer.redeem(List.of(
+                new UsageBatchWriter.Redemption(global, null),
+                new UsageBatchWriter.Redemption(perUser, "u1"),
+                new UsageBatchWriter.Redemption(global, null),
+                new UsageBatchWriter.Redemption(perUser, "u1"),
+                new UsageBatchWriter.Redemption(global, null),
+                new UsageBatchWriter.Redemption(perUser, "u2")));
+
+        assertArrayEquals(new boolean[]{true, true, true, false, false, true}, granted);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeem_retriesConflictsAndGivesUp() {
+        Coupon coupon = createCoupon(10L, null);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{0}});
+
+        assertThrows(CouponNotApplicableException.class,
+                () -> writer.redeem(List.of(new UsageBatchWriter.Redemption(coupon, null))));
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeem_batchWithoutRowCounts_failsInsteadOfSkippingLimitCheck() {
+        Coupon coupon = createCoupon(10L, null);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{Statement.SUCCESS_NO_INFO}});
+
+        assertThrows(IllegalStateException.class,
+                () -> writer.redeem(List.of(new UsageBatchWriter.Redemption(coupon, null))));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redeem_writeBehindEnabled_sharesPerUserLimitWithSingleRedemptions() {
+        UserUsageBuffer buffer = new UserUsageBuffer(jdbcTemplate, couponUsageRepository, transactionManager, true, 5, 100);
+        writer = new UsageBatchWriter(jdbcTemplate, couponUsageCounter, buffer, transactionManager);
+        Coupon coupon = createCoupon(null, 2);
+        when(couponUsageRepository.getTotalUsageByUserAndCoupon(coupon.getId(), "u1")).thenReturn(0);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenReturn(new int[][]{{1}});
+        assertTrue(buffer.tryRecord(coupon, "u1"));
+
+        boolean[] granted = writer.redeem(List.of(
+                new UsageBatchWriter.Redemption(coupon, "u1"),
+                new UsageBatchWriter.Redemption(coupon, "u1")));
+
+        assertArrayEquals(new boolean[]{true, false}, granted);
+        assertFalse(buffer.tryRecord(coupon, "u1"));
+        // The user's usage is only written by the buffer's flush
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO coupon_usage_counter"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT INTO coupon_usage "), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+}
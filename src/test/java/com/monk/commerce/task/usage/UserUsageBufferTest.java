@@ -0,0 +1,138 @@
+package com.monk.commerce.task.usage;
+
+import com.monk.commerce.task.entity.Coupon;
+import com.monk.commerce.task.repository.CouponUsageRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserUsageBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CouponUsageRepository couponUsageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserUsageBuffer buffer;
+
+    @BeforeEach
+    void setup() {
+        buffer = new UserUsageBuffer(jdbcTemplate, couponUsageRepository, transactionManager, true, 5, 100);
+    }
+
+    private Coupon createCoupon(Integer usageLimitPerUser) {
+        Coupon coupon = new Coupon();
+        coupon.setId(UUID.randomUUID());
+        coupon.setUsageLimitPerUser(usageLimitPerUser);
+        return coupon;
+    }
+
+    @Test
+    void tryRecord_countsPersistedAndBufferedUsageAgainstLimit() {
+        Coupon coupon = createCoupon(3);
+        when(couponUsageRepository.getTotalUsageByUserAndCoupon(coupon.getId(), "u1")).thenReturn(1);
+
+        assertTrue(buffer.tryRecord(coupon, "u1"));
+        assertTrue(buffer.tryRecord(coupon, "u1"));
+        assertFalse(buffer.tryRecord(coupon, "u1"));
+
+        assertEquals(2, buffer.getUnflushedUsage(coupon.getId(), "u1"));
+        verify(couponUsageRepository, times(1)).getTotalUsageByUserAndCoupon(coupon.getId(), "u1");
+    }
+
+    @Test
+    void tryRecord_entryEvictedBeforeReservation_rereadsPersistedUsage() {
+        boolean[] evict = new boolean[1];
+        Coupon coupon = new Coupon() {
+            @Override
+            public Integer getUsageLimitPerUser() {
+                if (evict[0]) {
+                    // The flush thread evicts the idle entry between the presence check and the reservation
+                    buffer.evictIdle(LocalDateTime.now().plusMinutes(1));
+                }
+                return 1;
+            }
+        };
+        coupon.setId(UUID.randomUUID());
+        when(couponUsageRepository.getTotalUsageByUserAndCoupon(coupon.getId(), "u1")).thenReturn(0, 1);
+        assertTrue(buffer.tryRecord(coupon, "u1"));
+        buffer.flush();
+        evict[0] = true;
+
+        assertFalse(buffer.tryRecord(coupon, "u1"));
+        verify(couponUsageRepository, times(2)).getTotalUsageByUserAndCoupon(coupon.getId(), "u1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_writesAggregatedDeltaOnceAndKeepsLimitInMemory() {
+        Coupon coupon = createCoupon(2);
+        when(couponUsageRepository.getTotalUsageByUserAndCoupon(coupon.getId(), "u1")).thenReturn(0);
+        buffer.tryRecord(coupon, "u1");
+        buffer.tryRecord(coupon, "u1");
+
+        buffer.flush();
+        buffer.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((Collection<Object> batch) -> batch.size() == 1),
+                eq(100), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0, buffer.getUnflushedUsage(coupon.getId(), "u1"));
+        assertFalse(buffer.tryRecord(coupon, "u1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_failedBatchIsRetried() {
+        Coupon coupon = createCoupon(null);
+        when(couponUsageRepository.getTotalUsageByUserAndCoupon(coupon.getId(), "u1")).thenReturn(0);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(new int[][]{{1}});
+        buffer.tryRecord(coupon, "u1");
+
+        buffer.flush();
+        assertEquals(1, buffer.getUnflushedUsage(coupon.getId(), "u1"));
+
+        buffer.flush();
+        assertEquals(0, buffer.getUnflushedUsage(coupon.getId(), "u1"));
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getUnflushedUsage_countsUsageWhileItsBatchIsWritten() {
+        Coupon coupon = createCoupon(null);
+        when(couponUsageRepository.getTotalUsageByUserAndCoupon(coupon.getId(), "u1")).thenReturn(0);
+        int[] unflushedDuringWrite = new int[1];
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    // A concurrent reader here finds the batch in neither the table nor the buffer otherwise
+                    unflushedDuringWrite[0] = buffer.getUnflushedUsage(coupon.getId(), "u1");
+                    return new int[][]{{1}};
+                });
+        buffer.tryRecord(coupon, "u1");
+
+        buffer.flush();
+
+        assertEquals(1, unflushedDuringWrite[0]);
+        assertEquals(0, buffer.getUnflushedUsage(coupon.getId(), "u1"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.monk.commerce.task.util;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.CartRequestDTO;
+import com.monk.commerce.task.entity.BuyProduct;
+import com.monk.commerce.task.entity.BxGyCoupon;
+import com.monk.commerce.task.entity.GetProduct;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BxGyTierTableTest {
+
+    private BxGyCoupon buildCoupon() {
+        BxGyCoupon coupon = new BxGyCoupon();
+        coupon.setBuyProducts(new ArrayList<>());
+        coupon.setGetProducts(new ArrayList<>());
+        coupon.setRepetitionLimit(1);
+        coupon.setIsTiered(true);
+        return coupon;
+    }
+
+    @Test
+    void of_groupsProductsByTier() {
+        BxGyCoupon coupon = buildCoupon();
+        coupon.getBuyProducts().add(BuyProduct.builder().productId(1L).quantity(2).tierLevel(1).build());
+        coupon.getBuyProducts().add(BuyProduct.builder().productId(2L).quantity(3).tierLevel(2).build());
+        coupon.getBuyProducts().add(BuyProduct.builder().productId(3L).quantity(1).tierLevel(2).build());
+        coupon.getGetProducts().add(GetProduct.builder().productId(4L).quantity(1).tierLevel(2).build());
+
+        BxGyTierTable table = BxGyTierTable.of(coupon);
+
+        assertEquals(2, table.getMaxTier());
+        assertEquals(2, table.getRequiredBuyQuantity(1));
+        assertEquals(4, table.getRequiredBuyQuantity(2));
+        assertEquals(0, table.getGetProductCount(1));
+        assertEquals(1, table.getGetProductCount(2));
+        assertEquals(4L, table.getGetProductId(2, 0));
+        assertEquals(1, table.getGetQuantity(2, 0));
+        assertEquals(0, table.getRequiredBuyQuantity(3));
+        assertEquals(0, table.getGetProductCount(0));
+    }
+
+    @Test
+    void getTierTable_recompiledOnlyOnRequest() {
+        BxGyCoupon coupon = buildCoupon();
+        coupon.getBuyProducts().add(BuyProduct.builder().productId(1L).quantity(2).tierLevel(1).build());
+        BxGyTierTable table = coupon.getTierTable();
+
+        coupon.getBuyProducts().add(BuyProduct.builder().productId(2L).quantity(1).tierLevel(1).build());
+
+        assertSame(table, coupon.getTierTable());
+        assertEquals(3, coupon.compileTierTable().getRequiredBuyQuantity(1));
+    }
+
+    @Test
+    void of_randomCoupons_matchCartUtilAndCouponUtil() {
+        Random random = new Random(23);
+        for (int i = 0; i < 1_000; i++) {
+            BxGyCoupon coupon = buildCoupon();
+            for (int j = random.nextInt(6); j > 0; j--) {
+                coupon.getBuyProducts().add(BuyProduct.builder().productId(1L + random.nextInt(6))
+                        .quantity(1 + random.nextInt(3)).tierLevel(1 + random.nextInt(4)).build());
+            }
+            for (int j = random.nextInt(6); j > 0; j--) {
+                coupon.getGetProducts().add(GetProduct.builder().productId(1L + random.nextInt(6))
+                        .quantity(1 + random.nextInt(3)).tierLevel(1 + random.nextInt(4)).build());
+            }
+            List<CartItemDTO> items = new ArrayList<>();
+            for (int j = 1 + random.nextInt(5); j > 0; j--) {
+                items.add(new CartItemDTO(1L + random.nextInt(6), 1 + random.nextInt(4), BigDecimal.TEN));
+            }
+            CartRequestDTO cart = new CartRequestDTO();
+            cart.setItems(items);
+            CartIndex cartIndex = CartIndex.of(cart);
+
+            BxGyTierTable table = BxGyTierTable.of(coupon);
+
+            assertEquals(CouponUtil.getMaxTierLevel(coupon), table.getMaxTier());
+            for (int tier = 1; tier <= table.getMaxTier(); tier++) {
+                assertEquals(CartUtil.getTotalBuyQuantity(coupon, tier), table.getRequiredBuyQuantity(tier));
+                assertEquals(CartUtil.calculateBuyQuantityInCart(coupon, CartUtil.getCartProductQuantities(cart), tier),
+                        table.getBuyQuantityInCart(cartIndex, tier));
+                int expectedGetProducts = 0;
+                for (GetProduct getProduct : coupon.getGetProducts()) {
+                    if (getProduct.getTierLevel() == tier) {
+                        assertEquals(getProduct.getProductId(), table.getGetProductId(tier, expectedGetProducts));
+                        assertEquals(getProduct.getQuantity(), table.getGetQuantity(tier, expectedGetProducts));
+                        expectedGetProducts++;
+                    }
+                }
+                assertEquals(expectedGetProducts, table.getGetProductCount(tier));
+            }
+        }
+    }
+}
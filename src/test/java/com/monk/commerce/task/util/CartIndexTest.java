@@ -0,0 +1,84 @@
+package com.monk.commerce.task.util;
+
+import com.monk.commerce.task.dto.request.CartItemDTO;
+import com.monk.commerce.task.dto.request.CartRequestDTO;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartIndexTest {
+
+    private CartRequestDTO buildCart(CartItemDTO... items) {
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(new ArrayList<>(List.of(items)));
+        return cart;
+    }
+
+    @Test
+    void of_indexesQuantitiesPricesAndTotal() {
+        CartRequestDTO cart = buildCart(
+                new CartItemDTO(1L, 2, BigDecimal.valueOf(100)),
+                new CartItemDTO(2L, 1, BigDecimal.valueOf(50)));
+
+        CartIndex index = CartIndex.of(cart);
+
+        assertEquals(2, index.size());
+        assertEquals(BigDecimal.valueOf(250), index.getTotal());
+        assertEquals(2, index.getQuantity(1L));
+        assertEquals(BigDecimal.valueOf(50), index.getPrice(2L));
+        assertEquals(BigDecimal.valueOf(200), index.getLineTotal(1L));
+        assertTrue(index.contains(2L));
+        assertFalse(index.contains(3L));
+        assertEquals(0, index.getQuantity(3L));
+        assertEquals(BigDecimal.ZERO, index.getPrice(3L));
+        assertSame(cart, index.getCart());
+    }
+
+    @Test
+    void of_repeatedProduct_mergesLikeCartUtil() {
+        CartRequestDTO cart = buildCart(
+                new CartItemDTO(7L, 1, BigDecimal.valueOf(10)),
+                new CartItemDTO(7L, 3, BigDecimal.valueOf(20)));
+
+        CartIndex index = CartIndex.of(cart);
+
+        assertEquals(1, index.size());
+        assertEquals(4, index.getQuantity(7L));
+        assertEquals(BigDecimal.valueOf(10), index.getPrice(7L));
+        assertEquals(CartUtil.calculateCartTotal(cart), index.getTotal());
+    }
+
+    @Test
+    void of_randomCarts_matchCartUtilMaps() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            int size = 1 + random.nextInt(100);
+            List<CartItemDTO> items = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                // Clustered IDs make probe collisions likely
+                long productId = 1 + random.nextInt(64) * 1024L;
+                items.add(new CartItemDTO(productId, 1 + random.nextInt(10), BigDecimal.valueOf(random.nextInt(100000), 2)));
+            }
+            CartRequestDTO cart = buildCart(items.toArray(new CartItemDTO[0]));
+
+            CartIndex index = CartIndex.of(cart);
+            Map<Long, Integer> quantities = CartUtil.getCartProductQuantities(cart);
+            Map<Long, BigDecimal> prices = CartUtil.getProductPrices(cart);
+
+            assertEquals(quantities.size(), index.size());
+            assertEquals(CartUtil.calculateCartTotal(cart), index.getTotal());
+            quantities.forEach((productId, quantity) -> {
+                assertEquals(quantity, index.getQuantity(productId));
+                assertEquals(prices.get(productId), index.getPrice(productId));
+            });
+            assertFalse(index.contains(2L));
+        }
+    }
+}
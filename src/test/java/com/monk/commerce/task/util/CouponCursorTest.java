@@ -0,0 +1,30 @@
+package com.monk.commerce.task.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CouponCursorTest {
+
+    @Test
+    void encode_decodesBackToSamePosition() {
+        CouponCursor cursor = new CouponCursor(LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_000), UUID.randomUUID());
+
+        assertEquals(cursor, CouponCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_null_returnsNull() {
+        assertNull(CouponCursor.decode(null));
+    }
+
+    @Test
+    void decode_malformed_throwsException() {
+        assertThrows(IllegalArgumentException.class, () -> CouponCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> CouponCursor.decode(
+                new CouponCursor(LocalDateTime.now(), UUID.randomUUID()).encode().substring(4)));
+    }
+}
@@ -5,13 +5,11 @@ import com.monk.commerce.task.dto.request.CartRequestDTO;
 import com.monk.commerce.task.entity.BuyProduct;
 import com.monk.commerce.task.entity.BxGyCoupon;
 import com.monk.commerce.task.entity.Coupon;
-import com.monk.commerce.task.entity.CouponUsage;
 import com.monk.commerce.task.entity.ExcludedProduct;
 import com.monk.commerce.task.entity.GetProduct;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -50,11 +48,8 @@ class CouponUtilTest {
         Coupon coupon = new Coupon();
         coupon.setUsageLimitPerUser(3);
 
-        CouponUsage u1 = CouponUsage.builder().userId("u1").usageCount(2).build();
-        CouponUsage u2 = CouponUsage.builder().userId("u1").usageCount(1).build();
-        coupon.setUsageHistory(Arrays.asList(u1, u2));
-
-        assertTrue(CouponUtil.hasUserReachedLimit(coupon, "u1"));
+        assertFalse(CouponUtil.hasUserReachedLimit(coupon, 2));
+        assertTrue(CouponUtil.hasUserReachedLimit(coupon, 3));
     }
 
     @Test
@@ -75,6 +70,16 @@ class CouponUtilTest {
         assertTrue(CouponUtil.hasExcludedProducts(coupon, cart));
     }
 
+    @Test
+    void hasExcludedProducts_falseWhenCouponHasNoExclusionList() {
+        Coupon coupon = com.monk.commerce.task.entity.CartWiseCoupon.builder().build();
+        CartRequestDTO cart = new CartRequestDTO();
+        cart.setItems(List.of(makeItem(1L)));
+
+        assertFalse(CouponUtil.hasExcludedProducts(coupon, cart));
+        assertFalse(CouponUtil.isProductExcluded(coupon, 1L));
+    }
+
     private com.monk.commerce.task.dto.request.CartItemDTO makeItem(Long id) {
         com.monk.commerce.task.dto.request.CartItemDTO dto = new com.monk.commerce.task.dto.request.CartItemDTO();
         dto.setProductId(id);
@@ -88,14 +93,8 @@ class CouponUtilTest {
         Coupon coupon = new Coupon();
         coupon.setUsageLimitPerUser(5);
 
-        CouponUsage usage = CouponUsage.builder()
-                .userId("u1")
-                .usageCount(3)
-                .build();
-
-        coupon.setUsageHistory(List.of(usage));
-
-        assertEquals(2, CouponUtil.getUserUsageRemaining(coupon, "u1"));
+        assertEquals(2, CouponUtil.getUserUsageRemaining(coupon, 3));
+        assertEquals(0, CouponUtil.getUserUsageRemaining(coupon, 7));
     }
 
     @Test
@@ -0,0 +1,55 @@
+package com.monk.commerce.task.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointMoneyTest {
+
+    @Test
+    void isRepresentable_rejectsExtraDecimalsAndHugeAmounts() {
+        assertTrue(FixedPointMoney.isRepresentable(new BigDecimal("19.99")));
+        assertTrue(FixedPointMoney.isRepresentable(new BigDecimal("1E+3")));
+        assertFalse(FixedPointMoney.isRepresentable(new BigDecimal("0.001")));
+        assertFalse(FixedPointMoney.isRepresentable(new BigDecimal("1234567890123456")));
+        assertFalse(FixedPointMoney.isRepresentable(null));
+    }
+
+    @Test
+    void toBigDecimal_keepsScale() {
+        assertEquals(new BigDecimal("50"), FixedPointMoney.toBigDecimal(5000, 0));
+        assertEquals(new BigDecimal("50.00"), FixedPointMoney.toBigDecimal(5000, 2));
+        assertEquals(new BigDecimal("5.0"), FixedPointMoney.toBigDecimal(500, 1));
+        assertEquals(new BigDecimal("1E+3"), FixedPointMoney.toBigDecimal(100_000, -3));
+    }
+
+    @Test
+    void percentageOf_roundsHalfUp() {
+        // 10.05 * 5% = 0.5025 -> 0.50, 10.10 * 5% = 0.505 -> 0.51
+        assertEquals(50, FixedPointMoney.percentageOf(1005, 500));
+        assertEquals(51, FixedPointMoney.percentageOf(1010, 500));
+        assertEquals(-51, FixedPointMoney.percentageOf(-1010, 500));
+    }
+
+    @Test
+    void percentageOf_randomAmounts_matchDiscountCalculator() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(10_000_000), random.nextInt(3));
+            BigDecimal percentage = BigDecimal.valueOf(random.nextInt(10_001), random.nextInt(3));
+            BigDecimal expected = DiscountCalculator.calculatePercentageDiscount(amount, percentage);
+
+            long actual = FixedPointMoney.percentageOf(FixedPointMoney.toMinorUnits(amount), FixedPointMoney.toMinorUnits(percentage));
+
+            assertEquals(expected, FixedPointMoney.toBigDecimal(actual, FixedPointMoney.SCALE), amount + " * " + percentage);
+        }
+    }
+
+    @Test
+    void percentageOf_overflowThrows() {
+        assertThrows(ArithmeticException.class, () -> FixedPointMoney.percentageOf(Long.MAX_VALUE / 2, 10_000));
+    }
+}